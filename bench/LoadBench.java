@@ -0,0 +1,241 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load generator for the Car Fuel backend.
+ *
+ * Seeds a set of cars, then for each concurrency level runs that many clients,
+ * each sending its next request as soon as the previous one answers, and prints
+ * throughput and latency percentiles. Clients run on virtual threads so the
+ * generator itself is not limited by a thread pool.
+ *
+ * The mix is stats reads (REST and servlet, half each) plus a share of fuel entry
+ * writes. Run with a JDK 21 single-file launch:
+ *
+ *   java bench/LoadBench.java --url http://localhost:8080 --label platform
+ *
+ * Options (defaults in brackets):
+ *   --url          server base URL [http://localhost:8080]
+ *   --label        name of the run in the output [run]
+ *   --concurrency  comma-separated client counts [16,64,256,1024]
+ *   --duration     measured seconds per level [20]
+ *   --warmup       unmeasured seconds per level [5]
+ *   --cars         cars to seed [200]
+ *   --write-ratio  share of requests that add a fuel entry [0.1]
+ *   --csv          file to append result rows to (optional)
+ */
+public class LoadBench {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        String label = options.getOrDefault("label", "run");
+        int[] levels = Arrays.stream(options.getOrDefault("concurrency", "16,64,256,1024").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+        int duration = Integer.parseInt(options.getOrDefault("duration", "20"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int carCount = Integer.parseInt(options.getOrDefault("cars", "200"));
+        double writeRatio = Double.parseDouble(options.getOrDefault("write-ratio", "0.1"));
+        String csv = options.get("csv");
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        long[] carIds = seed(client, url, carCount);
+        AtomicInteger[] odometers = new AtomicInteger[carIds.length];
+        for (int i = 0; i < odometers.length; i++) {
+            odometers[i] = new AtomicInteger(10_000);
+        }
+        System.out.printf("Seeded %d cars on %s%n", carIds.length, url);
+        System.out.printf("%-10s %11s %10s %10s %9s %9s %9s %8s%n",
+                "label", "concurrency", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "errors");
+
+        for (int level : levels) {
+            Result result = runLevel(client, url, carIds, odometers, writeRatio, level, warmup, duration);
+            String line = String.format("%-10s %11d %10d %10.1f %9.2f %9.2f %9.2f %8d",
+                    label, level, result.requests, result.requests / (double) duration,
+                    result.percentile(0.50), result.percentile(0.90), result.percentile(0.99), result.errors);
+            System.out.println(line);
+            if (csv != null) {
+                Files.writeString(Path.of(csv),
+                        String.format("%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%d%n", label, level, result.requests,
+                                result.requests / (double) duration, result.percentile(0.50),
+                                result.percentile(0.90), result.percentile(0.99), result.errors),
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        }
+    }
+
+    /**
+     * Create the benchmark cars, each with two fuel entries so stats have a distance.
+     */
+    private static long[] seed(HttpClient client, String url, int count) throws Exception {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            String body = String.format("{\"brand\":\"Bench\",\"model\":\"M%d-%s\",\"year\":2020}", i, run);
+            HttpResponse<String> created = client.send(post(url + "/api/cars", body), HttpResponse.BodyHandlers.ofString());
+            if (created.statusCode() != 201) {
+                throw new IllegalStateException("Seeding failed: " + created.statusCode() + " " + created.body());
+            }
+            Matcher id = ID.matcher(created.body());
+            if (!id.find()) {
+                throw new IllegalStateException("No car ID in " + created.body());
+            }
+            ids[i] = Long.parseLong(id.group(1));
+            client.send(post(url + "/api/cars/" + ids[i] + "/fuel",
+                    "{\"liters\":40.0,\"price\":60.0,\"odometer\":9000}"), HttpResponse.BodyHandlers.discarding());
+            client.send(post(url + "/api/cars/" + ids[i] + "/fuel",
+                    "{\"liters\":38.0,\"price\":57.0,\"odometer\":9500}"), HttpResponse.BodyHandlers.discarding());
+        }
+        return ids;
+    }
+
+    private static Result runLevel(HttpClient client, String url, long[] carIds, AtomicInteger[] odometers,
+                                   double writeRatio, int clients, int warmup, int duration) throws Exception {
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Recorder> recorders = new ArrayList<>(clients);
+        List<Thread> threads = new ArrayList<>(clients);
+
+        for (int c = 0; c < clients; c++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            threads.add(Thread.ofVirtual().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    int car = random.nextInt(carIds.length);
+                    HttpRequest request;
+                    if (random.nextDouble() < writeRatio) {
+                        int odometer = odometers[car].addAndGet(100);
+                        request = post(url + "/api/cars/" + carIds[car] + "/fuel",
+                                "{\"liters\":35.0,\"price\":52.0,\"odometer\":" + odometer + "}");
+                    } else if (random.nextBoolean()) {
+                        request = get(url + "/api/cars/" + carIds[car] + "/fuel/stats");
+                    } else {
+                        request = get(url + "/servlet/fuel-stats?carId=" + carIds[car]);
+                    }
+
+                    long started = System.nanoTime();
+                    boolean failed;
+                    try {
+                        // 4xx (e.g. an odometer write overtaken by a newer one) still counts as served
+                        failed = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 500;
+                    } catch (Exception e) {
+                        failed = true;
+                    }
+                    if (measuring.get()) {
+                        recorder.record(System.nanoTime() - started, failed);
+                    }
+                }
+            }));
+        }
+
+        Thread.sleep(warmup * 1000L);
+        measuring.set(true);
+        Thread.sleep(duration * 1000L);
+        measuring.set(false);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Result result = new Result();
+        for (Recorder recorder : recorders) {
+            result.add(recorder);
+        }
+        return result;
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static HttpRequest post(String uri, String json) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Latencies of one client; only touched by its own thread until the level ends
+     */
+    private static final class Recorder {
+        long[] latencies = new long[1024];
+        int count;
+        long errors;
+
+        void record(long nanos, boolean failed) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (failed) {
+                errors++;
+            }
+        }
+    }
+
+    /**
+     * Merged latencies of all clients of a level
+     */
+    private static final class Result {
+        long[] latencies = new long[0];
+        long requests;
+        long errors;
+
+        void add(Recorder recorder) {
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + recorder.count);
+            System.arraycopy(recorder.latencies, 0, latencies, offset, recorder.count);
+            requests += recorder.count;
+            errors += recorder.errors;
+        }
+
+        double percentile(double quantile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+import com.aem.carfuel.dto.AddFuelRequest;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelStats;
+import com.aem.carfuel.wire.BinaryWireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares payload size and encode/decode cost of JSON and the binary wire format
+ * for the representations the REST API offers in both.
+ *
+ * JSON is written with an ObjectMapper configured like the response cache. A car
+ * cannot be read back into a Car, because its entries are exposed as a computed
+ * list, so JSON cars are decoded into a tree, as API clients typically do.
+ * Run it against the built classes with bench/wire-format.sh.
+ *
+ * Options (defaults in brackets):
+ *   --entries      comma-separated fuel entry counts of the measured cars [1,10,100,1000]
+ *   --seconds      measured seconds per case and direction [2]
+ */
+public class WireFormatBench {
+
+    @FunctionalInterface
+    private interface Operation {
+        Object run() throws IOException;
+    }
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Results consumed here, so the JIT cannot drop the measured work
+     */
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int[] entryCounts = Arrays.stream(options.getOrDefault("entries", "1,10,100,1000").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim()))
+                .toArray();
+        long nanos = Long.parseLong(options.getOrDefault("seconds", "2")) * 1_000_000_000L;
+
+        JSON.findAndRegisterModules();
+        JSON.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        System.out.printf("%-22s %-7s %10s %12s %12s%n", "payload", "format", "bytes", "encode ns", "decode ns");
+
+        AddFuelRequest request = AddFuelRequest.builder()
+                .liters(42.37).price(71.9).odometer(123_456).timestamp(LocalDateTime.of(2025, 12, 30, 11, 0))
+                .build();
+        byte[] requestJson = JSON.writeValueAsBytes(request);
+        byte[] requestBinary = encodeRequest(request);
+        report("AddFuelRequest", "json", requestJson.length,
+                measure(nanos, () -> JSON.writeValueAsBytes(request)),
+                measure(nanos, () -> JSON.readValue(requestJson, AddFuelRequest.class)));
+        report("AddFuelRequest", "binary", requestBinary.length,
+                measure(nanos, () -> encodeRequest(request)),
+                measure(nanos, () -> BinaryWireFormat.readAddFuelRequest(
+                        new DataInputStream(new ByteArrayInputStream(requestBinary)))));
+
+        FuelStats stats = FuelStats.builder()
+                .totalFuel(1234.56).totalCost(2051.73).avgConsumption(6.4312).entriesCount(31)
+                .build();
+        byte[] statsJson = JSON.writeValueAsBytes(stats);
+        byte[] statsBinary = BinaryWireFormat.encode(stats);
+        report("FuelStats", "json", statsJson.length,
+                measure(nanos, () -> JSON.writeValueAsBytes(stats)),
+                measure(nanos, () -> JSON.readValue(statsJson, FuelStats.class)));
+        report("FuelStats", "binary", statsBinary.length,
+                measure(nanos, () -> BinaryWireFormat.encode(stats)),
+                measure(nanos, () -> BinaryWireFormat.readStats(
+                        new DataInputStream(new ByteArrayInputStream(statsBinary)))));
+
+        for (int entries : entryCounts) {
+            Car car = car(entries);
+            String name = "Car, " + entries + " entries";
+            byte[] carJson = JSON.writeValueAsBytes(car);
+            byte[] carBinary = BinaryWireFormat.encode(car);
+            report(name, "json", carJson.length,
+                    measure(nanos, () -> JSON.writeValueAsBytes(car)),
+                    measure(nanos, () -> JSON.readTree(carJson)));
+            report(name, "binary", carBinary.length,
+                    measure(nanos, () -> BinaryWireFormat.encode(car)),
+                    measure(nanos, () -> BinaryWireFormat.readCar(
+                            new DataInputStream(new ByteArrayInputStream(carBinary)))));
+        }
+
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static Car car(int entries) {
+        Car car = Car.builder()
+                .id(7L).brand("Toyota").model("Corolla").year(2018)
+                .createdAt(LocalDateTime.of(2024, 1, 15, 9, 30))
+                .build();
+        LocalDateTime timestamp = LocalDateTime.of(2024, 2, 1, 8, 0);
+        for (int i = 0; i < entries; i++) {
+            car.addFuelEntry(FuelEntry.builder()
+                    .id(1000L + i)
+                    .liters(35 + (i % 17) * 0.73)
+                    .price(52 + (i % 23) * 1.19)
+                    .odometer(20_000 + i * 550)
+                    .timestamp(timestamp.plusDays(i * 6L).plusMinutes(i % 60))
+                    .build());
+        }
+        return car;
+    }
+
+    private static byte[] encodeRequest(AddFuelRequest request) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(29);
+        BinaryWireFormat.writeAddFuelRequest(new DataOutputStream(bytes), request);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Average nanoseconds per call, after a warm-up of the same length
+     */
+    private static double measure(long nanos, Operation operation) throws IOException {
+        run(nanos, operation);
+        return run(nanos, operation);
+    }
+
+    private static double run(long nanos, Operation operation) throws IOException {
+        long calls = 0;
+        long started = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 100; i++) {
+                sink += System.identityHashCode(operation.run());
+            }
+            calls += 100;
+            elapsed = System.nanoTime() - started;
+        } while (elapsed < nanos);
+        return elapsed / (double) calls;
+    }
+
+    private static void report(String payload, String format, int bytes, double encode, double decode) {
+        System.out.printf("%-22s %-7s %10d %12.0f %12.0f%n", payload, format, bytes, encode, decode);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
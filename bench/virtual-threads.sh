@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+#
+# Compare platform-thread and virtual-thread modes of the backend under rising load.
+#
+# Builds the boot jar, then for each mode starts a fresh server, runs
+# bench/LoadBench.java against it and stops it again. Results are printed and
+# appended to build/bench/virtual-threads.csv.
+#
+# Environment (defaults in brackets):
+#   PORT         server port [18080]
+#   CONCURRENCY  client counts per level [16,64,256,1024]
+#   DURATION     measured seconds per level [20]
+#   WARMUP       unmeasured seconds per level [5]
+#   WRITE_RATIO  share of fuel entry writes [0.1]
+#   WAL_SYNC     if set (always|group|periodic), enable the write-ahead log with
+#                that sync mode so writes block on fsync like a persistent deployment
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT="${PORT:-18080}"
+CONCURRENCY="${CONCURRENCY:-16,64,256,1024}"
+DURATION="${DURATION:-20}"
+WARMUP="${WARMUP:-5}"
+WRITE_RATIO="${WRITE_RATIO:-0.1}"
+OUT_DIR=build/bench
+CSV="$OUT_DIR/virtual-threads.csv"
+
+mkdir -p "$OUT_DIR"
+./gradlew -q bootJar
+JAR=$(ls build/libs/*.jar | grep -v -- '-plain' | head -n 1)
+
+echo "label,concurrency,requests,req_per_s,p50_ms,p90_ms,p99_ms,errors" > "$CSV"
+
+for mode in platform virtual; do
+    args=(
+        --server.port="$PORT"
+        --spring.threads.virtual.enabled="$([ "$mode" = virtual ] && echo true || echo false)"
+        --logging.level.com.aem.carfuel=WARN
+    )
+    if [ -n "${WAL_SYNC:-}" ]; then
+        wal_dir=$(mktemp -d)
+        args+=(
+            --carfuel.storage.wal.enabled=true
+            --carfuel.storage.wal.sync-mode="$WAL_SYNC"
+            --carfuel.storage.wal.directory="$wal_dir"
+        )
+    fi
+
+    java -jar "$JAR" "${args[@]}" > "$OUT_DIR/server-$mode.log" 2>&1 &
+    server=$!
+    trap 'kill "$server" 2>/dev/null || true' EXIT
+
+    for _ in $(seq 1 60); do
+        if curl -fs "http://localhost:$PORT/api/cars?limit=1" > /dev/null; then
+            break
+        fi
+        sleep 1
+    done
+
+    java bench/LoadBench.java \
+        --url "http://localhost:$PORT" \
+        --label "$mode" \
+        --concurrency "$CONCURRENCY" \
+        --duration "$DURATION" \
+        --warmup "$WARMUP" \
+        --write-ratio "$WRITE_RATIO" \
+        --csv "$CSV"
+
+    kill "$server"
+    wait "$server" 2>/dev/null || true
+    trap - EXIT
+done
+
+echo
+echo "Results written to $CSV"
@@ -0,0 +1,31 @@
+#!/usr/bin/env bash
+#
+# Compare payload size and encode/decode cost of JSON and the binary wire format.
+#
+# Builds the boot jar, unpacks its classes and libraries, and runs
+# bench/WireFormatBench.java against them. Results are printed and written to
+# build/bench/wire-format.txt.
+#
+# Environment (defaults in brackets):
+#   ENTRIES          fuel entry counts of the measured cars [1,10,100,1000]
+#   MEASURE_SECONDS  measured seconds per case and direction [2]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+ENTRIES="${ENTRIES:-1,10,100,1000}"
+MEASURE_SECONDS="${MEASURE_SECONDS:-2}"
+OUT_DIR=build/bench
+CLASSES="$OUT_DIR/wire-format-classpath"
+
+mkdir -p "$OUT_DIR"
+./gradlew -q bootJar
+JAR=$(ls build/libs/*.jar | grep -v -- '-plain' | head -n 1)
+
+rm -rf "$CLASSES"
+mkdir -p "$CLASSES"
+(cd "$CLASSES" && jar xf "$OLDPWD/$JAR" BOOT-INF)
+
+java -cp "$CLASSES/BOOT-INF/classes:$CLASSES/BOOT-INF/lib/*" bench/WireFormatBench.java \
+    --entries "$ENTRIES" \
+    --seconds "$MEASURE_SECONDS" | tee "$OUT_DIR/wire-format.txt"
@@ -97,12 +97,15 @@ public class CarFuelCli {
         System.out.println("    --liters <amount>    Fuel in liters (required)");
         System.out.println("    --price <cost>       Total cost (required)");
         System.out.println("    --odometer <km>      Odometer reading (required)");
+        System.out.println("    --timestamp <time>   Refill time, e.g. 2025-01-15T08:30:00 (default now)");
+        System.out.println("    --format <json|binary>  Wire format (default json)");
         System.out.println();
         System.out.println("    Example:");
         System.out.println("      java -jar carfuel-cli-1.0.0.jar add-fuel --carId 1 --liters 40 --price 52.5 --odometer 45000");
         System.out.println();
         System.out.println("  fuel-stats     View fuel statistics");
         System.out.println("    --carId <id>         Car ID (required)");
+        System.out.println("    --format <json|binary>  Wire format (default json)");
         System.out.println();
         System.out.println("    Example:");
         System.out.println("      java -jar carfuel-cli-1.0.0.jar fuel-stats --carId 1");
@@ -1,12 +1,14 @@
 package com.carfuel.cli.command;
 
 import com.carfuel.cli.http.ApiClient;
+import com.carfuel.cli.http.BinaryCodec;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,6 +17,11 @@ import java.util.Map;
  */
 public class CommandParser {
     
+    /**
+     * Number of cars requested per page when listing
+     */
+    private static final int LIST_PAGE_SIZE = 500;
+    
     private final ApiClient apiClient;
     private final Gson gson;
     
@@ -78,10 +85,29 @@ public class CommandParser {
         String price = requireParam(params, "price");
         String odometer = requireParam(params, "odometer");
         
+        if (isBinary(params)) {
+            byte[] body = BinaryCodec.encodeFuelRequest(Double.parseDouble(liters), Double.parseDouble(price),
+                    Integer.parseInt(odometer), params.get("timestamp"));
+            HttpResponse<byte[]> response = apiClient.postBinary("/api/cars/" + carId + "/fuel", body);
+            
+            if (response.statusCode() == 200) {
+                BinaryCodec.CarView car = BinaryCodec.decodeCar(response.body());
+                System.out.println("Fuel entry added successfully!");
+                System.out.println("   Car:           " + car.brand() + " " + car.model());
+                System.out.println("   Total entries: " + car.entriesCount());
+            } else {
+                handleError(response.statusCode(), new String(response.body(), StandardCharsets.UTF_8));
+            }
+            return;
+        }
+        
         JsonObject json = new JsonObject();
         json.addProperty("liters", Double.parseDouble(liters));
         json.addProperty("price", Double.parseDouble(price));
         json.addProperty("odometer", Integer.parseInt(odometer));
+        if (params.containsKey("timestamp")) {
+            json.addProperty("timestamp", params.get("timestamp"));
+        }
         
         HttpResponse<String> response = apiClient.post("/api/cars/" + carId + "/fuel", gson.toJson(json));
         
@@ -100,50 +126,77 @@ public class CommandParser {
     private void fuelStats(Map<String, String> params) throws Exception {
         String carId = requireParam(params, "carId");
         
-        HttpResponse<String> response = apiClient.get("/api/cars/" + carId + "/fuel/stats");
-        
-        if (response.statusCode() == 200) {
-            JsonObject stats = gson.fromJson(response.body(), JsonObject.class);
-            
-            double totalFuel = stats.get("totalFuel").getAsDouble();
-            double totalCost = stats.get("totalCost").getAsDouble();
-            double avgConsumption = stats.get("avgConsumption").getAsDouble();
-            int entriesCount = stats.get("entriesCount").getAsInt();
-            
-            System.out.println();
-            System.out.println("═══════════════════════════════════════");
-            System.out.println("        Fuel Statistics                ");
-            System.out.println("═══════════════════════════════════════");
-            System.out.println();
-            System.out.printf("Total fuel:          %.1f L%n", totalFuel);
-            System.out.printf("Total cost:          %.2f%n", totalCost);
-            System.out.printf("Average consumption: %.1f L/100km%n", avgConsumption);
-            System.out.printf("Entries count:       %d%n", entriesCount);
-            System.out.println();
+        double totalFuel;
+        double totalCost;
+        double avgConsumption;
+        int entriesCount;
+        if (isBinary(params)) {
+            HttpResponse<byte[]> response = apiClient.getBinary("/api/cars/" + carId + "/fuel/stats");
+            if (response.statusCode() != 200) {
+                handleError(response.statusCode(), new String(response.body(), StandardCharsets.UTF_8));
+                return;
+            }
+            BinaryCodec.StatsView stats = BinaryCodec.decodeStats(response.body());
+            totalFuel = stats.totalFuel();
+            totalCost = stats.totalCost();
+            avgConsumption = stats.avgConsumption();
+            entriesCount = stats.entriesCount();
         } else {
-            handleError(response);
+            HttpResponse<String> response = apiClient.get("/api/cars/" + carId + "/fuel/stats");
+            if (response.statusCode() != 200) {
+                handleError(response);
+                return;
+            }
+            JsonObject stats = gson.fromJson(response.body(), JsonObject.class);
+            totalFuel = stats.get("totalFuel").getAsDouble();
+            totalCost = stats.get("totalCost").getAsDouble();
+            avgConsumption = stats.get("avgConsumption").getAsDouble();
+            entriesCount = stats.get("entriesCount").getAsInt();
         }
+        
+        System.out.println();
+        System.out.println("═══════════════════════════════════════");
+        System.out.println("        Fuel Statistics                ");
+        System.out.println("═══════════════════════════════════════");
+        System.out.println();
+        System.out.printf("Total fuel:          %.1f L%n", totalFuel);
+        System.out.printf("Total cost:          %.2f%n", totalCost);
+        System.out.printf("Average consumption: %.1f L/100km%n", avgConsumption);
+        System.out.printf("Entries count:       %d%n", entriesCount);
+        System.out.println();
     }
     
     private void listCars() throws Exception {
-        HttpResponse<String> response = apiClient.get("/api/cars");
+        String cursor = null;
+        boolean first = true;
         
-        if (response.statusCode() == 200) {
-            JsonArray cars = gson.fromJson(response.body(), JsonArray.class);
+        do {
+            String endpoint = "/api/cars/summary?limit=" + LIST_PAGE_SIZE + (cursor != null ? "&cursor=" + cursor : "");
+            HttpResponse<String> response = apiClient.get(endpoint);
             
-            if (cars.size() == 0) {
-                System.out.println("No cars registered yet.");
-                System.out.println("Create one with: java -jar carfuel-cli-1.0.0.jar create-car --brand Toyota --model Corolla --year 2018");
+            if (response.statusCode() != 200) {
+                handleError(response);
                 return;
             }
             
-            System.out.println();
-            System.out.println("═══════════════════════════════════════════════════════════");
-            System.out.println("                    Registered Cars                        ");
-            System.out.println("═══════════════════════════════════════════════════════════");
-            System.out.println();
-            System.out.printf("%-5s %-15s %-15s %-6s %-8s%n", "ID", "Brand", "Model", "Year", "Entries");
-            System.out.println("───────────────────────────────────────────────────────────");
+            JsonArray cars = gson.fromJson(response.body(), JsonArray.class);
+            
+            if (first) {
+                if (cars.size() == 0) {
+                    System.out.println("No cars registered yet.");
+                    System.out.println("Create one with: java -jar carfuel-cli-1.0.0.jar create-car --brand Toyota --model Corolla --year 2018");
+                    return;
+                }
+                
+                System.out.println();
+                System.out.println("═══════════════════════════════════════════════════════════");
+                System.out.println("                    Registered Cars                        ");
+                System.out.println("═══════════════════════════════════════════════════════════");
+                System.out.println();
+                System.out.printf("%-5s %-15s %-15s %-6s %-8s%n", "ID", "Brand", "Model", "Year", "Entries");
+                System.out.println("───────────────────────────────────────────────────────────");
+                first = false;
+            }
             
             for (int i = 0; i < cars.size(); i++) {
                 JsonObject car = cars.get(i).getAsJsonObject();
@@ -152,13 +205,14 @@ public class CommandParser {
                     car.get("brand").getAsString(),
                     car.get("model").getAsString(),
                     car.get("year").getAsInt(),
-                    car.getAsJsonArray("fuelEntries").size()
+                    car.get("entriesCount").getAsInt()
                 );
             }
-            System.out.println();
-        } else {
-            handleError(response);
-        }
+            
+            cursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+        } while (cursor != null);
+        
+        System.out.println();
     }
     
     private Map<String, String> parseArguments(String[] args) {
@@ -183,13 +237,28 @@ public class CommandParser {
         return value;
     }
     
+    /**
+     * Whether the command asked for the binary wire format (--format binary)
+     */
+    private boolean isBinary(Map<String, String> params) {
+        String format = params.getOrDefault("format", "json");
+        if (!format.equals("json") && !format.equals("binary")) {
+            throw new IllegalArgumentException("--format must be json or binary");
+        }
+        return format.equals("binary");
+    }
+    
     private void handleError(HttpResponse<String> response) {
+        handleError(response.statusCode(), response.body());
+    }
+    
+    private void handleError(int statusCode, String body) {
         try {
-            JsonObject error = gson.fromJson(response.body(), JsonObject.class);
+            JsonObject error = gson.fromJson(body, JsonObject.class);
             String message = error.has("message") ? error.get("message").getAsString() : "Unknown error";
-            System.err.println("Error (" + response.statusCode() + "): " + message);
+            System.err.println("Error (" + statusCode + "): " + message);
         } catch (Exception e) {
-            System.err.println("Error (" + response.statusCode() + "): " + response.body());
+            System.err.println("Error (" + statusCode + "): " + body);
         }
     }
 }
@@ -13,6 +13,16 @@ import java.time.Duration;
  */
 public class ApiClient {
     
+    /**
+     * Media type of the server's compact binary representation
+     */
+    public static final String BINARY_MEDIA_TYPE = "application/x-carfuel-binary";
+    
+    /**
+     * Prefer binary, but keep JSON acceptable so error responses can still be read
+     */
+    private static final String BINARY_ACCEPT = BINARY_MEDIA_TYPE + ", application/json;q=0.5";
+    
     private final String baseUrl;
     private final HttpClient httpClient;
     
@@ -50,12 +60,43 @@ public class ApiClient {
         return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
     }
     
+    /**
+     * Send a POST request with a binary body, asking for a binary response.
+     * Error responses still come back as JSON bytes.
+     */
+    public HttpResponse<byte[]> postBinary(String endpoint, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + endpoint))
+                .header("Content-Type", BINARY_MEDIA_TYPE)
+                .header("Accept", BINARY_ACCEPT)
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+    
+    /**
+     * Send a GET request asking for a binary response.
+     * Error responses still come back as JSON bytes.
+     */
+    public HttpResponse<byte[]> getBinary(String endpoint) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + endpoint))
+                .header("Accept", BINARY_ACCEPT)
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+    
     /**
      * Check if the API is reachable.
      */
     public boolean isReachable() {
         try {
-            HttpResponse<String> response = get("/api/cars");
+            HttpResponse<String> response = get("/api/cars?limit=1");
             return response.statusCode() >= 200 && response.statusCode() < 500;
         } catch (Exception e) {
             return false;
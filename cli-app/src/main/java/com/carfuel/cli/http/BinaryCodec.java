@@ -0,0 +1,129 @@
+package com.carfuel.cli.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Encoder and decoder for the server's binary representation
+ * ({@value ApiClient#BINARY_MEDIA_TYPE}).
+ *
+ * Every message starts with the format version byte; fields follow in a fixed
+ * order, big-endian; timestamps are nanoseconds since the epoch (UTC), or
+ * Long.MIN_VALUE for none. See the API reference for the layout.
+ */
+public final class BinaryCodec {
+
+    /**
+     * Version of the layout this codec reads and writes
+     */
+    public static final int VERSION = 1;
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * A car header and the number of its fuel entries
+     */
+    public record CarView(long id, String brand, String model, int year, int entriesCount) {
+    }
+
+    /**
+     * Lifetime fuel statistics of a car
+     */
+    public record StatsView(double totalFuel, double totalCost, double avgConsumption, int entriesCount) {
+    }
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Encode a fuel entry request.
+     *
+     * @param timestamp ISO local date-time of the refill, or null for now
+     * @throws IllegalArgumentException if the timestamp is not a date-time the format can carry
+     */
+    public static byte[] encodeFuelRequest(double liters, double price, int odometer, String timestamp) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(29);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeDouble(liters);
+            out.writeDouble(price);
+            out.writeInt(odometer);
+            out.writeLong(timestamp != null ? toEpochNanos(timestamp) : NO_TIMESTAMP);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Cannot happen in memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a car, skipping over its fuel entries.
+     */
+    public static CarView decodeCar(byte[] body) throws IOException {
+        DataInputStream in = open(body);
+        long id = in.readLong();
+        String brand = in.readUTF();
+        String model = in.readUTF();
+        int year = in.readInt();
+        in.readLong(); // createdAt
+        int entriesCount = in.readInt();
+        return new CarView(id, brand, model, year, entriesCount);
+    }
+
+    /**
+     * Decode fuel statistics.
+     */
+    public static StatsView decodeStats(byte[] body) throws IOException {
+        DataInputStream in = open(body);
+        return new StatsView(in.readDouble(), in.readDouble(), in.readDouble(), in.readInt());
+    }
+
+    /**
+     * Start reading a message, checking its version.
+     */
+    private static DataInputStream open(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException(String.format(
+                    "Unsupported binary format version %d, expected %d; use --format json", version, VERSION));
+        }
+        return in;
+    }
+
+    /**
+     * Convert a --timestamp option, rejecting values the 64-bit nanosecond field would wrap.
+     */
+    private static long toEpochNanos(String timestamp) {
+        LocalDateTime parsed;
+        try {
+            parsed = LocalDateTime.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(
+                    "--timestamp must be an ISO date-time such as 2025-01-15T08:30:00, was " + timestamp);
+        }
+        long seconds = parsed.toEpochSecond(ZoneOffset.UTC);
+        long nanos = parsed.getNano();
+        if (seconds < 0 && nanos > 0) {
+            // Borrow a second, so the multiplication does not overflow at the lower edge of the range
+            seconds++;
+            nanos -= NANOS_PER_SECOND;
+        }
+        try {
+            long epochNanos = Math.addExact(Math.multiplyExact(seconds, NANOS_PER_SECOND), nanos);
+            if (epochNanos != NO_TIMESTAMP) {
+                return epochNanos;
+            }
+        } catch (ArithmeticException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(
+                "--timestamp must be between 1677-09-21 and 2262-04-11 for --format binary, was " + timestamp);
+    }
+}
@@ -57,7 +57,7 @@ public class ServerManager {
         try {
             java.net.http.HttpClient client = java.net.http.HttpClient.newHttpClient();
             java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder()
-                    .uri(java.net.URI.create(apiBaseUrl + "/api/cars"))
+                    .uri(java.net.URI.create(apiBaseUrl + "/api/cars?limit=1"))
                     .timeout(java.time.Duration.ofSeconds(2))
                     .GET()
                     .build();
@@ -1,12 +1,15 @@
 package com.aem.carfuel.config;
 
 import com.aem.carfuel.service.CarService;
+import com.aem.carfuel.service.ResponseCache;
 import com.aem.carfuel.servlet.FuelStatsServlet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
 
 /**
  * Configuration class for registering manual servlets.
@@ -20,6 +23,20 @@ import org.springframework.context.annotation.Configuration;
 public class ServletConfig {
     
     private final CarService carService;
+    private final ResponseCache responseCache;
+    private final JsonMapper jsonMapper;
+    
+    /**
+     * Threads computing multi-car stats reports; 0 means one per CPU
+     */
+    @Value("${carfuel.servlet.report-threads:0}")
+    private int reportThreads;
+    
+    /**
+     * Whether the web tier runs on virtual threads; reports then use them too
+     */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
     
     /**
      * Register the FuelStatsServlet and map it to /servlet/fuel-stats.
@@ -38,6 +55,12 @@ public class ServletConfig {
         
         // Manually inject the CarService (Spring-managed bean)
         servlet.setCarService(carService);
+        servlet.setResponseCache(responseCache);
+        servlet.setJsonMapper(jsonMapper);
+        if (reportThreads > 0) {
+            servlet.setWorkerThreads(reportThreads);
+        }
+        servlet.setVirtualThreads(virtualThreads);
         
         // Register the servlet with URL mapping
         ServletRegistrationBean<FuelStatsServlet> registrationBean = 
@@ -46,6 +69,9 @@ public class ServletConfig {
         // Optional: Set load-on-startup order
         registrationBean.setLoadOnStartup(1);
         
+        // Multi-car reports are streamed asynchronously
+        registrationBean.setAsyncSupported(true);
+        
         log.info("FuelStatsServlet registered successfully");
         
         return registrationBean;
@@ -0,0 +1,24 @@
+package com.aem.carfuel.config;
+
+import com.aem.carfuel.wire.BinaryWireMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Spring MVC configuration for the REST API.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Add the binary wire format after the default converters, so clients that
+     * accept any type keep getting JSON and only an explicit Accept selects it.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BinaryWireMessageConverter());
+    }
+}
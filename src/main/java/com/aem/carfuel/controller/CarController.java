@@ -1,22 +1,55 @@
 package com.aem.carfuel.controller;
 
+import com.aem.carfuel.dto.AddFuelBatchRequest;
 import com.aem.carfuel.dto.AddFuelRequest;
 import com.aem.carfuel.dto.CreateCarRequest;
+import com.aem.carfuel.exception.InvalidRequestException;
 import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.CarPage;
+import com.aem.carfuel.model.CarSummary;
+import com.aem.carfuel.model.FleetStats;
+import com.aem.carfuel.model.FuelBatchResult;
+import com.aem.carfuel.model.FuelDistribution;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.IdWatermark;
+import com.aem.carfuel.model.ImportResult;
 import com.aem.carfuel.model.FuelStats;
+import com.aem.carfuel.model.LeaderboardEntry;
 import com.aem.carfuel.service.CarService;
+import com.aem.carfuel.service.ChangeStreamService;
+import com.aem.carfuel.service.FleetExportService;
+import com.aem.carfuel.service.FleetImportService;
+import com.aem.carfuel.service.FleetStatsService;
+import com.aem.carfuel.service.FuelDistributionService;
+import com.aem.carfuel.service.LeaderboardService;
+import com.aem.carfuel.service.ResponseCache;
+import com.aem.carfuel.wire.BinaryWireFormat;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * REST API controller for car and fuel management.
  * Provides endpoints for CRUD operations on cars and fuel entries.
+ * 
+ * Cars, fuel entries and fuel statistics are JSON by default; clients whose
+ * Accept header prefers {@value BinaryWireFormat#MEDIA_TYPE_VALUE} get the
+ * compact {@link BinaryWireFormat} instead, and fuel entries may be posted in it.
  */
 @RestController
 @RequestMapping("/api/cars")
@@ -24,7 +57,36 @@ import java.util.List;
 @Slf4j
 public class CarController {
     
+    /**
+     * Response header carrying the cursor of the next page of cars
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    /**
+     * Response header carrying the last car ID an export covers
+     */
+    public static final String EXPORT_CAR_ID_HEADER = "X-Export-Car-Id";
+    
+    /**
+     * Response header carrying the last fuel entry ID an export covers
+     */
+    public static final String EXPORT_ENTRY_ID_HEADER = "X-Export-Entry-Id";
+    
+    /**
+     * Page size of GET /api/cars when a cursor is given without a limit
+     */
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    
     private final CarService carService;
+    private final FleetImportService fleetImportService;
+    private final FleetExportService fleetExportService;
+    private final FleetStatsService fleetStatsService;
+    private final LeaderboardService leaderboardService;
+    private final FuelDistributionService fuelDistributionService;
+    private final ResponseCache responseCache;
+    private final ChangeStreamService changeStreamService;
 
     
     /**
@@ -57,36 +119,260 @@ public class CarController {
     }
     
     /**
-     * Get all cars in the system.
+     * Get cars in the system, all at once or one page at a time.
+     * 
+     * GET /api/cars?limit=100&cursor={nextCursor}&brand=Toyota&year=2018
      * 
-     * GET /api/cars
+     * The body is a JSON array of cars in ascending ID order. Without limit and
+     * cursor, every matching car is returned, as before paging existed. With
+     * either, a page is returned, and when more cars follow, the X-Next-Cursor
+     * header holds the cursor for the next page.
      *
-     * @return list of all cars with status 200
+     * @param limit maximum number of cars to return (optional, default 100 once paging)
+     * @param cursor return cars after this cursor (optional)
+     * @param brand only cars of this brand, case-insensitive (optional)
+     * @param year only cars of this year (optional)
+     * @return cars with status 200
      */
     @GetMapping
-    public ResponseEntity<List<Car>> getAllCars() {
-        log.info("REST API: Fetching all cars");
+    public ResponseEntity<List<Car>> getAllCars(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Integer year) {
+        if (limit == null && cursor == null) {
+            log.info("REST API: Fetching all cars");
+            return ResponseEntity.ok(carService.getCars(brand, year));
+        }
+        log.info("REST API: Fetching cars after {} (limit {})", cursor, limit);
+        
+        CarPage<Car> page = carService.getCarPage(cursor, limit != null ? limit : DEFAULT_PAGE_SIZE, brand, year);
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+        return response.body(page.getCars());
+    }
+    
+    /**
+     * Get car summaries (no fuel history), one page at a time.
+     * 
+     * GET /api/cars/summary?limit=100&cursor={nextCursor}&brand=Toyota&year=2018
+     * 
+     * Takes the same parameters and X-Next-Cursor paging as GET /api/cars,
+     * but each item only carries id, brand, model, year, entriesCount,
+     * lastOdometer and createdAt.
+     *
+     * @return page of car summaries with status 200
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<List<CarSummary>> getCarSummaries(
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Integer year) {
+        log.info("REST API: Fetching car summaries after {} (limit {})", cursor, limit);
+        
+        CarPage<CarSummary> page = carService.getCarSummaryPage(cursor, limit, brand, year);
         
-        List<Car> cars = carService.getAllCars();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+        return response.body(page.getCars());
+    }
+    
+    /**
+     * Export all cars and fuel entries, streamed as they are read.
+     * 
+     * GET /api/cars/export?format=ndjson&afterCarId=120&afterEntryId=5400
+     * 
+     * NDJSON has one line per car followed by its fuel entries, in the import
+     * format; CSV has one row per fuel entry. The X-Export-Car-Id and
+     * X-Export-Entry-Id headers hold the last IDs the export covers; passing them
+     * back as afterCarId and afterEntryId exports only what was recorded since,
+     * back-dated entries included, along with the cars those entries belong to.
+     *
+     * @param format ndjson (default) or csv
+     * @param afterCarId only export cars created after this one (optional)
+     * @param afterEntryId only export fuel entries recorded after this one (optional)
+     * @return the export with status 200, written with chunked transfer
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFleet(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long afterCarId,
+            @RequestParam(required = false) Long afterEntryId) {
+        log.info("REST API: Exporting fleet data as {} after car {} and entry {}", format, afterCarId, afterEntryId);
         
-        return ResponseEntity.ok(cars);
+        IdWatermark after = afterCarId == null && afterEntryId == null
+                ? null
+                : new IdWatermark(
+                        afterCarId != null ? afterCarId : 0, afterEntryId != null ? afterEntryId : 0);
+        if ("csv".equalsIgnoreCase(format)) {
+            IdWatermark upTo = fleetExportService.watermark();
+            return exportHeaders(upTo)
+                    .contentType(TEXT_CSV)
+                    .body(out -> fleetExportService.writeCsv(out, after, upTo));
+        }
+        if ("ndjson".equalsIgnoreCase(format)) {
+            IdWatermark upTo = fleetExportService.watermark();
+            return exportHeaders(upTo)
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> fleetExportService.writeNdjson(out, after, upTo));
+        }
+        throw new InvalidRequestException("format must be ndjson or csv");
+    }
+    
+    /**
+     * Start an export response carrying the position to continue from.
+     */
+    private static ResponseEntity.BodyBuilder exportHeaders(IdWatermark upTo) {
+        return ResponseEntity.ok()
+                .header(EXPORT_CAR_ID_HEADER, Long.toString(upTo.carId()))
+                .header(EXPORT_ENTRY_ID_HEADER, Long.toString(upTo.fuelEntryId()));
+    }
+    
+    /**
+     * Get fuel statistics aggregated over the whole fleet.
+     * 
+     * GET /api/cars/stats?groupBy=brand,year
+     * 
+     * Without groupBy the result is a single fleet-wide entry; otherwise there is
+     * one entry per combination of the grouped attributes (brand, model, year).
+     *
+     * @param groupBy comma-separated attributes to group by (optional)
+     * @return the aggregated statistics with status 200
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<FleetStats>> getFleetStats(@RequestParam(required = false) String groupBy) {
+        log.info("REST API: Fetching fleet statistics grouped by {}", groupBy);
+        
+        List<FleetStats> stats = fleetStatsService.calculateFleetStats(FleetStatsService.parseGroupBy(groupBy));
+        
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * Get percentile statistics over all fuel entries of the fleet.
+     * 
+     * GET /api/cars/distribution
+     *
+     * @return p50/p90/p99 of liters per fill, price per liter and interval consumption, with status 200
+     */
+    @GetMapping("/distribution")
+    public ResponseEntity<FuelDistribution> getFleetDistribution() {
+        log.info("REST API: Fetching fleet fuel distribution");
+        
+        FuelDistribution distribution = fuelDistributionService.calculateFleetDistribution();
+        
+        return ResponseEntity.ok(distribution);
+    }
+    
+    /**
+     * Get the cars ranking highest on a metric.
+     * 
+     * GET /api/cars/leaderboard/consumption?limit=50
+     * GET /api/cars/leaderboard/cost
+     *
+     * @param metric consumption (L/100km) or cost (total spent)
+     * @param limit number of cars (optional, defaults to the configured size)
+     * @return the ranked cars, highest first, with status 200
+     */
+    @GetMapping("/leaderboard/{metric}")
+    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(
+            @PathVariable String metric,
+            @RequestParam(required = false) Integer limit) {
+        log.info("REST API: Fetching {} leaderboard", metric);
+        
+        List<LeaderboardEntry> entries = leaderboardService.top(LeaderboardService.parseMetric(metric), limit);
+        
+        return ResponseEntity.ok(entries);
+    }
+    
+    /**
+     * Stream car creations and fuel entries as Server-Sent Events.
+     * 
+     * GET /api/cars/events
+     * Accept: text/event-stream
+     * 
+     * Each change is one event named car-created or fuel-added, whose ID is its
+     * position in the stream and whose data is the change with the car's updated
+     * statistics. A client that falls too far behind gets an overflow event and is
+     * disconnected; browsers reconnect on their own, sending Last-Event-ID to
+     * resume where they stopped.
+     *
+     * @param lastEventId ID of the last event received, to resume after a reconnect (optional)
+     * @return the open event stream
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        log.info("REST API: Opening change stream after event {}", lastEventId);
+        
+        return changeStreamService.subscribe(lastEventId);
     }
     
     /**
      * Get a specific car by ID.
      * 
      * GET /api/cars/{id}
+     * 
+     * The response carries the car's version as a strong ETag; a request whose
+     * If-None-Match holds the current ETag gets 304 Not Modified without a body.
      *
      * @param id the car ID
-     * @return the car with status 200, or 404 if not found
+     * @param webRequest the request, for the If-None-Match check and content negotiation
+     * @return the car with status 200, 304 if unchanged, or 404 if not found
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Car> getCarById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getCarById(@PathVariable Long id, WebRequest webRequest) {
         log.info("REST API: Fetching car with ID: {}", id);
         
         Car car = carService.getCarById(id);
+        boolean binary = BinaryWireFormat.isPreferred(webRequest.getHeader(HttpHeaders.ACCEPT));
         
-        return ResponseEntity.ok(car);
+        // Read the tag before serializing, so a concurrent change can only make it older than the body
+        String etag = binary ? binaryETag(car) : car.getETag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        if (binary) {
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .contentType(BinaryWireFormat.MEDIA_TYPE)
+                    .body(BinaryWireFormat.encode(car));
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(responseCache.get(car, ResponseCache.View.CAR, () -> car));
+    }
+    
+    /**
+     * Get a car's fuel entries within a time range.
+     * 
+     * GET /api/cars/{id}/fuel?from=2025-12-01T00:00:00&to=2025-12-31T23:59:59&limit=100
+     *
+     * @param id the car ID
+     * @param from earliest timestamp to include (optional)
+     * @param to latest timestamp to include (optional)
+     * @param limit maximum number of entries to return (default 100)
+     * @return the matching entries, oldest first, with status 200, or 404 if car not found
+     */
+    @GetMapping("/{id}/fuel")
+    public ResponseEntity<List<FuelEntry>> getFuelEntries(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("REST API: Fetching fuel entries of car {} from {} to {}", id, from, to);
+        
+        List<FuelEntry> entries = carService.getFuelEntries(id, from, to, limit);
+        
+        return ResponseEntity.ok(entries);
     }
     
     /**
@@ -98,8 +384,12 @@ public class CarController {
      * {
      *   "liters": 40.0,
      *   "price": 52.5,
-     *   "odometer": 45000
+     *   "odometer": 45000,
+     *   "timestamp": "2025-12-30T11:00:00"   (optional, defaults to now)
      * }
+     * 
+     * The entry may also be sent as Content-Type {@value BinaryWireFormat#MEDIA_TYPE_VALUE};
+     * the updated car is returned in it when the Accept header prefers it.
      *
      * @param id the car ID
      * @param request the fuel entry request
@@ -117,26 +407,146 @@ public class CarController {
             id,
             request.getLiters(),
             request.getPrice(),
-            request.getOdometer()
+            request.getOdometer(),
+            request.getTimestamp()
         );
         
         return ResponseEntity.ok(car);
     }
     
     /**
-     * Get fuel statistics for a car.
+     * Add many fuel entries, across any number of cars, in one call.
+     * 
+     * POST /api/cars/fuel/batch
+     * 
+     * Request Body:
+     * {
+     *   "entries": [
+     *     { "carId": 1, "liters": 40.0, "price": 52.5, "odometer": 45000 },
+     *     { "carId": 2, "liters": 35.0, "price": 46.0, "odometer": 12000,
+     *       "timestamp": "2025-12-30T11:00:00" }
+     *   ]
+     * }
+     * 
+     * Each item is accepted or rejected on its own; the response lists one
+     * result per item instead of echoing the updated cars.
+     *
+     * @param request the batch of fuel entries
+     * @return the per-item results with status 200
+     */
+    @PostMapping("/fuel/batch")
+    public ResponseEntity<FuelBatchResult> addFuelEntries(@Valid @RequestBody AddFuelBatchRequest request) {
+        log.info("REST API: Adding fuel batch of {} entries", request.getEntries().size());
+        
+        FuelBatchResult result = carService.addFuelEntries(request.getEntries());
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Bulk import historical cars and fuel entries from newline-delimited JSON.
+     * 
+     * POST /api/cars/import
+     * Content-Type: application/x-ndjson
+     * 
+     * {"type":"car","ref":"c1","brand":"Toyota","model":"Corolla","year":2018}
+     * {"type":"fuel","car":"c1","liters":40.0,"price":52.5,"odometer":45000,"timestamp":"2025-12-30T11:00:00"}
+     * 
+     * The body is streamed, so uploads of any size are accepted.
+     *
+     * @param body the NDJSON request body
+     * @return the import report with status 200
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportResult> importFleet(InputStream body) throws IOException {
+        log.info("REST API: Importing fleet data");
+        
+        ImportResult result = fleetImportService.importNdjson(body);
+        
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Get fuel statistics for a car, over its lifetime or a window.
      * 
      * GET /api/cars/{id}/fuel/stats
+     * GET /api/cars/{id}/fuel/stats?from=2025-12-01T00:00:00&to=2025-12-31T23:59:59
+     * GET /api/cars/{id}/fuel/stats?lastDays=30
+     * GET /api/cars/{id}/fuel/stats?lastFills=10
+     * 
+     * Except for lastDays windows, the response carries the car's version as a
+     * strong ETag and If-None-Match is answered with 304 Not Modified.
      *
      * @param id the car ID
-     * @return fuel statistics with status 200, or 404 if car not found
+     * @param from earliest timestamp to include (optional)
+     * @param to latest timestamp to include (optional)
+     * @param lastDays only entries from the last N days (optional)
+     * @param lastFills only the last N entries (optional)
+     * @param webRequest the request, for the If-None-Match check and content negotiation
+     * @return fuel statistics with status 200, 304 if unchanged, 400 if windows are combined,
+     *         or 404 if car not found
      */
     @GetMapping("/{id}/fuel/stats")
-    public ResponseEntity<FuelStats> getFuelStats(@PathVariable Long id) {
+    public ResponseEntity<?> getFuelStats(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer lastDays,
+            @RequestParam(required = false) Integer lastFills,
+            WebRequest webRequest) {
         log.info("REST API: Fetching fuel statistics for car {}", id);
         
-        FuelStats stats = carService.calculateStats(id);
+        Car car = carService.getCarById(id);
+        boolean binary = BinaryWireFormat.isPreferred(webRequest.getHeader(HttpHeaders.ACCEPT));
+        
+        // A lastDays window moves with the clock, so only the other views are tagged
+        String etag = lastDays != null ? null : binary ? binaryETag(car) : car.getETag();
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
         
-        return ResponseEntity.ok(stats);
+        // Lifetime statistics are served from the response cache
+        if (!binary && from == null && to == null && lastDays == null && lastFills == null) {
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(responseCache.get(car, ResponseCache.View.STATS, () -> carService.calculateStats(id)));
+        }
+        
+        FuelStats stats = carService.calculateStats(id, from, to, lastDays, lastFills);
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        // The binary converter writes the stats when the client prefers it
+        return response.body(stats);
+    }
+    
+    /**
+     * Strong ETag of a car's binary representation, distinct from the JSON one
+     */
+    private static String binaryETag(Car car) {
+        return "\"" + car.getId() + "-" + car.getVersion() + "-bin\"";
+    }
+    
+    /**
+     * Get percentile statistics of a car's fuel entries.
+     * 
+     * GET /api/cars/{id}/fuel/distribution
+     *
+     * @param id the car ID
+     * @return p50/p90/p99 of liters per fill, price per liter and interval consumption,
+     *         with status 200, or 404 if car not found
+     */
+    @GetMapping("/{id}/fuel/distribution")
+    public ResponseEntity<FuelDistribution> getFuelDistribution(@PathVariable Long id) {
+        log.info("REST API: Fetching fuel distribution for car {}", id);
+        
+        FuelDistribution distribution = fuelDistributionService.calculateDistribution(id);
+        
+        return ResponseEntity.ok(distribution);
     }
 }
@@ -0,0 +1,49 @@
+package com.aem.carfuel.controller;
+
+import com.aem.carfuel.model.ChangeFeed;
+import com.aem.carfuel.service.CarService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST API controller for incremental synchronization.
+ * Lets mirrors of the fleet fetch only what changed since their last sync.
+ */
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+@Slf4j
+public class ChangeController {
+
+    private final CarService carService;
+
+    /**
+     * Get the car creations and fuel entries made after a sequence number.
+     *
+     * GET /api/changes?since=0&limit=100
+     *
+     * Pass the returned lastSequence as since in the next request. When
+     * resyncRequired is true, changes after since are no longer retained:
+     * reload all data (e.g. GET /api/cars/export), then continue from
+     * lastSequence, applying changes idempotently by car and entry ID.
+     *
+     * @param since return changes after this sequence (default 0)
+     * @param limit maximum number of changes to return (default 100)
+     * @return the changes in sequence order with status 200, or 400 if a parameter is out of range
+     */
+    @GetMapping
+    public ResponseEntity<ChangeFeed> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.info("REST API: Fetching changes after sequence {} (limit {})", since, limit);
+
+        ChangeFeed feed = carService.getChanges(since, limit);
+
+        return ResponseEntity.ok(feed);
+    }
+}
@@ -0,0 +1,32 @@
+package com.aem.carfuel.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for adding many fuel entries, across any number of cars, in one call.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddFuelBatchRequest {
+    
+    /**
+     * Largest number of entries accepted in one batch
+     */
+    public static final int MAX_ENTRIES = 10_000;
+    
+    /**
+     * Fuel entries to add (required, 1 to 10000 items)
+     */
+    @NotEmpty(message = "Entries are required")
+    @Size(max = MAX_ENTRIES, message = "A batch can contain at most 10000 entries")
+    private List<FuelBatchItem> entries;
+}
@@ -2,12 +2,15 @@ package com.aem.carfuel.dto;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 /**
  * Request DTO for adding a fuel entry to a car.
  */
@@ -37,4 +40,12 @@ public class AddFuelRequest {
     @NotNull(message = "Odometer is required")
     @Min(value = 0, message = "Odometer must be at least 0")
     private Integer odometer;
+    
+    /**
+     * When the refill happened (optional, defaults to now).
+     * Set it to import back-dated receipts; it cannot be in the future or before 1900.
+     */
+    @PastOrPresent(message = "Timestamp cannot be in the future")
+    @SupportedTimestamp
+    private LocalDateTime timestamp;
 }
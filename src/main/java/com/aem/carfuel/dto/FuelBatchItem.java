@@ -0,0 +1,58 @@
+package com.aem.carfuel.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One fuel entry inside a batch ingestion request.
+ * Carries the same fields and rules as {@link AddFuelRequest} plus the target car.
+ * Items are validated one by one so a bad item only rejects itself.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FuelBatchItem {
+    
+    /**
+     * ID of the car the entry belongs to (required)
+     */
+    @NotNull(message = "Car ID is required")
+    private Long carId;
+    
+    /**
+     * Amount of fuel in liters (required, must be positive)
+     */
+    @NotNull(message = "Liters is required")
+    @Positive(message = "Liters must be positive")
+    private Double liters;
+    
+    /**
+     * Total cost of the fuel purchase (required, must be positive)
+     */
+    @NotNull(message = "Price is required")
+    @Positive(message = "Price must be positive")
+    private Double price;
+    
+    /**
+     * Odometer reading in kilometers (required, must be at least 0)
+     */
+    @NotNull(message = "Odometer is required")
+    @Min(value = 0, message = "Odometer must be at least 0")
+    private Integer odometer;
+    
+    /**
+     * When the refill happened (optional, defaults to now, not before 1900)
+     */
+    @PastOrPresent(message = "Timestamp cannot be in the future")
+    @SupportedTimestamp
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,42 @@
+package com.aem.carfuel.dto;
+
+import com.aem.carfuel.model.FuelHistory;
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.time.LocalDateTime;
+
+/**
+ * The annotated timestamp must not be before {@link FuelHistory#EARLIEST_TIMESTAMP}.
+ * Null is valid. Combine with {@code @PastOrPresent} for the upper bound.
+ */
+@Documented
+@Constraint(validatedBy = SupportedTimestamp.Validator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SupportedTimestamp {
+
+    String message() default "Timestamp cannot be before 1900-01-01T00:00";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+    /**
+     * Checks a timestamp against the earliest supported one.
+     */
+    class Validator implements ConstraintValidator<SupportedTimestamp, LocalDateTime> {
+
+        @Override
+        public boolean isValid(LocalDateTime value, ConstraintValidatorContext context) {
+            return value == null || !value.isBefore(FuelHistory.EARLIEST_TIMESTAMP);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.aem.carfuel.exception;
+
+/**
+ * Exception thrown when the storage layer fails to persist or recover data.
+ */
+public class StorageException extends RuntimeException {
+
+    /**
+     * Constructs a new StorageException with a message.
+     *
+     * @param message the error message
+     */
+    public StorageException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new StorageException with a message and cause.
+     *
+     * @param message the error message
+     * @param cause the cause of the exception
+     */
+    public StorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,12 +1,13 @@
 package com.aem.carfuel.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -17,6 +18,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonPropertyOrder({"id", "brand", "model", "year", "fuelEntries", "createdAt"})
 public class Car {
     /**
      * Unique identifier for this car
@@ -39,23 +41,59 @@ public class Car {
     private Integer year;
     
     /**
-     * List of all fuel entries for this car
+     * Timestamp when the car was added to the system
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * Columnar fuel history with running aggregates.
+     * Not serialized directly; exposed as {@link #getFuelEntries()}.
      */
+    @JsonIgnore
     @Builder.Default
-    private List<FuelEntry> fuelEntries = new ArrayList<>();
+    private FuelHistory fuelHistory = new FuelHistory();
     
     /**
-     * Timestamp when the car was added to the system
+     * List of all fuel entries for this car.
+     * Built from the columnar history on demand, at the JSON boundary.
      */
-    private LocalDateTime createdAt;
+    public List<FuelEntry> getFuelEntries() {
+        return fuelHistory.toEntries();
+    }
     
     /**
-     * Helper method to add a fuel entry to this car
+     * Helper method to add a fuel entry to this car.
+     * The history keeps its running aggregates in step, so statistics
+     * never have to rescan the entries. Safe to call concurrently.
      */
     public void addFuelEntry(FuelEntry entry) {
-        if (this.fuelEntries == null) {
-            this.fuelEntries = new ArrayList<>();
-        }
-        this.fuelEntries.add(entry);
+        fuelHistory.append(entry);
+    }
+    
+    /**
+     * Version of this car's data, starting at 1.
+     * The only mutation of a stored car is appending fuel entries, so the version
+     * is derived from the append-only history: it goes up with every entry and is
+     * the same after a restart.
+     */
+    @JsonIgnore
+    public long getVersion() {
+        return fuelHistory.size() + 1L;
+    }
+    
+    /**
+     * Strong entity tag of the current version, for conditional GETs
+     */
+    @JsonIgnore
+    public String getETag() {
+        return "\"" + id + "-" + getVersion() + "\"";
+    }
+    
+    /**
+     * Number of fuel entries recorded for this car
+     */
+    @JsonIgnore
+    public int getEntriesCount() {
+        return fuelHistory.size();
     }
 }
@@ -0,0 +1,29 @@
+package com.aem.carfuel.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of cars returned by cursor-based listing.
+ *
+ * @param <T> the car representation on the page (full car or summary)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarPage<T> {
+    /**
+     * Cars on this page in ascending ID order
+     */
+    private List<T> cars;
+    
+    /**
+     * Cursor for the next page, or null if this is the last page
+     */
+    private Long nextCursor;
+}
@@ -0,0 +1,69 @@
+package com.aem.carfuel.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of a car without its fuel history.
+ * Built from the history's running summary, so it never touches the entries.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarSummary {
+    /**
+     * Unique identifier of the car
+     */
+    private Long id;
+    
+    /**
+     * Car manufacturer brand
+     */
+    private String brand;
+    
+    /**
+     * Car model name
+     */
+    private String model;
+    
+    /**
+     * Manufacturing year
+     */
+    private Integer year;
+    
+    /**
+     * Number of fuel entries recorded for the car
+     */
+    private Integer entriesCount;
+    
+    /**
+     * Odometer reading of the most recent fuel entry, or null if there are none
+     */
+    private Integer lastOdometer;
+    
+    /**
+     * Timestamp when the car was added to the system
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * Build the summary of a car.
+     */
+    public static CarSummary of(Car car) {
+        FuelHistory.Summary history = car.getFuelHistory().summary();
+        return CarSummary.builder()
+                .id(car.getId())
+                .brand(car.getBrand())
+                .model(car.getModel())
+                .year(car.getYear())
+                .entriesCount(history.size())
+                .lastOdometer(history.isEmpty() ? null : history.lastOdometer())
+                .createdAt(car.getCreatedAt())
+                .build();
+    }
+}
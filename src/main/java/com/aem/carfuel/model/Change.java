@@ -0,0 +1,60 @@
+package com.aem.carfuel.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A mutation of the storage, numbered in the order it was applied.
+ * A car creation carries the car's attributes, a fuel entry carries the entry.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Change {
+    /**
+     * Global sequence number; every later change has a higher one
+     */
+    private Long sequence;
+
+    /**
+     * Kind of change
+     */
+    private ChangeEvent.Type type;
+
+    /**
+     * ID of the changed car
+     */
+    private Long carId;
+
+    /**
+     * Car manufacturer brand, for a car creation
+     */
+    private String brand;
+
+    /**
+     * Car model name, for a car creation
+     */
+    private String model;
+
+    /**
+     * Manufacturing year, for a car creation
+     */
+    private Integer year;
+
+    /**
+     * When the car was created, for a car creation
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * The added fuel entry, for a fuel entry
+     */
+    private FuelEntry entry;
+}
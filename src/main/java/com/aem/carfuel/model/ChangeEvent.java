@@ -0,0 +1,68 @@
+package com.aem.carfuel.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A change to the fleet: a car was created or a fuel entry was added.
+ * Carries the car's aggregates right after the change, so clients need no follow-up request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeEvent {
+
+    /**
+     * Kinds of change
+     */
+    public enum Type {
+        /**
+         * A car was created
+         */
+        CAR_CREATED,
+        /**
+         * A fuel entry was added to a car
+         */
+        FUEL_ADDED
+    }
+
+    /**
+     * Kind of change
+     */
+    private Type type;
+
+    /**
+     * ID of the changed car
+     */
+    private Long carId;
+
+    /**
+     * Car manufacturer brand
+     */
+    private String brand;
+
+    /**
+     * Car model name
+     */
+    private String model;
+
+    /**
+     * Manufacturing year
+     */
+    private Integer year;
+
+    /**
+     * The added fuel entry, or null for a car creation
+     */
+    private FuelEntry entry;
+
+    /**
+     * The car's lifetime statistics after the change
+     */
+    private FuelStats stats;
+}
@@ -0,0 +1,37 @@
+package com.aem.carfuel.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The changes after a sequence number, as returned by GET /api/changes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeed {
+    /**
+     * Changes in sequence order; empty when a resync is required
+     */
+    private List<Change> changes;
+
+    /**
+     * Sequence to pass as since in the next request
+     */
+    private Long lastSequence;
+
+    /**
+     * Sequence of the newest change on the server
+     */
+    private Long latestSequence;
+
+    /**
+     * True if changes after since are no longer retained: reload all data, then continue from lastSequence
+     */
+    private Boolean resyncRequired;
+}
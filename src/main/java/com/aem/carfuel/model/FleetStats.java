@@ -0,0 +1,61 @@
+package com.aem.carfuel.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aggregated fuel statistics of a group of cars.
+ * Only the fields the fleet is grouped by are set; without grouping the
+ * single result covers the whole fleet.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FleetStats {
+    /**
+     * Brand of the group (when grouped by brand)
+     */
+    private String brand;
+    
+    /**
+     * Model of the group (when grouped by model)
+     */
+    private String model;
+    
+    /**
+     * Year of the group (when grouped by year)
+     */
+    private Integer year;
+    
+    /**
+     * Number of cars in the group
+     */
+    private Long carsCount;
+    
+    /**
+     * Total fuel consumed in liters
+     */
+    private Double totalFuel;
+    
+    /**
+     * Total money spent on fuel
+     */
+    private Double totalCost;
+    
+    /**
+     * Distance-weighted average consumption in liters per 100 kilometers.
+     * Calculated as: (fuel of cars with a usable distance / their total distance) * 100
+     * Returns 0.0 if no car in the group has a usable distance
+     */
+    private Double avgConsumption;
+    
+    /**
+     * Total number of fuel entries recorded
+     */
+    private Long entriesCount;
+}
@@ -0,0 +1,37 @@
+package com.aem.carfuel.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single item of a fuel batch.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FuelBatchItemResult {
+    /**
+     * Position of the item in the request
+     */
+    private Integer index;
+    
+    /**
+     * Whether the entry was stored
+     */
+    private Boolean accepted;
+    
+    /**
+     * ID assigned to the stored entry (accepted items only)
+     */
+    private Long entryId;
+    
+    /**
+     * Why the item was rejected (rejected items only)
+     */
+    private String message;
+}
@@ -0,0 +1,32 @@
+package com.aem.carfuel.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Compact response of a fuel batch: counts plus one result per item, in request order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FuelBatchResult {
+    /**
+     * Number of entries stored
+     */
+    private Integer accepted;
+    
+    /**
+     * Number of entries rejected
+     */
+    private Integer rejected;
+    
+    /**
+     * Per-item outcomes, in request order
+     */
+    private List<FuelBatchItemResult> results;
+}
@@ -0,0 +1,37 @@
+package com.aem.carfuel.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Distribution statistics of fuel entries, for a single car or the whole fleet.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FuelDistribution {
+    /**
+     * Number of cars covered (fleet distribution only)
+     */
+    private Long carsCount;
+    
+    /**
+     * Liters per fill
+     */
+    private Percentiles litersPerFill;
+    
+    /**
+     * Price per liter
+     */
+    private Percentiles pricePerLiter;
+    
+    /**
+     * Consumption in L/100km between consecutive fills (in time order)
+     */
+    private Percentiles consumption;
+}
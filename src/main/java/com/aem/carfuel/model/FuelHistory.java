@@ -0,0 +1,662 @@
+package com.aem.carfuel.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Columnar, primitive-backed fuel history of a single car.
+ *
+ * Each field of a fuel entry lives in its own growable array, so an entry's values
+ * take 36 bytes instead of a boxed {@link FuelEntry} object graph, and aggregate loops
+ * walk contiguous memory. {@link FuelEntry} objects are only built as views when
+ * the history is exposed through the API.
+ *
+ * Besides the insertion-ordered columns, a timeline array lists the rows in
+ * timestamp order (4 bytes per entry). Binary searches over it validate back-dated
+ * entries against their neighbors in O(log n), and it lets the history be read in
+ * time order. An in-order append extends it in place; a back-dated append copies it
+ * with the row inserted, which is O(n) but rare.
+ *
+ * For windowed statistics, a time index keeps the timestamps and odometer readings
+ * in time order together with prefix sums of liters and cost, so the totals of any
+ * time or fill window take two binary searches and two subtractions. It is built by
+ * the first window query and adds 28 bytes per entry. In-order appends extend it in
+ * place; a back-dated append discards it and the next window query rebuilds it.
+ *
+ * All told an entry costs 40 bytes, or 68 once windows have been queried, plus up
+ * to half as much again of spare capacity, since arrays grow by half when full.
+ * The sketches below are bounded per car and do not grow with the history.
+ *
+ * Distributions of liters per fill, price per liter and per-interval L/100km are
+ * kept in bounded {@link LogHistogram} sketches updated on every append. An
+ * interval's consumption is the liters of a fill over the distance since the fill
+ * before it in time; a back-dated append changes its neighbors' intervals, so the
+ * interval sketch is then rebuilt on the next read.
+ *
+ * Concurrency: appends are serialized on this history's {@link #appendLock()},
+ * which is also the per-car lock the storage holds while validating and logging an
+ * entry, so appends to different cars never contend. It is a ReentrantLock rather
+ * than a monitor because the storage may wait for a log sync while holding it,
+ * and a virtual thread blocked inside a monitor pins its carrier thread. Readers
+ * never lock: every append writes its slot first and then publishes an immutable
+ * {@link Summary}, so a reader that takes a summary sees a consistent prefix of
+ * the history and matching aggregates. The sketches are guarded by the lock as
+ * well and read as copies.
+ */
+public class FuelHistory {
+
+    /**
+     * Immutable, consistent view of the history's size and running aggregates.
+     * First and last refer to time order, which differs from insertion order
+     * once back-dated entries are added.
+     */
+    public record Summary(int size, double totalLiters, double totalCost,
+                          int firstOdometer, int lastOdometer,
+                          long firstTimestamp, long lastTimestamp) {
+
+        static final Summary EMPTY = new Summary(0, 0.0, 0.0, 0, 0, 0L, 0L);
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    /**
+     * Earliest timestamp accepted for a fuel entry; well inside the range of epoch nanoseconds
+     */
+    public static final LocalDateTime EARLIEST_TIMESTAMP = LocalDateTime.of(1900, 1, 1, 0, 0);
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * Column arrays; replaced by larger copies when full
+     */
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+    /**
+     * Published after each append; its size bounds what readers may access
+     */
+    private volatile Summary summary = Summary.EMPTY;
+
+    /**
+     * Serializes appends, sketch updates and time index rebuilds
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    /**
+     * Sketches of one history's value distributions
+     */
+    public record Distribution(LogHistogram litersPerFill, LogHistogram pricePerLiter,
+                               LogHistogram consumption) {
+    }
+
+    /**
+     * Rows ordered by timestamp; replaced on growth and on back-dated appends
+     */
+    private volatile Timeline timeline = new Timeline(new int[INITIAL_CAPACITY], 0);
+
+    /**
+     * Time-ordered prefix sums; null until first needed and after a back-dated append
+     */
+    private volatile TimeIndex timeIndex;
+
+    /**
+     * Distribution sketches, guarded by the append lock
+     */
+    private final LogHistogram litersPerFill = new LogHistogram();
+    private final LogHistogram pricePerLiter = new LogHistogram();
+    private LogHistogram consumption = new LogHistogram();
+    private boolean consumptionStale;
+
+    /**
+     * Append a fuel entry and update the running aggregates.
+     */
+    public void append(FuelEntry entry) {
+        append(entry.getId(), entry.getLiters(), entry.getPrice(), entry.getOdometer(),
+               toEpochNanos(entry.getTimestamp()));
+    }
+
+    /**
+     * Append a fuel entry given as primitives and update the running aggregates.
+     */
+    public void append(long id, double liters, double price, int odometer, long timestampNanos) {
+        appendLock.lock();
+        try {
+            Summary current = summary;
+            int index = current.size();
+
+            Columns target = columns;
+            if (index == target.ids.length) {
+                target = target.grow();
+                columns = target;
+            }
+            target.ids[index] = id;
+            target.liters[index] = liters;
+            target.prices[index] = price;
+            target.odometers[index] = odometer;
+            target.timestamps[index] = timestampNanos;
+            timeline = timeline.insert(index, timestampNanos, target.timestamps);
+
+            boolean earliest = index == 0 || timestampNanos < current.firstTimestamp();
+            boolean latest = index == 0 || timestampNanos >= current.lastTimestamp();
+            litersPerFill.add(liters);
+            pricePerLiter.add(price / liters);
+            if (!latest) {
+                consumptionStale = true;
+            } else if (index > 0 && !consumptionStale) {
+                addInterval(consumption, liters, odometer - current.lastOdometer());
+            }
+
+            TimeIndex times = timeIndex;
+            if (times != null) {
+                timeIndex = latest && times.size == index
+                        ? times.append(liters, price, odometer, timestampNanos)
+                        : null;
+            }
+            summary = new Summary(
+                    index + 1,
+                    current.totalLiters() + liters,
+                    current.totalCost() + price,
+                    earliest ? odometer : current.firstOdometer(),
+                    latest ? odometer : current.lastOdometer(),
+                    earliest ? timestampNanos : current.firstTimestamp(),
+                    latest ? timestampNanos : current.lastTimestamp());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Consistent size and aggregates as of the latest completed append
+     */
+    public Summary summary() {
+        return summary;
+    }
+
+    /**
+     * Size and aggregates of the entries recorded between two times (both inclusive).
+     * First and last refer to time order within the window.
+     */
+    public Summary window(long fromNanos, long toNanos) {
+        TimeIndex times = timeIndex();
+        return times.summarize(times.lowerBound(fromNanos), times.upperBound(toNanos));
+    }
+
+    /**
+     * Size and aggregates of the latest {@code fills} entries in time order.
+     */
+    public Summary lastFills(int fills) {
+        TimeIndex times = timeIndex();
+        return times.summarize(Math.max(0, times.size - fills), times.size);
+    }
+
+    /**
+     * Copies of the distribution sketches, rebuilding the interval sketch if a
+     * back-dated append made it stale.
+     */
+    public Distribution distribution() {
+        appendLock.lock();
+        try {
+            if (consumptionStale) {
+                Timeline order = timeline;
+                Columns view = columns;
+                LogHistogram rebuilt = new LogHistogram();
+                int previous = -1;
+                for (int position = 0; position < order.size; position++) {
+                    int row = order.rows[position];
+                    if (previous >= 0) {
+                        addInterval(rebuilt, view.liters[row], view.odometers[row] - view.odometers[previous]);
+                    }
+                    previous = row;
+                }
+                consumption = rebuilt;
+                consumptionStale = false;
+            }
+            return new Distribution(litersPerFill.copy(), pricePerLiter.copy(), consumption.copy());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * The per-car lock that serializes appends. Callers that validate an entry
+     * against the history before appending it hold it across both.
+     */
+    public ReentrantLock appendLock() {
+        return appendLock;
+    }
+
+    /**
+     * Number of entries in the history
+     */
+    public int size() {
+        return summary.size();
+    }
+
+    public boolean isEmpty() {
+        return summary.isEmpty();
+    }
+
+    public long idAt(int index) {
+        return columns.ids[index];
+    }
+
+    public double litersAt(int index) {
+        return columns.liters[index];
+    }
+
+    public double priceAt(int index) {
+        return columns.prices[index];
+    }
+
+    public int odometerAt(int index) {
+        return columns.odometers[index];
+    }
+
+    /**
+     * Timestamp of an entry in nanoseconds since the epoch (UTC)
+     */
+    public long timestampAt(int index) {
+        return columns.timestamps[index];
+    }
+
+    /**
+     * Build a {@link FuelEntry} view of a single entry.
+     */
+    public FuelEntry entryAt(int index) {
+        return columns.entryAt(index);
+    }
+
+    /**
+     * Row of the latest entry recorded at or before the given time.
+     * Entries with the same timestamp count as before it, since a new entry is placed after them.
+     *
+     * @return the row index, or -1 if there is none
+     */
+    public int rowAtOrBefore(long timestampNanos) {
+        int size = summary.size();
+        Timeline order = timeline;
+        return visibleRow(order, order.upperBound(timestampNanos, columns.timestamps) - 1, size);
+    }
+
+    /**
+     * Row of the earliest entry recorded strictly after the given time.
+     *
+     * @return the row index, or -1 if there is none
+     */
+    public int rowAfter(long timestampNanos) {
+        int size = summary.size();
+        Timeline order = timeline;
+        return visibleRow(order, order.upperBound(timestampNanos, columns.timestamps), size);
+    }
+
+    /**
+     * Rows of the entries recorded between two times (both inclusive), in time order.
+     * Only touches the matching slice of the timeline. Entries appended after the
+     * call are not included.
+     */
+    public PrimitiveIterator.OfInt rowsBetween(long fromNanos, long toNanos) {
+        int size = summary.size();
+        Timeline order = timeline;
+        Columns view = columns;
+        int from = order.lowerBound(fromNanos, view.timestamps);
+        int to = fromNanos > toNanos ? from : order.upperBound(toNanos, view.timestamps);
+        return new PrimitiveIterator.OfInt() {
+            private int position = from;
+            private int next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int row = next;
+                next = advance();
+                return row;
+            }
+
+            private int advance() {
+                while (position < to) {
+                    int row = order.rows[position++];
+                    if (row < size) {
+                        return row;
+                    }
+                }
+                return -1;
+            }
+        };
+    }
+
+    /**
+     * Build {@link FuelEntry} views of the whole history, in time order.
+     * Safe to call while other threads append.
+     */
+    public List<FuelEntry> toEntries() {
+        int size = summary.size();
+        Timeline order = timeline;
+        Columns view = columns;
+        List<FuelEntry> entries = new ArrayList<>(size);
+        for (int position = 0; position < order.size; position++) {
+            int row = order.rows[position];
+            if (row < size) {
+                entries.add(view.entryAt(row));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Convert a timestamp to nanoseconds since the epoch, interpreting it as UTC.
+     *
+     * @throws IllegalArgumentException if the timestamp is outside the range a long
+     *         of nanoseconds can hold, roughly the years 1677 to 2262
+     */
+    public static long toEpochNanos(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        long seconds = timestamp.toEpochSecond(ZoneOffset.UTC);
+        long nanoAdjustment = timestamp.getNano();
+        if (seconds < 0 && nanoAdjustment > 0) {
+            // Count back from the next second, so the earliest instants do not overflow midway
+            seconds++;
+            nanoAdjustment -= NANOS_PER_SECOND;
+        }
+        try {
+            long nanos = Math.addExact(Math.multiplyExact(seconds, NANOS_PER_SECOND), nanoAdjustment);
+            if (nanos != NO_TIMESTAMP) {
+                return nanos;
+            }
+        } catch (ArithmeticException e) {
+            // Reported below, like the one value reserved for no timestamp
+        }
+        throw new IllegalArgumentException("Timestamp " + timestamp + " is outside the supported range");
+    }
+
+    /**
+     * Convert nanoseconds since the epoch (UTC) back to a timestamp.
+     */
+    public static LocalDateTime fromEpochNanos(long epochNanos) {
+        if (epochNanos == NO_TIMESTAMP) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND),
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Record the consumption of an interval; intervals without distance have none.
+     */
+    private static void addInterval(LogHistogram target, double liters, int distance) {
+        if (distance > 0) {
+            target.add(liters / distance * 100);
+        }
+    }
+
+    /**
+     * Current time index, rebuilt from the timeline if it is missing or stale.
+     */
+    private TimeIndex timeIndex() {
+        TimeIndex times = timeIndex;
+        if (times != null && times.size == summary.size()) {
+            return times;
+        }
+        appendLock.lock();
+        try {
+            times = timeIndex;
+            int size = summary.size();
+            if (times == null || times.size != size) {
+                times = new TimeIndex(Math.max(size, INITIAL_CAPACITY));
+                Timeline order = timeline;
+                Columns view = columns;
+                for (int position = 0; position < order.size; position++) {
+                    int row = order.rows[position];
+                    times = times.append(view.liters[row], view.prices[row], view.odometers[row], view.timestamps[row]);
+                }
+                timeIndex = times;
+            }
+            return times;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Row at a timeline position, or -1 if there is none or it was appended after
+     * the reader took its size
+     */
+    private static int visibleRow(Timeline order, int position, int size) {
+        if (position < 0 || position >= order.size) {
+            return -1;
+        }
+        int row = order.rows[position];
+        return row < size ? row : -1;
+    }
+
+    /**
+     * Rows in time order; rows with equal timestamps keep insertion order.
+     * An in-order append writes past {@code size} and returns a new instance
+     * sharing the array; a back-dated append copies the array with the row
+     * inserted. Either way a published instance never changes within its size.
+     */
+    private static final class Timeline {
+        final int[] rows;
+        final int size;
+
+        Timeline(int[] rows, int size) {
+            this.rows = rows;
+            this.size = size;
+        }
+
+        /**
+         * Place a newly appended row after every row with the same or an earlier timestamp.
+         *
+         * @param timestamps the timestamp column, already holding the new row's timestamp
+         */
+        Timeline insert(int row, long timestampNanos, long[] timestamps) {
+            int position = upperBound(timestampNanos, timestamps);
+            if (position == size) {
+                int[] target = rows;
+                if (size == rows.length) {
+                    target = Arrays.copyOf(rows, size + (size >> 1) + 1);
+                }
+                target[size] = row;
+                return new Timeline(target, size + 1);
+            }
+            int[] target = new int[size == rows.length ? size + (size >> 1) + 1 : rows.length];
+            System.arraycopy(rows, 0, target, 0, position);
+            target[position] = row;
+            System.arraycopy(rows, position, target, position + 1, size - position);
+            return new Timeline(target, size + 1);
+        }
+
+        /**
+         * Position of the first row at or after the given time
+         */
+        int lowerBound(long timestampNanos, long[] timestamps) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[rows[mid]] < timestampNanos) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Position of the first row strictly after the given time
+         */
+        int upperBound(long timestampNanos, long[] timestamps) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[rows[mid]] <= timestampNanos) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Entries in time order with prefix sums of liters and cost.
+     * Appending writes past {@code size} and returns a new instance sharing the
+     * arrays, so a published instance never changes within its size.
+     */
+    private static final class TimeIndex {
+        final long[] timestamps;
+        final int[] odometers;
+        final double[] litersPrefix;
+        final double[] costPrefix;
+        final int size;
+
+        TimeIndex(int capacity) {
+            this(new long[capacity], new int[capacity], new double[capacity + 1], new double[capacity + 1], 0);
+        }
+
+        private TimeIndex(long[] timestamps, int[] odometers, double[] litersPrefix, double[] costPrefix, int size) {
+            this.timestamps = timestamps;
+            this.odometers = odometers;
+            this.litersPrefix = litersPrefix;
+            this.costPrefix = costPrefix;
+            this.size = size;
+        }
+
+        TimeIndex append(double liters, double price, int odometer, long timestampNanos) {
+            TimeIndex target = this;
+            if (size == timestamps.length) {
+                int capacity = size + (size >> 1) + 1;
+                target = new TimeIndex(
+                        Arrays.copyOf(timestamps, capacity),
+                        Arrays.copyOf(odometers, capacity),
+                        Arrays.copyOf(litersPrefix, capacity + 1),
+                        Arrays.copyOf(costPrefix, capacity + 1),
+                        size);
+            }
+            target.timestamps[size] = timestampNanos;
+            target.odometers[size] = odometer;
+            target.litersPrefix[size + 1] = target.litersPrefix[size] + liters;
+            target.costPrefix[size + 1] = target.costPrefix[size] + price;
+            return new TimeIndex(target.timestamps, target.odometers, target.litersPrefix, target.costPrefix, size + 1);
+        }
+
+        /**
+         * Position of the first entry at or after the given time
+         */
+        int lowerBound(long timestampNanos) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] < timestampNanos) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Position of the first entry strictly after the given time
+         */
+        int upperBound(long timestampNanos) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[mid] <= timestampNanos) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Aggregates of positions [from, to)
+         */
+        Summary summarize(int from, int to) {
+            if (from >= to) {
+                return Summary.EMPTY;
+            }
+            return new Summary(
+                    to - from,
+                    litersPrefix[to] - litersPrefix[from],
+                    costPrefix[to] - costPrefix[from],
+                    odometers[from],
+                    odometers[to - 1],
+                    timestamps[from],
+                    timestamps[to - 1]);
+        }
+    }
+
+    /**
+     * One generation of column arrays.
+     * A grown copy contains every slot written before it was made.
+     */
+    private static final class Columns {
+        final long[] ids;
+        final double[] liters;
+        final double[] prices;
+        final int[] odometers;
+        final long[] timestamps;
+
+        Columns(int capacity) {
+            this(new long[capacity], new double[capacity], new double[capacity],
+                 new int[capacity], new long[capacity]);
+        }
+
+        private Columns(long[] ids, double[] liters, double[] prices, int[] odometers, long[] timestamps) {
+            this.ids = ids;
+            this.liters = liters;
+            this.prices = prices;
+            this.odometers = odometers;
+            this.timestamps = timestamps;
+        }
+
+        Columns grow() {
+            int capacity = ids.length + (ids.length >> 1) + 1;
+            return new Columns(
+                    Arrays.copyOf(ids, capacity),
+                    Arrays.copyOf(liters, capacity),
+                    Arrays.copyOf(prices, capacity),
+                    Arrays.copyOf(odometers, capacity),
+                    Arrays.copyOf(timestamps, capacity));
+        }
+
+        FuelEntry entryAt(int index) {
+            return FuelEntry.builder()
+                    .id(ids[index])
+                    .liters(liters[index])
+                    .price(prices[index])
+                    .odometer(odometers[index])
+                    .timestamp(fromEpochNanos(timestamps[index]))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.aem.carfuel.model;
+
+/**
+ * Highest car and fuel entry IDs handed out at some point in time.
+ * IDs are assigned in recording order, so a watermark marks what had been
+ * recorded by then, whatever the timestamps of the entries.
+ *
+ * @param carId highest car ID assigned
+ * @param fuelEntryId highest fuel entry ID assigned
+ */
+public record IdWatermark(long carId, long fuelEntryId) {
+}
@@ -0,0 +1,25 @@
+package com.aem.carfuel.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A line of a bulk import that was not applied.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReject {
+    /**
+     * Line number in the uploaded file (1-based)
+     */
+    private Long line;
+    
+    /**
+     * Why the line was rejected
+     */
+    private String message;
+}
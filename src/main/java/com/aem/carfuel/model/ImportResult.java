@@ -0,0 +1,59 @@
+package com.aem.carfuel.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Report of a streaming bulk import.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResult {
+    /**
+     * Number of JSON lines read
+     */
+    private Long linesRead;
+    
+    /**
+     * Number of cars created
+     */
+    private Long carsCreated;
+    
+    /**
+     * Number of fuel entries stored
+     */
+    private Long entriesAccepted;
+    
+    /**
+     * Number of lines rejected
+     */
+    private Long rejected;
+    
+    /**
+     * The first rejected lines (at most 100)
+     */
+    private List<ImportReject> rejects;
+    
+    /**
+     * Whether the whole upload was read; false if it stopped at malformed JSON
+     */
+    private Boolean completed;
+    
+    /**
+     * Why the import stopped early (only if not completed)
+     */
+    private String error;
+    
+    /**
+     * Time spent importing in milliseconds
+     */
+    private Long durationMs;
+}
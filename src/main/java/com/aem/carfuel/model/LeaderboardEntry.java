@@ -0,0 +1,45 @@
+package com.aem.carfuel.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A car's position on a leaderboard.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+    /**
+     * Position on the leaderboard, starting at 1
+     */
+    private Integer rank;
+
+    /**
+     * Car ID
+     */
+    private Long carId;
+
+    /**
+     * Car manufacturer brand
+     */
+    private String brand;
+
+    /**
+     * Car model name
+     */
+    private String model;
+
+    /**
+     * Manufacturing year
+     */
+    private Integer year;
+
+    /**
+     * Value of the ranked metric (L/100km or total cost)
+     */
+    private Double value;
+}
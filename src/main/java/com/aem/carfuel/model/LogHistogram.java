@@ -0,0 +1,145 @@
+package com.aem.carfuel.model;
+
+/**
+ * Compact, mergeable histogram of positive values with logarithmic buckets.
+ *
+ * Each bucket covers values within a fixed ratio of each other, so quantiles are
+ * estimated with at most {@value #RELATIVE_ACCURACY} relative error whatever the
+ * magnitude. Counts are kept only for the contiguous range of buckets that have
+ * been hit, and values are clamped to [{@value #MIN_TRACKED}, {@value #MAX_TRACKED}],
+ * so memory stays bounded (a few KB at most, typically a few hundred bytes).
+ * Two histograms merge by adding bucket counts.
+ *
+ * Not thread-safe; owners guard it with their own lock.
+ */
+public final class LogHistogram {
+
+    /**
+     * Maximum relative error of a quantile estimate
+     */
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    static final double MIN_TRACKED = 1e-3;
+    static final double MAX_TRACKED = 1e6;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    /**
+     * Counts of buckets {@code offset} to {@code offset + counts.length - 1}
+     */
+    private long[] counts = new long[0];
+    private int offset;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Record a value; non-finite values are ignored.
+     */
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+        double clamped = Math.min(MAX_TRACKED, Math.max(MIN_TRACKED, value));
+        addToBucket(bucketOf(clamped), 1);
+        count++;
+        min = count == 1 ? clamped : Math.min(min, clamped);
+        max = count == 1 ? clamped : Math.max(max, clamped);
+    }
+
+    /**
+     * Add all values recorded by another histogram.
+     */
+    public void merge(LogHistogram other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                addToBucket(other.offset + i, other.counts[i]);
+            }
+        }
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+    }
+
+    /**
+     * Independent copy of this histogram
+     */
+    public LogHistogram copy() {
+        LogHistogram copy = new LogHistogram();
+        copy.counts = counts.clone();
+        copy.offset = offset;
+        copy.count = count;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    /**
+     * Number of recorded values
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Smallest recorded value, or NaN if empty
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * Largest recorded value, or NaN if empty
+     */
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Estimate the value at a quantile.
+     *
+     * @param quantile between 0 and 1
+     * @return the estimate, or NaN if empty
+     */
+    public double quantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                double estimate = 2 * Math.pow(GAMMA, offset + i) / (GAMMA + 1);
+                return Math.min(max, Math.max(min, estimate));
+            }
+        }
+        return max;
+    }
+
+    private static int bucketOf(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private void addToBucket(int bucket, long increment) {
+        if (counts.length == 0) {
+            counts = new long[8];
+            offset = bucket - counts.length / 2;
+        } else if (bucket < offset || bucket >= offset + counts.length) {
+            int low = Math.min(offset, bucket);
+            int high = Math.max(offset + counts.length - 1, bucket);
+            // Leave some slack on the growing side to avoid copying on every new bucket
+            int slack = Math.max(4, (high - low + 1) >> 2);
+            int newOffset = bucket < offset ? low - slack : low;
+            long[] grown = new long[high - newOffset + 1 + (bucket < offset ? 0 : slack)];
+            System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+            counts = grown;
+            offset = newOffset;
+        }
+        counts[bucket - offset] += increment;
+    }
+}
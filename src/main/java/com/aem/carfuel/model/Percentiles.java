@@ -0,0 +1,65 @@
+package com.aem.carfuel.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Percentile estimates of one measure.
+ * Estimates are within 1% of the exact value; all values are omitted when there is no data.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Percentiles {
+    /**
+     * Number of values measured
+     */
+    private Long count;
+    
+    /**
+     * Smallest value
+     */
+    private Double min;
+    
+    /**
+     * Median
+     */
+    private Double p50;
+    
+    /**
+     * 90th percentile
+     */
+    private Double p90;
+    
+    /**
+     * 99th percentile
+     */
+    private Double p99;
+    
+    /**
+     * Largest value
+     */
+    private Double max;
+    
+    /**
+     * Summarize a histogram.
+     */
+    public static Percentiles of(LogHistogram histogram) {
+        if (histogram.count() == 0) {
+            return Percentiles.builder().count(0L).build();
+        }
+        return Percentiles.builder()
+                .count(histogram.count())
+                .min(histogram.min())
+                .p50(histogram.quantile(0.50))
+                .p90(histogram.quantile(0.90))
+                .p99(histogram.quantile(0.99))
+                .max(histogram.max())
+                .build();
+    }
+}
@@ -1,19 +1,37 @@
 package com.aem.carfuel.service;
 
+import com.aem.carfuel.dto.CreateCarRequest;
+import com.aem.carfuel.dto.FuelBatchItem;
 import com.aem.carfuel.exception.CarNotFoundException;
 import com.aem.carfuel.exception.DuplicateCarException;
 import com.aem.carfuel.exception.InvalidRequestException;
 import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.CarPage;
+import com.aem.carfuel.model.CarSummary;
+import com.aem.carfuel.model.ChangeEvent;
+import com.aem.carfuel.model.ChangeFeed;
+import com.aem.carfuel.model.FuelBatchItemResult;
+import com.aem.carfuel.model.FuelBatchResult;
 import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelHistory;
 import com.aem.carfuel.model.FuelStats;
 import com.aem.carfuel.storage.InMemoryCarStorage;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.function.Predicate;
 
 /**
  * Service layer for car and fuel management logic.
@@ -24,7 +42,27 @@ import java.util.List;
 @Slf4j
 public class CarService {
     
+    /**
+     * Largest page size accepted when listing cars
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+    
     private final InMemoryCarStorage storage;
+    private final Validator validator;
+    private final LeaderboardService leaderboardService;
+    private final ResponseCache responseCache;
+    private final ChangeStreamService changeStreamService;
+    
+    /**
+     * Lifetime statistics being computed, per car version
+     */
+    private final SingleFlight<VersionedKey, FuelStats> statsFlights = new SingleFlight<>();
+    
+    /**
+     * Identifies a car in a given version
+     */
+    private record VersionedKey(Long carId, long version) {
+    }
     
     /**
      * Create a new car in the system.
@@ -38,12 +76,6 @@ public class CarService {
     public Car createCar(String brand, String model, Integer year) {
         log.info("Creating new car: {} {} ({})", brand, model, year);
         
-        // Check for duplicate car
-        if (storage.existsByBrandModelYear(brand, model, year)) {
-            log.warn("Duplicate car creation attempt: {} {} ({})", brand, model, year);
-            throw new DuplicateCarException(brand, model, year);
-        }
-        
         Car car = Car.builder()
                 .brand(brand)
                 .model(model)
@@ -51,12 +83,48 @@ public class CarService {
                 .createdAt(LocalDateTime.now())
                 .build();
         
-        Car savedCar = storage.save(car);
+        // Duplicate check and insert are a single atomic step in storage
+        Car savedCar = storage.saveIfAbsent(car).orElseThrow(() -> {
+            log.warn("Duplicate car creation attempt: {} {} ({})", brand, model, year);
+            return new DuplicateCarException(brand, model, year);
+        });
         log.info("Car created with ID: {}", savedCar.getId());
+        publishChange(ChangeEvent.Type.CAR_CREATED, savedCar, null);
         
         return savedCar;
     }
     
+    /**
+     * Create several cars at once, for bulk import.
+     * Behaves like {@link #createCar} per car, but a duplicate does not fail the
+     * others, and the storage waits for durability once for the whole batch.
+     *
+     * @param requests the cars to create, already validated
+     * @return per request, the created car, or null if such a car already exists
+     */
+    public List<Car> createCars(List<CreateCarRequest> requests) {
+        log.debug("Creating {} cars", requests.size());
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Car> cars = new ArrayList<>(requests.size());
+        for (CreateCarRequest request : requests) {
+            cars.add(Car.builder()
+                    .brand(request.getBrand())
+                    .model(request.getModel())
+                    .year(request.getYear())
+                    .createdAt(now)
+                    .build());
+        }
+        
+        List<Car> saved = storage.saveAllIfAbsent(cars);
+        for (Car car : saved) {
+            if (car != null) {
+                publishChange(ChangeEvent.Type.CAR_CREATED, car, null);
+            }
+        }
+        return saved;
+    }
+    
     /**
      * Get all cars in the system.
      *
@@ -67,6 +135,103 @@ public class CarService {
         return storage.findAll();
     }
     
+    /**
+     * Get all cars, optionally filtered by brand and year, in ascending ID order.
+     *
+     * @param brand only cars of this brand (case-insensitive), or null for all
+     * @param year only cars of this year, or null for all
+     * @return the matching cars
+     */
+    public List<Car> getCars(String brand, Integer year) {
+        log.info("Fetching all cars (brand {}, year {})", brand, year);
+        return storage.findPage(null, Integer.MAX_VALUE, carFilter(brand, year));
+    }
+    
+    /**
+     * Get one page of cars, optionally filtered by brand and year.
+     *
+     * @param cursor return cars after this ID, or null for the first page
+     * @param limit maximum number of cars on the page (1 to {@value #MAX_PAGE_SIZE})
+     * @param brand only cars of this brand (case-insensitive), or null for all
+     * @param year only cars of this year, or null for all
+     * @return the page and the cursor for the next one
+     * @throws InvalidRequestException if the limit is out of range
+     */
+    public CarPage<Car> getCarPage(Long cursor, int limit, String brand, Integer year) {
+        log.info("Fetching cars after {} (limit {}, brand {}, year {})", cursor, limit, brand, year);
+        
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException(
+                String.format("limit must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        
+        // Fetch one extra car to know whether another page follows
+        List<Car> cars = storage.findPage(cursor, limit + 1, carFilter(brand, year));
+        Long nextCursor = null;
+        if (cars.size() > limit) {
+            cars = cars.subList(0, limit);
+            nextCursor = cars.get(limit - 1).getId();
+        }
+        
+        return CarPage.<Car>builder()
+                .cars(cars)
+                .nextCursor(nextCursor)
+                .build();
+    }
+    
+    /**
+     * Match cars by brand (case-insensitive) and year; null matches any.
+     */
+    private static Predicate<Car> carFilter(String brand, Integer year) {
+        return car -> (brand == null || car.getBrand().equalsIgnoreCase(brand))
+                && (year == null || car.getYear().equals(year));
+    }
+    
+    /**
+     * Get one page of car summaries, without fuel histories.
+     * Takes the same paging and filter parameters as {@link #getCarPage}.
+     *
+     * @return the page of summaries and the cursor for the next one
+     * @throws InvalidRequestException if the limit is out of range
+     */
+    public CarPage<CarSummary> getCarSummaryPage(Long cursor, int limit, String brand, Integer year) {
+        CarPage<Car> page = getCarPage(cursor, limit, brand, year);
+        return CarPage.<CarSummary>builder()
+                .cars(page.getCars().stream().map(CarSummary::of).toList())
+                .nextCursor(page.getNextCursor())
+                .build();
+    }
+    
+    /**
+     * Get the car creations and fuel entries made after a change sequence number.
+     * 
+     * Changes are read from a bounded in-memory log in O(limit). If some changes
+     * after since are no longer retained, no changes are returned and the feed
+     * is flagged for a resync instead.
+     *
+     * @param since return changes after this sequence; 0 to start
+     * @param limit maximum number of changes to return (1 to {@value #MAX_PAGE_SIZE})
+     * @return the changes and the sequence to continue from
+     * @throws InvalidRequestException if since is negative or the limit is out of range
+     */
+    public ChangeFeed getChanges(long since, int limit) {
+        log.info("Fetching changes after sequence {} (limit {})", since, limit);
+        
+        if (since < 0) {
+            throw new InvalidRequestException("since must not be negative");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException(
+                String.format("limit must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        
+        ChangeFeed feed = storage.findChangesSince(since, limit);
+        if (feed.getResyncRequired()) {
+            log.info("Changes after sequence {} are no longer retained, resync required", since);
+        }
+        return feed;
+    }
+    
     /**
      * Get a car by its ID.
      *
@@ -80,57 +245,260 @@ public class CarService {
                 .orElseThrow(() -> new CarNotFoundException(id));
     }
     
+    /**
+     * Get a car's fuel entries recorded within a time range, in time order.
+     * 
+     * The range is located on the car's timestamp-ordered timeline, so this costs
+     * O(log n + k) for k returned entries instead of building the whole history.
+     *
+     * @param carId the car ID
+     * @param from earliest timestamp to include, or null for no lower bound
+     * @param to latest timestamp to include, or null for no upper bound
+     * @param limit maximum number of entries to return (1 to {@value #MAX_PAGE_SIZE})
+     * @return the matching entries, oldest first
+     * @throws CarNotFoundException if car not found
+     * @throws InvalidRequestException if the limit is out of range, from is after to,
+     *         or either is before {@link FuelHistory#EARLIEST_TIMESTAMP}
+     */
+    public List<FuelEntry> getFuelEntries(Long carId, LocalDateTime from, LocalDateTime to, int limit) {
+        log.info("Fetching fuel entries of car {} from {} to {} (limit {})", carId, from, to, limit);
+        
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException(
+                String.format("limit must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidRequestException("from must not be after to");
+        }
+        checkSupported("from", from);
+        checkSupported("to", to);
+        
+        FuelHistory history = getCarById(carId).getFuelHistory();
+        PrimitiveIterator.OfInt rows = history.rowsBetween(
+                from != null ? FuelHistory.toEpochNanos(from) : Long.MIN_VALUE,
+                to != null ? FuelHistory.toEpochNanos(to) : Long.MAX_VALUE);
+        
+        List<FuelEntry> entries = new ArrayList<>();
+        while (rows.hasNext() && entries.size() < limit) {
+            entries.add(history.entryAt(rows.nextInt()));
+        }
+        return entries;
+    }
+    
     /**
      * Add a fuel entry to a car.
+     * 
+     * The entry may be back-dated. Odometer readings must not decrease over time,
+     * so the reading is checked only against the entries immediately before and
+     * after its timestamp, which takes O(log n) on the car's timeline.
      *
      * @param carId the car ID
      * @param liters the amount of fuel in liters
      * @param price the total cost
      * @param odometer the odometer reading in kilometers
+     * @param timestamp when the refill happened, or null for now
      * @return the updated car
      * @throws CarNotFoundException if car not found
-     * @throws InvalidRequestException if odometer reading is less than previous readings
+     * @throws InvalidRequestException if the odometer reading is out of order with neighboring entries
      */
-    public Car addFuelEntry(Long carId, Double liters, Double price, Integer odometer) {
+    public Car addFuelEntry(Long carId, Double liters, Double price, Integer odometer, LocalDateTime timestamp) {
         log.info("Adding fuel entry to car {}: {} liters, {} price, {} km", 
                  carId, liters, price, odometer);
         
         Car car = getCarById(carId);
         
-        // Validate odometer reading - should not decrease
-        if (!car.getFuelEntries().isEmpty()) {
-            Integer maxOdometer = car.getFuelEntries().stream()
-                    .map(FuelEntry::getOdometer)
-                    .max(Integer::compareTo)
-                    .orElse(0);
-            
-            if (odometer < maxOdometer) {
-                String message = String.format(
-                    "Invalid odometer reading: %d km. Cannot be less than previous reading: %d km",
-                    odometer, maxOdometer
-                );
-                log.warn("Invalid fuel entry for car {}: {}", carId, message);
-                throw new InvalidRequestException(message);
-            }
-        }
-        
         FuelEntry entry = FuelEntry.builder()
-                .id(storage.generateFuelId())
                 .liters(liters)
                 .price(price)
                 .odometer(odometer)
-                .timestamp(LocalDateTime.now())
+                .timestamp(timestamp != null ? timestamp : LocalDateTime.now())
                 .build();
         
-        car.addFuelEntry(entry);
-        storage.save(car);
+        // Validation and append are atomic per car; the storage assigns the entry ID.
+        // The change is published inside that critical section, so events follow commit order
+        storage.addFuelEntry(car, entry, this::odometerRejection,
+                appended -> publishChange(ChangeEvent.Type.FUEL_ADDED, car, appended)).ifPresent(message -> {
+            log.warn("Invalid fuel entry for car {}: {}", carId, message);
+            throw new InvalidRequestException(message);
+        });
+        leaderboardService.update(car);
+        responseCache.invalidate(carId);
         
         log.info("Fuel entry added successfully. Car now has {} entries", 
-                 car.getFuelEntries().size());
+                 car.getEntriesCount());
         
         return car;
     }
     
+    /**
+     * Add many fuel entries, across any number of cars, in one call.
+     * 
+     * Items are validated one by one and a rejected item never fails the batch.
+     * Valid items are grouped per car and ordered by timestamp, then each group is
+     * checked and appended under a single per-car critical section and made
+     * durable with a single log sync.
+     *
+     * @param items the fuel entries to add
+     * @return the number of accepted and rejected items and one result per item, in request order
+     */
+    public FuelBatchResult addFuelEntries(List<FuelBatchItem> items) {
+        FuelBatchItemResult[] results = new FuelBatchItemResult[items.size()];
+        Map<Long, List<Integer>> indexesByCar = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        
+        for (int i = 0; i < items.size(); i++) {
+            FuelBatchItem item = items.get(i);
+            String violation = item == null ? "Entry is required" : firstViolation(item);
+            if (violation != null) {
+                results[i] = rejected(i, violation);
+            } else {
+                indexesByCar.computeIfAbsent(item.getCarId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        for (Map.Entry<Long, List<Integer>> group : indexesByCar.entrySet()) {
+            Long carId = group.getKey();
+            List<Integer> indexes = group.getValue();
+            
+            Car car = storage.findById(carId).orElse(null);
+            if (car == null) {
+                String message = "Car not found with id: " + carId;
+                indexes.forEach(i -> results[i] = rejected(i, message));
+                continue;
+            }
+            
+            // Applying a group in time order means in-order data never looks back-dated
+            List<FuelEntry> entries = new ArrayList<>(indexes.size());
+            for (Integer i : indexes) {
+                FuelBatchItem item = items.get(i);
+                entries.add(FuelEntry.builder()
+                        .liters(item.getLiters())
+                        .price(item.getPrice())
+                        .odometer(item.getOdometer())
+                        .timestamp(item.getTimestamp() != null ? item.getTimestamp() : now)
+                        .build());
+            }
+            Integer[] order = new Integer[indexes.size()];
+            for (int k = 0; k < order.length; k++) {
+                order[k] = k;
+            }
+            Arrays.sort(order, Comparator.comparing(k -> entries.get(k).getTimestamp()));
+            List<FuelEntry> sorted = new ArrayList<>(order.length);
+            for (Integer k : order) {
+                sorted.add(entries.get(k));
+            }
+            
+            List<String> rejections = storage.addFuelEntries(car, sorted, this::odometerRejection,
+                    appended -> publishChange(ChangeEvent.Type.FUEL_ADDED, car, appended));
+            leaderboardService.update(car);
+            responseCache.invalidate(carId);
+            for (int k = 0; k < order.length; k++) {
+                int i = indexes.get(order[k]);
+                String rejection = rejections.get(k);
+                results[i] = rejection == null
+                        ? FuelBatchItemResult.builder().index(i).accepted(true).entryId(sorted.get(k).getId()).build()
+                        : rejected(i, rejection);
+            }
+        }
+        
+        int accepted = 0;
+        for (FuelBatchItemResult result : results) {
+            if (result.getAccepted()) {
+                accepted++;
+            }
+        }
+        log.info("Fuel batch processed: {} cars, {} accepted, {} rejected",
+                 indexesByCar.size(), accepted, results.length - accepted);
+        
+        return FuelBatchResult.builder()
+                .accepted(accepted)
+                .rejected(results.length - accepted)
+                .results(Arrays.asList(results))
+                .build();
+    }
+    
+    /**
+     * Broadcast a change to live subscribers, with the car's aggregates as they are now.
+     * Costs nothing while no client is subscribed.
+     * 
+     * Fuel entries are published from the storage's per-car critical section, so
+     * the aggregates are those right after the entry and a car's events are
+     * published in the order its entries were committed.
+     *
+     * @param entry the added fuel entry, or null for a car creation
+     */
+    private void publishChange(ChangeEvent.Type type, Car car, FuelEntry entry) {
+        if (!changeStreamService.hasSubscribers()) {
+            return;
+        }
+        changeStreamService.publish(ChangeEvent.builder()
+                .type(type)
+                .carId(car.getId())
+                .brand(car.getBrand())
+                .model(car.getModel())
+                .year(car.getYear())
+                .entry(entry)
+                .stats(toStats(car.getId(), car.getFuelHistory().summary()))
+                .build());
+    }
+    
+    /**
+     * Check that an odometer reading fits between the neighboring entries in time.
+     * Runs inside the car's append critical section, so the history cannot change meanwhile.
+     * An entry whose timestamp cannot be placed on the timeline is rejected too.
+     *
+     * @return null if the reading is valid, otherwise why it was rejected
+     */
+    private String odometerRejection(FuelHistory history, FuelEntry entry) {
+        long timestamp;
+        try {
+            timestamp = FuelHistory.toEpochNanos(entry.getTimestamp());
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        int odometer = entry.getOdometer();
+        
+        int previous = history.rowAtOrBefore(timestamp);
+        int next = history.rowAfter(timestamp);
+        if (previous >= 0 && odometer < history.odometerAt(previous)) {
+            return String.format(
+                "Invalid odometer reading: %d km. Cannot be less than previous reading: %d km",
+                odometer, history.odometerAt(previous)
+            );
+        }
+        if (next >= 0 && odometer > history.odometerAt(next)) {
+            return String.format(
+                "Invalid odometer reading: %d km. Cannot be greater than later reading: %d km",
+                odometer, history.odometerAt(next)
+            );
+        }
+        return null;
+    }
+    
+    /**
+     * Bean-validate a batch item. The validator returns violations in no
+     * particular order, so they are ordered by property path and message to
+     * report the same one for the same item every time.
+     *
+     * @return the message of the first violated constraint, or null if the item is valid
+     */
+    private String firstViolation(FuelBatchItem item) {
+        return validator.validate(item).stream()
+                .min(Comparator.comparing((ConstraintViolation<FuelBatchItem> violation) ->
+                                violation.getPropertyPath().toString())
+                        .thenComparing(ConstraintViolation::getMessage))
+                .map(ConstraintViolation::getMessage)
+                .orElse(null);
+    }
+    
+    private static FuelBatchItemResult rejected(int index, String message) {
+        return FuelBatchItemResult.builder()
+                .index(index)
+                .accepted(false)
+                .message(message)
+                .build();
+    }
+    
     /**
      * Calculate fuel statistics for a car.
      * 
@@ -138,7 +506,14 @@ public class CarService {
      * - Total Fuel: Sum of all fuel entries (liters)
      * - Total Cost: Sum of all fuel entries (price)
      * - Average Consumption: (Total Fuel / Distance) × 100
-     *   where Distance = Last Odometer - First Odometer
+     *   where Distance = Last Odometer - First Odometer (in time order)
+     * 
+     * The sums and odometer bounds are maintained incrementally by
+     * {@link FuelHistory} and read as one consistent summary, so this runs in
+     * constant time regardless of the length of the fuel history. Concurrent
+     * calls for the same car version are coalesced into one computation.
+     * See {@link #calculateStats(Long, LocalDateTime, LocalDateTime, Integer, Integer)}
+     * for windowed statistics.
      * 
      * Special Cases:
      * - 0 or 1 entry: avgConsumption = 0.0 (insufficient data)
@@ -149,13 +524,98 @@ public class CarService {
      * @throws CarNotFoundException if car not found
      */
     public FuelStats calculateStats(Long carId) {
-        log.info("Calculating fuel statistics for car {}", carId);
+        Car car = storage.findById(carId)
+                .orElseThrow(() -> new CarNotFoundException(carId));
         
-        Car car = getCarById(carId);
-        List<FuelEntry> entries = car.getFuelEntries();
+        // Identical concurrent requests for the same car version share one computation
+        return statsFlights.execute(new VersionedKey(carId, car.getVersion()), () -> {
+            log.info("Calculating fuel statistics for car {}", carId);
+            return toStats(carId, car.getFuelHistory().summary());
+        });
+    }
+    
+    /**
+     * Calculate fuel statistics for a window of a car's history.
+     * 
+     * At most one kind of window may be given: a time range (from and/or to,
+     * both inclusive), the last N days, or the last N fills. Without any, the
+     * lifetime statistics are returned.
+     * 
+     * Window totals come from time-ordered prefix sums kept by {@link FuelHistory}:
+     * two binary searches and two subtractions, however long the history is.
+     * Distance is measured between the first and last entries of the window.
+     *
+     * @param carId the car ID
+     * @param from earliest timestamp to include, or null
+     * @param to latest timestamp to include, or null
+     * @param lastDays only entries from the last N days, or null
+     * @param lastFills only the last N entries, or null
+     * @return fuel statistics for the window
+     * @throws CarNotFoundException if car not found
+     * @throws InvalidRequestException if several windows are combined, a size is not
+     *         positive, or the window starts before {@link FuelHistory#EARLIEST_TIMESTAMP}
+     */
+    public FuelStats calculateStats(Long carId, LocalDateTime from, LocalDateTime to,
+                                    Integer lastDays, Integer lastFills) {
+        boolean range = from != null || to != null;
+        if ((range ? 1 : 0) + (lastDays != null ? 1 : 0) + (lastFills != null ? 1 : 0) > 1) {
+            throw new InvalidRequestException("Use only one of from/to, lastDays or lastFills");
+        }
+        if (!range && lastDays == null && lastFills == null) {
+            return calculateStats(carId);
+        }
+        if ((lastDays != null && lastDays < 1) || (lastFills != null && lastFills < 1)) {
+            throw new InvalidRequestException("lastDays and lastFills must be positive");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidRequestException("from must not be after to");
+        }
+        checkSupported("from", from);
+        checkSupported("to", to);
+        LocalDateTime now = LocalDateTime.now();
+        if (lastDays != null && lastDays > ChronoUnit.DAYS.between(FuelHistory.EARLIEST_TIMESTAMP, now)) {
+            throw new InvalidRequestException(
+                "lastDays cannot reach back before " + FuelHistory.EARLIEST_TIMESTAMP);
+        }
+        log.info("Calculating fuel statistics for car {} (from {}, to {}, last {} days, last {} fills)",
+                 carId, from, to, lastDays, lastFills);
+        
+        FuelHistory history = getCarById(carId).getFuelHistory();
+        FuelHistory.Summary summary;
+        if (lastFills != null) {
+            summary = history.lastFills(lastFills);
+        } else if (lastDays != null) {
+            summary = history.window(
+                    FuelHistory.toEpochNanos(now.minusDays(lastDays)), Long.MAX_VALUE);
+        } else {
+            summary = history.window(
+                    from != null ? FuelHistory.toEpochNanos(from) : Long.MIN_VALUE,
+                    to != null ? FuelHistory.toEpochNanos(to) : Long.MAX_VALUE);
+        }
+        return toStats(carId, summary);
+    }
+    
+    /**
+     * Reject a query bound before the earliest timestamp a fuel entry can have.
+     *
+     * @param name the parameter name, for the error message
+     * @param timestamp the bound, or null for none
+     */
+    private static void checkSupported(String name, LocalDateTime timestamp) {
+        if (timestamp != null && timestamp.isBefore(FuelHistory.EARLIEST_TIMESTAMP)) {
+            throw new InvalidRequestException(
+                String.format("%s cannot be before %s", name, FuelHistory.EARLIEST_TIMESTAMP));
+        }
+    }
+    
+    /**
+     * Turn a history summary into fuel statistics.
+     */
+    private FuelStats toStats(Long carId, FuelHistory.Summary summary) {
+        int entriesCount = summary.size();
         
-        if (entries == null || entries.isEmpty()) {
-            log.info("No fuel entries found for car {}", carId);
+        if (entriesCount == 0) {
+            log.debug("No fuel entries found for car {}", carId);
             return FuelStats.builder()
                     .totalFuel(0.0)
                     .totalCost(0.0)
@@ -164,53 +624,39 @@ public class CarService {
                     .build();
         }
         
-        // Calculate total fuel and cost
-        double totalFuel = entries.stream()
-                .mapToDouble(FuelEntry::getLiters)
-                .sum();
-        
-        double totalCost = entries.stream()
-                .mapToDouble(FuelEntry::getPrice)
-                .sum();
+        double totalFuel = summary.totalLiters();
+        double totalCost = summary.totalCost();
         
         // Calculate average consumption
         double avgConsumption = 0.0;
         
-        if (entries.size() >= 2) {
-            // Sort entries by timestamp to get first and last odometer readings
-            List<FuelEntry> sortedEntries = entries.stream()
-                    .sorted(Comparator.comparing(FuelEntry::getTimestamp))
-                    .toList();
-            
-            Integer firstOdometer = sortedEntries.get(0).getOdometer();
-            Integer lastOdometer = sortedEntries.get(sortedEntries.size() - 1).getOdometer();
-            
-            int distance = lastOdometer - firstOdometer;
+        if (entriesCount >= 2) {
+            int distance = summary.lastOdometer() - summary.firstOdometer();
             
             if (distance > 0) {
                 // Average consumption in liters per 100 km
                 avgConsumption = (totalFuel / distance) * 100;
-                log.info("Distance traveled: {} km, Avg consumption: {:.2f} L/100km", 
+                log.debug("Distance traveled: {} km, Avg consumption: {} L/100km", 
                          distance, avgConsumption);
             } else {
-                log.warn("Invalid distance ({} km) for car {}. Cannot calculate avg consumption.", 
+                log.debug("Invalid distance ({} km) for car {}. Cannot calculate avg consumption.", 
                          distance, carId);
             }
         } else {
-            log.info("Only {} entry found for car {}. Cannot calculate avg consumption.", 
-                     entries.size(), carId);
+            log.debug("Only {} entry found for car {}. Cannot calculate avg consumption.", 
+                     entriesCount, carId);
         }
         
         FuelStats stats = FuelStats.builder()
                 .totalFuel(totalFuel)
                 .totalCost(totalCost)
                 .avgConsumption(avgConsumption)
-                .entriesCount(entries.size())
+                .entriesCount(entriesCount)
                 .build();
         
-        log.info("Statistics calculated: Total Fuel={} L, Total Cost={}, " +
+        log.debug("Statistics calculated: Total Fuel={} L, Total Cost={}, " +
                  "Avg Consumption={} L/100km, Entries={}",
-                 totalFuel, totalCost, avgConsumption, entries.size());
+                 totalFuel, totalCost, avgConsumption, entriesCount);
         
         return stats;
     }
@@ -0,0 +1,397 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.model.ChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Broadcasts fleet changes to Server-Sent Events subscribers.
+ *
+ * Writers publish into a fixed-size ring: one sequence increment and one array
+ * store under a short lock, then a wake-up of the dispatcher thread, never
+ * waiting for subscribers. Numbering and storing together keep the ring a
+ * gap-free prefix: no event becomes readable before one numbered ahead of it.
+ * Each subscriber only keeps its position in the ring. The dispatcher hands
+ * subscribers that have events pending to sender threads, which write them out
+ * in order; an event is serialized once, however many subscribers get it.
+ *
+ * Writing to a client blocks while its connection does not take more data, so
+ * every drain runs on its own virtual thread and a stalled client only parks
+ * that thread. The dispatcher also watches sends in progress: a subscriber whose
+ * send has not finished within the send timeout is disconnected right away. A
+ * subscriber that keeps up with sends but falls more than the ring size behind
+ * has missed events: it gets an "overflow" event and is disconnected. Either
+ * way it cannot hold back anyone else.
+ *
+ * Event IDs start from the clock at startup, like change log sequences without
+ * a write-ahead log, so IDs of an earlier run are below every ID of this one. A
+ * client resuming with a Last-Event-ID still in the ring gets the events it
+ * missed; any other one gets an "overflow" event first and continues live.
+ * Events are only buffered while at least one subscriber is connected.
+ */
+@Service
+@Slf4j
+public class ChangeStreamService implements Closeable {
+
+    /**
+     * Name of the event telling a subscriber it missed events and should reload the fleet
+     */
+    public static final String OVERFLOW_EVENT = "overflow";
+
+    /**
+     * Events sent to one subscriber before yielding its sender thread to others
+     */
+    private static final int SEND_BATCH = 64;
+
+    /**
+     * An event at a position of the ring
+     */
+    private final class Slot {
+        final long sequence;
+        final ChangeEvent event;
+        private volatile String json;
+
+        Slot(long sequence, ChangeEvent event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+
+        /**
+         * The event as JSON, serialized by the first sender that needs it
+         */
+        String json() {
+            String serialized = json;
+            if (serialized == null) {
+                serialized = jsonMapper.writeValueAsString(event);
+                json = serialized;
+            }
+            return serialized;
+        }
+    }
+
+    /**
+     * A connected client; its position is only advanced by the sender currently draining it
+     */
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile long cursor;
+        volatile long lastSentNanos;
+        volatile boolean closed;
+        /**
+         * Thread blocked in a send, or null between sends
+         */
+        volatile Thread sender;
+        volatile long sendStartedNanos;
+        /**
+         * Events missed before subscribing, announced with the first send
+         */
+        long missed;
+
+        Subscriber(SseEmitter emitter, long cursor, long missed, long lastSentNanos) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.missed = missed;
+            this.lastSentNanos = lastSentNanos;
+        }
+    }
+
+    private final JsonMapper jsonMapper;
+    private final AtomicReferenceArray<Slot> ring;
+    private final int mask;
+
+    /**
+     * ID of the first event of this run
+     */
+    private final long startSequence;
+    private final AtomicLong nextSequence;
+
+    /**
+     * Serializes numbering and storing an event, so a slow publisher cannot be overtaken
+     */
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final long heartbeatNanos;
+    private final long sendTimeoutNanos;
+    private final ExecutorService senders =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-stream-", 1).factory());
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public ChangeStreamService(
+            JsonMapper jsonMapper,
+            @Value("${carfuel.events.buffer-size:4096}") int bufferSize,
+            @Value("${carfuel.events.heartbeat-seconds:15}") long heartbeatSeconds,
+            @Value("${carfuel.events.send-timeout-seconds:10}") long sendTimeoutSeconds) {
+        this.jsonMapper = jsonMapper;
+
+        // Round up to a power of two, so positions map to slots with a mask
+        int capacity = Integer.highestOneBit(Math.max(2, Math.min(bufferSize, 1 << 30)) * 2 - 1);
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.heartbeatNanos = TimeUnit.SECONDS.toNanos(Math.max(1, heartbeatSeconds));
+        this.sendTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(1, sendTimeoutSeconds));
+
+        // Start from the clock, so a Last-Event-ID from an earlier run is recognized as stale
+        this.startSequence = System.currentTimeMillis() * 1000;
+        this.nextSequence = new AtomicLong(startSequence);
+
+        this.dispatcher = new Thread(this::dispatch, "change-stream-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("Change stream buffers {} events, send timeout {} s", capacity,
+                 TimeUnit.NANOSECONDS.toSeconds(sendTimeoutNanos));
+    }
+
+    /**
+     * Whether any client is connected; writers skip building events otherwise
+     */
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Number of connected clients
+     */
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Broadcast a change. Never waits for subscribers: slow ones fall behind instead.
+     * Concurrent publishers only wait for each other's array store.
+     *
+     * @param event the change
+     */
+    public void publish(ChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        publishLock.lock();
+        try {
+            long sequence = nextSequence.get();
+            ring.set((int) (sequence & mask), new Slot(sequence, event));
+            nextSequence.set(sequence + 1);
+        } finally {
+            publishLock.unlock();
+        }
+        LockSupport.unpark(dispatcher);
+    }
+
+    /**
+     * Connect a client.
+     *
+     * @param lastEventId ID of the last event the client received, or null to start with the next change
+     * @return the emitter streaming events to the client
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        // No request timeout: the stream is long-lived, and stalled sends are timed out individually
+        SseEmitter emitter = new SseEmitter(0L);
+
+        long next = nextSequence.get();
+        long oldest = Math.max(startSequence, next - ring.length());
+        long cursor = next;
+        long missed = 0;
+        if (lastEventId != null && lastEventId + 1 != next) {
+            if (lastEventId + 1 >= oldest && lastEventId + 1 < next) {
+                cursor = lastEventId + 1;
+            } else if (lastEventId + 1 >= startSequence && lastEventId + 1 < oldest) {
+                // Evicted from the ring during this run
+                missed = oldest - lastEventId - 1;
+            } else {
+                // From an earlier run, or not an ID this server handed out: the count is unknown
+                missed = -1;
+            }
+        }
+
+        // An immediate heartbeat commits the response, so the client sees the stream open
+        Subscriber subscriber = new Subscriber(emitter, cursor, missed, System.nanoTime() - heartbeatNanos);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        log.info("Change stream subscriber connected at {} ({} connected)", cursor, subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Disconnect all clients and stop the sender threads
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.closed = true;
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        senders.shutdown();
+    }
+
+    /**
+     * Dispatcher loop: after every wake-up, disconnect subscribers stuck in a send and
+     * hand those with pending events or a due heartbeat to the senders. Bursts of
+     * publishes coalesce into one pass.
+     */
+    private void dispatch() {
+        while (running) {
+            LockSupport.parkNanos(this, Math.min(heartbeatNanos, sendTimeoutNanos / 2));
+            long now = System.nanoTime();
+            for (Subscriber subscriber : subscribers) {
+                Thread sender = subscriber.sender;
+                if (sender != null && now - subscriber.sendStartedNanos >= sendTimeoutNanos) {
+                    stalled(subscriber, sender);
+                } else if (hasPending(subscriber) || now - subscriber.lastSentNanos >= heartbeatNanos) {
+                    schedule(subscriber);
+                }
+            }
+        }
+    }
+
+    private boolean hasPending(Subscriber subscriber) {
+        Slot slot = ring.get((int) (subscriber.cursor & mask));
+        return slot != null && slot.sequence >= subscriber.cursor;
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.closed || !subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.scheduled.set(false);
+        }
+    }
+
+    /**
+     * Send a subscriber its pending events, up to a batch. Runs on a sender thread,
+     * at most once at a time per subscriber.
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            if (subscriber.missed != 0) {
+                sendOverflow(subscriber, subscriber.missed);
+                subscriber.missed = 0;
+            }
+
+            int sent = 0;
+            while (sent < SEND_BATCH && !subscriber.closed) {
+                long cursor = subscriber.cursor;
+                Slot slot = ring.get((int) (cursor & mask));
+                if (slot == null || slot.sequence < cursor) {
+                    break; // Not published yet
+                }
+                if (slot.sequence > cursor) {
+                    // Overwritten before this subscriber read it
+                    long missed = Math.max(0, nextSequence.get() - ring.length()) - cursor;
+                    log.warn("Change stream subscriber fell {} events behind, disconnecting", missed);
+                    sendOverflow(subscriber, missed);
+                    drop(subscriber);
+                    return;
+                }
+                send(subscriber, SseEmitter.event()
+                        .id(Long.toString(slot.sequence))
+                        .name(slot.event.getType().name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                        .data(slot.json()));
+                subscriber.cursor = cursor + 1;
+                sent++;
+            }
+
+            long now = System.nanoTime();
+            if (sent > 0) {
+                subscriber.lastSentNanos = now;
+            } else if (now - subscriber.lastSentNanos >= heartbeatNanos) {
+                send(subscriber, SseEmitter.event().comment("heartbeat"));
+                subscriber.lastSentNanos = now;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, or the emitter was completed meanwhile
+            drop(subscriber);
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+
+        // Events published while draining did not reschedule this subscriber
+        if (hasPending(subscriber)) {
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Tell a subscriber it missed events; -1 if the number is unknown
+     */
+    private void sendOverflow(Subscriber subscriber, long missed) throws IOException {
+        send(subscriber, SseEmitter.event()
+                .name(OVERFLOW_EVENT)
+                .data("{\"missed\":" + missed + "}"));
+    }
+
+    /**
+     * Write one event, exposing the send to the dispatcher's stall check while it runs
+     */
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendStartedNanos = System.nanoTime();
+        subscriber.sender = Thread.currentThread();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.sender = null;
+        }
+    }
+
+    /**
+     * Disconnect a subscriber whose send has not finished within the send timeout.
+     * Its sender is interrupted in case the write can be interrupted; otherwise it
+     * stays parked until the connection's own write timeout fails it.
+     */
+    private void stalled(Subscriber subscriber, Thread sender) {
+        log.warn("Change stream subscriber did not accept an event within {} s, disconnecting",
+                 TimeUnit.NANOSECONDS.toSeconds(sendTimeoutNanos));
+        remove(subscriber);
+        sender.interrupt();
+        try {
+            // Completing waits for the blocked send to end, so it must not run on the dispatcher
+            senders.execute(() -> drop(subscriber));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; close() completes every emitter
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscriber.closed = true;
+        remove(subscriber);
+        try {
+            subscriber.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Already completed
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (subscribers.remove(subscriber)) {
+            log.info("Change stream subscriber disconnected ({} connected)", subscribers.size());
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelHistory;
+import com.aem.carfuel.model.IdWatermark;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming export of all cars and fuel entries as NDJSON or CSV.
+ *
+ * Cars are read from storage one page at a time and each car and entry is
+ * written straight to the output stream, so the export starts immediately
+ * and its heap use does not depend on the size of the fleet.
+ *
+ * Exports can be incremental. Car and fuel entry IDs are assigned in recording
+ * order, so an export covers the IDs up to a {@link IdWatermark}
+ * taken when it starts, and the next one asks for the IDs after it. Unlike a
+ * filter on refill timestamps, this also picks up back-dated entries recorded
+ * since the previous export.
+ *
+ * NDJSON is written with a generator from the application's {@link JsonMapper}
+ * and uses the same line format as {@link FleetImportService}, with the car
+ * ID as the reference, so an export can be imported into another instance.
+ * Importing it into the instance it came from does not work: every car line is
+ * rejected as a duplicate, and with it every fuel line that refers to it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FleetExportService {
+
+    /**
+     * Header row of the CSV export
+     */
+    public static final String CSV_HEADER =
+            "carId,brand,model,year,createdAt,entryId,liters,price,odometer,timestamp";
+
+    private static final int PAGE_SIZE = 500;
+
+    private final InMemoryCarStorage storage;
+    private final JsonMapper jsonMapper;
+
+    /**
+     * The IDs recorded so far; pass it to a write method as its upper bound and
+     * hand it to the client as the position of its next incremental export.
+     */
+    public IdWatermark watermark() {
+        return storage.idWatermark();
+    }
+
+    /**
+     * Write the export as newline-delimited JSON: one line per car, followed by one line per fuel entry.
+     *
+     * @param out the response stream
+     * @param after only fuel entries with a higher ID than its fuel entry ID, and only
+     *        cars with a higher ID than its car ID or having such entries;
+     *        null exports everything
+     * @param upTo the watermark taken for this export; later cars and entries are left out
+     */
+    public void writeNdjson(OutputStream out, IdWatermark after,
+                            IdWatermark upTo) throws IOException {
+        long started = System.nanoTime();
+        long carsWritten = 0;
+        long entriesWritten = 0;
+
+        // Lines are ended explicitly, so no separator goes between root values;
+        // the response stream stays open for the container to complete
+        try (JsonGenerator json = jsonMapper.writer()
+                .withRootValueSeparator("")
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .createGenerator(out)) {
+            Long cursor = null;
+            List<Car> page;
+            while (!(page = storage.findPage(cursor, PAGE_SIZE, car -> car.getId() <= upTo.carId())).isEmpty()) {
+                for (Car car : page) {
+                    FuelHistory history = car.getFuelHistory();
+                    PrimitiveIterator.OfInt rows = exportedRows(car, after, upTo);
+                    if (!rows.hasNext() && !isNew(car, after)) {
+                        continue;
+                    }
+
+                    json.writeStartObject();
+                    json.writeStringProperty("type", "car");
+                    json.writeStringProperty("ref", car.getId().toString());
+                    json.writeNumberProperty("id", car.getId());
+                    json.writeStringProperty("brand", car.getBrand());
+                    json.writeStringProperty("model", car.getModel());
+                    json.writeNumberProperty("year", car.getYear());
+                    json.writeStringProperty("createdAt", format(car.getCreatedAt()));
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    carsWritten++;
+
+                    while (rows.hasNext()) {
+                        int row = rows.nextInt();
+                        json.writeStartObject();
+                        json.writeStringProperty("type", "fuel");
+                        json.writeStringProperty("car", car.getId().toString());
+                        json.writeNumberProperty("id", history.idAt(row));
+                        json.writeNumberProperty("liters", history.litersAt(row));
+                        json.writeNumberProperty("price", history.priceAt(row));
+                        json.writeNumberProperty("odometer", history.odometerAt(row));
+                        json.writeStringProperty("timestamp",
+                                format(FuelHistory.fromEpochNanos(history.timestampAt(row))));
+                        json.writeEndObject();
+                        json.writeRaw('\n');
+                        entriesWritten++;
+                    }
+                }
+                cursor = page.get(page.size() - 1).getId();
+            }
+        }
+
+        log.info("NDJSON export finished in {} ms: {} cars, {} fuel entries",
+                 (System.nanoTime() - started) / 1_000_000, carsWritten, entriesWritten);
+    }
+
+    /**
+     * Write the export as CSV: one row per fuel entry, with the car columns repeated.
+     * A car without matching entries gets a single row with empty entry columns.
+     * Numbers are written in plain decimal notation, never as 1.0E-4.
+     *
+     * @param out the response stream
+     * @param after same filter as {@link #writeNdjson}
+     * @param upTo same bound as {@link #writeNdjson}
+     */
+    public void writeCsv(OutputStream out, IdWatermark after,
+                         IdWatermark upTo) throws IOException {
+        long started = System.nanoTime();
+        long rowsWritten = 0;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        Long cursor = null;
+        List<Car> page;
+        while (!(page = storage.findPage(cursor, PAGE_SIZE, car -> car.getId() <= upTo.carId())).isEmpty()) {
+            for (Car car : page) {
+                FuelHistory history = car.getFuelHistory();
+                PrimitiveIterator.OfInt rows = exportedRows(car, after, upTo);
+                String carColumns = car.getId() + "," + csv(car.getBrand()) + "," + csv(car.getModel())
+                        + "," + car.getYear() + "," + format(car.getCreatedAt()) + ",";
+
+                if (!rows.hasNext()) {
+                    if (isNew(car, after)) {
+                        writer.write(carColumns);
+                        writer.write(",,,,\n");
+                        rowsWritten++;
+                    }
+                    continue;
+                }
+                while (rows.hasNext()) {
+                    int row = rows.nextInt();
+                    writer.write(carColumns);
+                    writer.write(history.idAt(row) + "," + decimal(history.litersAt(row))
+                            + "," + decimal(history.priceAt(row)) + "," + history.odometerAt(row) + ","
+                            + format(FuelHistory.fromEpochNanos(history.timestampAt(row))));
+                    writer.write('\n');
+                    rowsWritten++;
+                }
+            }
+            cursor = page.get(page.size() - 1).getId();
+        }
+        writer.flush();
+
+        log.info("CSV export finished in {} ms: {} rows",
+                 (System.nanoTime() - started) / 1_000_000, rowsWritten);
+    }
+
+    /**
+     * Rows of a car's entries with IDs in (after, upTo], in time order.
+     * A car's entry IDs grow with its rows, so a car without new entries is
+     * recognized from its last row alone.
+     */
+    private PrimitiveIterator.OfInt exportedRows(Car car, IdWatermark after,
+                                                 IdWatermark upTo) {
+        storage.awaitAppends(car);
+        FuelHistory history = car.getFuelHistory();
+        long from = after != null ? after.fuelEntryId() : Long.MIN_VALUE;
+        int size = history.size();
+        if (size == 0 || history.idAt(size - 1) <= from) {
+            return IntStream.empty().iterator();
+        }
+        PrimitiveIterator.OfInt rows = history.rowsBetween(Long.MIN_VALUE, Long.MAX_VALUE);
+        return IntStream.generate(() -> rows.hasNext() ? rows.nextInt() : -1)
+                .takeWhile(row -> row >= 0)
+                .filter(row -> history.idAt(row) > from && history.idAt(row) <= upTo.fuelEntryId())
+                .iterator();
+    }
+
+    private static boolean isNew(Car car, IdWatermark after) {
+        return after == null || car.getId() > after.carId();
+    }
+
+    private static String format(LocalDateTime timestamp) {
+        return timestamp != null ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp) : "";
+    }
+
+    /**
+     * Shortest decimal that reads back as the same double, without an exponent.
+     */
+    private static String decimal(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Quote a CSV field if it contains a separator, quote or line break.
+     */
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,395 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.dto.CreateCarRequest;
+import com.aem.carfuel.dto.FuelBatchItem;
+import com.aem.carfuel.exception.DuplicateCarException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelBatchItemResult;
+import com.aem.carfuel.model.FuelBatchResult;
+import com.aem.carfuel.model.ImportReject;
+import com.aem.carfuel.model.ImportResult;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.exc.JacksonIOException;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming bulk import of historical fleet data in newline-delimited JSON.
+ *
+ * Each line is one object, either a car or a fuel entry:
+ * {"type":"car","ref":"c1","brand":"Toyota","model":"Corolla","year":2018}
+ * {"type":"fuel","car":"c1","liters":40.0,"price":52.5,"odometer":45000,"timestamp":"2025-12-30T11:00:00"}
+ *
+ * A fuel line names its car either by the {@code ref} of a car line earlier in
+ * the same upload ({@code "car"}) or by an existing car ID ({@code "carId"}).
+ *
+ * The body is read token by token with a streaming parser from the application's
+ * {@link JsonMapper}, so its read settings match the REST API's, and cars and
+ * fuel entries are applied in batches of {@value #BATCH_SIZE} that each wait for
+ * durability once, so memory stays flat regardless of the upload size; only the
+ * car references and the first {@value #MAX_REPORTED_REJECTS} rejects are kept
+ * for the whole import. Buffered cars are always applied before buffered fuel
+ * entries, since a fuel entry can only refer to a car on an earlier line.
+ *
+ * Fields must have their JSON type: a string where text is expected and a number
+ * where a number is expected, integral for year, odometer and carId. A line with
+ * a mistyped field is rejected rather than read as 0.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FleetImportService {
+
+    /**
+     * Number of cars or fuel entries applied to storage at a time
+     */
+    public static final int BATCH_SIZE = 1000;
+
+    /**
+     * Number of rejected lines listed in the result; further rejects are only counted
+     */
+    public static final int MAX_REPORTED_REJECTS = 100;
+
+    private static final long PROGRESS_INTERVAL = 100_000;
+
+    private final CarService carService;
+    private final Validator validator;
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Import cars and fuel entries from an NDJSON stream.
+     *
+     * Lines are applied in order and a bad line never fails the import. Malformed
+     * JSON cannot be skipped reliably, so it stops the import; everything read
+     * before it stays applied.
+     *
+     * @param body the uploaded NDJSON
+     * @return counts, the first rejects, and whether the whole stream was read
+     * @throws IOException if the request body cannot be read
+     */
+    public ImportResult importNdjson(InputStream body) throws IOException {
+        log.info("Starting NDJSON fleet import");
+        ImportRun run = new ImportRun();
+        long started = System.nanoTime();
+
+        try (JsonParser parser = jsonMapper.createParser(body)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                long line = parser.currentTokenLocation().getLineNr();
+                run.linesRead++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    run.reject(line, "Line must be a JSON object");
+                } else {
+                    ImportLine fields = readLine(parser);
+                    if (fields.error != null) {
+                        run.reject(line, fields.error);
+                    } else {
+                        importLine(run, line, fields);
+                    }
+                }
+
+                if (run.linesRead % PROGRESS_INTERVAL == 0) {
+                    log.info("Fleet import progress: {} lines, {} cars, {} entries, {} rejected",
+                             run.linesRead, run.carsCreated, run.entriesAccepted, run.rejected);
+                }
+            }
+        } catch (JacksonIOException e) {
+            throw new IOException("Failed to read the import body", e);
+        } catch (StreamReadException e) {
+            run.error = String.format("Malformed JSON at line %d: %s",
+                    e.getLocation() != null ? e.getLocation().getLineNr() : run.linesRead + 1,
+                    e.getOriginalMessage());
+            log.warn("Fleet import stopped: {}", run.error);
+        }
+        flush(run);
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Fleet import finished in {} ms: {} lines, {} cars, {} entries, {} rejected",
+                 durationMs, run.linesRead, run.carsCreated, run.entriesAccepted, run.rejected);
+
+        return ImportResult.builder()
+                .linesRead(run.linesRead)
+                .carsCreated(run.carsCreated)
+                .entriesAccepted(run.entriesAccepted)
+                .rejected(run.rejected)
+                .rejects(run.rejects)
+                .completed(run.error == null)
+                .error(run.error)
+                .durationMs(durationMs)
+                .build();
+    }
+
+    private void importLine(ImportRun run, long line, ImportLine fields) {
+        if ("car".equals(fields.type)) {
+            importCar(run, line, fields);
+        } else if ("fuel".equals(fields.type)) {
+            importFuel(run, line, fields);
+        } else {
+            run.reject(line, "Unknown line type: " + fields.type);
+        }
+    }
+
+    private void importCar(ImportRun run, long line, ImportLine fields) {
+        CreateCarRequest request = CreateCarRequest.builder()
+                .brand(fields.brand)
+                .model(fields.model)
+                .year(fields.year)
+                .build();
+        Set<ConstraintViolation<CreateCarRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            run.reject(line, violations.iterator().next().getMessage());
+            return;
+        }
+
+        if (fields.ref != null && (run.pendingRefs.contains(fields.ref) || run.carIdsByRef.containsKey(fields.ref))) {
+            // Earlier lines must still resolve the reference to the car it named before
+            flush(run);
+        }
+        run.pendingCars.add(request);
+        run.pendingCarRefs.add(fields.ref);
+        run.pendingCarLines[run.pendingCars.size() - 1] = line;
+        if (fields.ref != null) {
+            run.pendingRefs.add(fields.ref);
+        }
+        if (run.pendingCars.size() == BATCH_SIZE) {
+            flushCars(run);
+        }
+    }
+
+    private void importFuel(ImportRun run, long line, ImportLine fields) {
+        if (fields.carRef != null && !run.pendingRefs.contains(fields.carRef)
+                && !run.carIdsByRef.containsKey(fields.carRef)) {
+            run.reject(line, "Unknown car reference: " + fields.carRef);
+            return;
+        }
+
+        LocalDateTime timestamp = null;
+        if (fields.timestamp != null) {
+            try {
+                timestamp = LocalDateTime.parse(fields.timestamp);
+            } catch (DateTimeParseException e) {
+                run.reject(line, "Invalid timestamp: " + fields.timestamp);
+                return;
+            }
+        }
+
+        run.pending.add(FuelBatchItem.builder()
+                .carId(fields.carId)
+                .liters(fields.liters)
+                .price(fields.price)
+                .odometer(fields.odometer)
+                .timestamp(timestamp)
+                .build());
+        run.pendingEntryRefs[run.pending.size() - 1] = fields.carRef;
+        run.pendingLines[run.pending.size() - 1] = line;
+        if (run.pending.size() == BATCH_SIZE) {
+            flush(run);
+        }
+    }
+
+    /**
+     * Create the buffered cars, register their references and record their rejects.
+     */
+    private void flushCars(ImportRun run) {
+        if (run.pendingCars.isEmpty()) {
+            return;
+        }
+        List<Car> created = carService.createCars(run.pendingCars);
+        for (int i = 0; i < created.size(); i++) {
+            Car car = created.get(i);
+            CreateCarRequest request = run.pendingCars.get(i);
+            if (car == null) {
+                run.reject(run.pendingCarLines[i], new DuplicateCarException(
+                        request.getBrand(), request.getModel(), request.getYear()).getMessage());
+                continue;
+            }
+            run.carsCreated++;
+            String ref = run.pendingCarRefs.get(i);
+            if (ref != null) {
+                run.carIdsByRef.put(ref, car.getId());
+            }
+        }
+        run.pendingCars = new ArrayList<>(BATCH_SIZE);
+        run.pendingCarRefs = new ArrayList<>(BATCH_SIZE);
+        run.pendingRefs.clear();
+    }
+
+    /**
+     * Apply the buffered cars, then the buffered fuel entries, and record their rejects.
+     * Fuel entries that name a car by reference get its ID here, once the car exists.
+     */
+    private void flush(ImportRun run) {
+        flushCars(run);
+        if (run.pending.isEmpty()) {
+            return;
+        }
+
+        List<FuelBatchItem> items = new ArrayList<>(run.pending.size());
+        long[] lines = new long[run.pending.size()];
+        for (int i = 0; i < run.pending.size(); i++) {
+            FuelBatchItem item = run.pending.get(i);
+            String ref = run.pendingEntryRefs[i];
+            if (ref != null) {
+                Long carId = run.carIdsByRef.get(ref);
+                if (carId == null) {
+                    // The car line it refers to was rejected
+                    run.reject(run.pendingLines[i], "Unknown car reference: " + ref);
+                    continue;
+                }
+                item.setCarId(carId);
+            }
+            lines[items.size()] = run.pendingLines[i];
+            items.add(item);
+        }
+
+        FuelBatchResult result = carService.addFuelEntries(items);
+        run.entriesAccepted += result.getAccepted();
+        for (FuelBatchItemResult item : result.getResults()) {
+            if (!item.getAccepted()) {
+                run.reject(lines[item.getIndex()], item.getMessage());
+            }
+        }
+        run.pending = new ArrayList<>(BATCH_SIZE);
+    }
+
+    /**
+     * Read the fields of the current object. Unknown fields are skipped, nested
+     * values included; a known field of the wrong type sets the line's error.
+     */
+    private static ImportLine readLine(JsonParser parser) {
+        ImportLine fields = new ImportLine();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "type" -> fields.type = readString(parser, name, fields);
+                case "ref" -> fields.ref = readString(parser, name, fields);
+                case "brand" -> fields.brand = readString(parser, name, fields);
+                case "model" -> fields.model = readString(parser, name, fields);
+                case "year" -> fields.year = readInt(parser, name, fields);
+                case "car" -> fields.carRef = readString(parser, name, fields);
+                case "carId" -> fields.carId = readLong(parser, name, fields);
+                case "liters" -> fields.liters = readDouble(parser, name, fields);
+                case "price" -> fields.price = readDouble(parser, name, fields);
+                case "odometer" -> fields.odometer = readInt(parser, name, fields);
+                case "timestamp" -> fields.timestamp = readString(parser, name, fields);
+                default -> parser.skipChildren();
+            }
+        }
+        return fields;
+    }
+
+    private static String readString(JsonParser parser, String name, ImportLine fields) {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return parser.getValueAsString();
+        }
+        return mistyped(parser, name, "a string", fields);
+    }
+
+    private static Integer readInt(JsonParser parser, String name, ImportLine fields) {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+                && parser.getNumberType() == JsonParser.NumberType.INT) {
+            return parser.getIntValue();
+        }
+        return mistyped(parser, name, "an integer", fields);
+    }
+
+    private static Long readLong(JsonParser parser, String name, ImportLine fields) {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+                && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+            return parser.getLongValue();
+        }
+        return mistyped(parser, name, "an integer", fields);
+    }
+
+    private static Double readDouble(JsonParser parser, String name, ImportLine fields) {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT
+                || parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+            double value = parser.getDoubleValue();
+            if (Double.isFinite(value)) {
+                return value;
+            }
+        }
+        return mistyped(parser, name, "a finite number", fields);
+    }
+
+    /**
+     * Skip a value of the wrong type and keep the first such error of the line.
+     */
+    private static <T> T mistyped(JsonParser parser, String name, String expected, ImportLine fields) {
+        parser.skipChildren();
+        if (fields.error == null) {
+            fields.error = String.format("Field '%s' must be %s", name, expected);
+        }
+        return null;
+    }
+
+    /**
+     * Fields of one NDJSON line
+     */
+    private static final class ImportLine {
+        String type;
+        String ref;
+        String brand;
+        String model;
+        Integer year;
+        String carRef;
+        Long carId;
+        Double liters;
+        Double price;
+        Integer odometer;
+        String timestamp;
+
+        /**
+         * First field type error, if any
+         */
+        String error;
+    }
+
+    /**
+     * Mutable state of one import
+     */
+    private static final class ImportRun {
+        final Map<String, Long> carIdsByRef = new HashMap<>();
+        final List<ImportReject> rejects = new ArrayList<>();
+        List<CreateCarRequest> pendingCars = new ArrayList<>(BATCH_SIZE);
+        List<String> pendingCarRefs = new ArrayList<>(BATCH_SIZE);
+        final long[] pendingCarLines = new long[BATCH_SIZE];
+        final Set<String> pendingRefs = new HashSet<>();
+        List<FuelBatchItem> pending = new ArrayList<>(BATCH_SIZE);
+        final String[] pendingEntryRefs = new String[BATCH_SIZE];
+        final long[] pendingLines = new long[BATCH_SIZE];
+        long linesRead;
+        long carsCreated;
+        long entriesAccepted;
+        long rejected;
+        String error;
+
+        void reject(long line, String message) {
+            rejected++;
+            if (rejects.size() < MAX_REPORTED_REJECTS) {
+                rejects.add(ImportReject.builder().line(line).message(message).build());
+            }
+        }
+    }
+}
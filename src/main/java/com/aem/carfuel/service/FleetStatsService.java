@@ -0,0 +1,161 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.exception.InvalidRequestException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FleetStats;
+import com.aem.carfuel.model.FuelHistory;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * Fleet-wide fuel statistics, optionally grouped by brand, model and/or year.
+ *
+ * Cars are aggregated with a parallel stream over the storage: each worker
+ * thread fills its own accumulators and the partial results are merged at the
+ * end, so the work scales with the number of cores. Each car contributes its
+ * lock-free {@link FuelHistory.Summary}, so writers are never blocked.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FleetStatsService {
+
+    /**
+     * Car attributes the fleet can be grouped by
+     */
+    public enum GroupBy {
+        BRAND, MODEL, YEAR
+    }
+
+    /**
+     * Values of the grouped attributes; attributes not grouped by are null
+     */
+    private record GroupKey(String brand, String model, Integer year) {
+    }
+
+    private static final Comparator<GroupKey> GROUP_ORDER = Comparator
+            .comparing(GroupKey::brand, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(GroupKey::model, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(GroupKey::year, Comparator.nullsFirst(Comparator.<Integer>naturalOrder()));
+
+    private final InMemoryCarStorage storage;
+
+    /**
+     * Parse a comma-separated group-by list such as "brand,year".
+     *
+     * @param groupBy the list, or null/blank for no grouping
+     * @return the attributes to group by
+     * @throws InvalidRequestException if an attribute is unknown
+     */
+    public static Set<GroupBy> parseGroupBy(String groupBy) {
+        Set<GroupBy> attributes = EnumSet.noneOf(GroupBy.class);
+        if (groupBy == null || groupBy.isBlank()) {
+            return attributes;
+        }
+        for (String name : groupBy.split(",")) {
+            try {
+                attributes.add(GroupBy.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("groupBy must be a list of brand, model and year");
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Aggregate fuel statistics over the whole fleet.
+     *
+     * @param groupBy the attributes to group by; empty for a single fleet-wide result
+     * @return one result per group, ordered by brand, model and year
+     */
+    public List<FleetStats> calculateFleetStats(Set<GroupBy> groupBy) {
+        log.info("Calculating fleet statistics grouped by {}", groupBy);
+        long started = System.nanoTime();
+
+        Function<Car, GroupKey> keyOf = car -> new GroupKey(
+                groupBy.contains(GroupBy.BRAND) ? car.getBrand() : null,
+                groupBy.contains(GroupBy.MODEL) ? car.getModel() : null,
+                groupBy.contains(GroupBy.YEAR) ? car.getYear() : null);
+
+        Collector<Car, Accumulator, Accumulator> aggregate =
+                Collector.of(Accumulator::new, Accumulator::add, Accumulator::merge);
+
+        Map<GroupKey, Accumulator> groups = storage.stream()
+                .parallel()
+                .collect(Collectors.groupingBy(keyOf, aggregate));
+
+        List<FleetStats> stats = groups.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(GROUP_ORDER))
+                .map(group -> group.getValue().toStats(group.getKey()))
+                .toList();
+        if (stats.isEmpty() && groupBy.isEmpty()) {
+            stats = List.of(new Accumulator().toStats(new GroupKey(null, null, null)));
+        }
+
+        log.info("Fleet statistics calculated: {} groups in {} ms",
+                 stats.size(), (System.nanoTime() - started) / 1_000_000);
+        return stats;
+    }
+
+    /**
+     * Running totals of one group, filled by a single thread
+     */
+    private static final class Accumulator {
+        long cars;
+        long entries;
+        double liters;
+        double cost;
+        double consumptionLiters;
+        long consumptionDistance;
+
+        void add(Car car) {
+            FuelHistory.Summary summary = car.getFuelHistory().summary();
+            cars++;
+            entries += summary.size();
+            liters += summary.totalLiters();
+            cost += summary.totalCost();
+
+            // Same rule as per-car statistics: only cars with a usable distance count
+            int distance = summary.lastOdometer() - summary.firstOdometer();
+            if (summary.size() >= 2 && distance > 0) {
+                consumptionLiters += summary.totalLiters();
+                consumptionDistance += distance;
+            }
+        }
+
+        Accumulator merge(Accumulator other) {
+            cars += other.cars;
+            entries += other.entries;
+            liters += other.liters;
+            cost += other.cost;
+            consumptionLiters += other.consumptionLiters;
+            consumptionDistance += other.consumptionDistance;
+            return this;
+        }
+
+        FleetStats toStats(GroupKey key) {
+            return FleetStats.builder()
+                    .brand(key.brand())
+                    .model(key.model())
+                    .year(key.year())
+                    .carsCount(cars)
+                    .totalFuel(liters)
+                    .totalCost(cost)
+                    .avgConsumption(consumptionDistance > 0 ? consumptionLiters / consumptionDistance * 100 : 0.0)
+                    .entriesCount(entries)
+                    .build();
+        }
+    }
+}
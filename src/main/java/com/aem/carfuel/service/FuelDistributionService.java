@@ -0,0 +1,97 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.exception.CarNotFoundException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelDistribution;
+import com.aem.carfuel.model.FuelHistory;
+import com.aem.carfuel.model.LogHistogram;
+import com.aem.carfuel.model.Percentiles;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.stream.Collector;
+
+/**
+ * Percentile statistics of liters per fill, price per liter and per-interval consumption.
+ *
+ * Every car keeps bounded histogram sketches that are updated on each fuel entry.
+ * A car's percentiles are read from its own sketches; fleet percentiles merge the
+ * sketches of all cars in parallel instead of sorting raw entries.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FuelDistributionService {
+
+    private final CarService carService;
+    private final InMemoryCarStorage storage;
+
+    /**
+     * Get the distribution statistics of one car.
+     *
+     * @param carId the car ID
+     * @return percentiles of the car's fuel entries
+     * @throws CarNotFoundException if car not found
+     */
+    public FuelDistribution calculateDistribution(Long carId) {
+        log.info("Calculating fuel distribution for car {}", carId);
+
+        FuelHistory.Distribution distribution = carService.getCarById(carId).getFuelHistory().distribution();
+        return FuelDistribution.builder()
+                .litersPerFill(Percentiles.of(distribution.litersPerFill()))
+                .pricePerLiter(Percentiles.of(distribution.pricePerLiter()))
+                .consumption(Percentiles.of(distribution.consumption()))
+                .build();
+    }
+
+    /**
+     * Get the distribution statistics of the whole fleet by merging the per-car sketches.
+     *
+     * @return percentiles over all fuel entries of all cars
+     */
+    public FuelDistribution calculateFleetDistribution() {
+        log.info("Calculating fleet fuel distribution");
+        long started = System.nanoTime();
+
+        Accumulator merged = storage.stream()
+                .parallel()
+                .collect(Collector.of(Accumulator::new, Accumulator::add, Accumulator::merge));
+
+        log.info("Fleet fuel distribution of {} cars calculated in {} ms",
+                 merged.cars, (System.nanoTime() - started) / 1_000_000);
+        return FuelDistribution.builder()
+                .carsCount(merged.cars)
+                .litersPerFill(Percentiles.of(merged.litersPerFill))
+                .pricePerLiter(Percentiles.of(merged.pricePerLiter))
+                .consumption(Percentiles.of(merged.consumption))
+                .build();
+    }
+
+    /**
+     * Merged sketches of the cars seen by one thread
+     */
+    private static final class Accumulator {
+        final LogHistogram litersPerFill = new LogHistogram();
+        final LogHistogram pricePerLiter = new LogHistogram();
+        final LogHistogram consumption = new LogHistogram();
+        long cars;
+
+        void add(Car car) {
+            FuelHistory.Distribution distribution = car.getFuelHistory().distribution();
+            litersPerFill.merge(distribution.litersPerFill());
+            pricePerLiter.merge(distribution.pricePerLiter());
+            consumption.merge(distribution.consumption());
+            cars++;
+        }
+
+        Accumulator merge(Accumulator other) {
+            litersPerFill.merge(other.litersPerFill);
+            pricePerLiter.merge(other.pricePerLiter);
+            consumption.merge(other.consumption);
+            cars += other.cars;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.exception.InvalidRequestException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelHistory;
+import com.aem.carfuel.model.LeaderboardEntry;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Live leaderboards of the cars with the highest consumption and the highest total cost.
+ *
+ * Each metric keeps its cars ordered by value in a concurrent skip list, which is
+ * updated whenever a fuel entry changes a car's aggregates. Reading the top K walks
+ * the first K nodes, so it costs O(K) regardless of fleet size, and it never blocks
+ * writers. A car moving while the ranking is walked may be met at both its old and
+ * its new position; only the first, higher one is reported.
+ */
+@Service
+@Slf4j
+public class LeaderboardService {
+
+    /**
+     * Ranked metrics
+     */
+    public enum Metric {
+        /**
+         * Lifetime average consumption in L/100km; cars without a usable distance are not ranked
+         */
+        CONSUMPTION,
+        /**
+         * Total money spent on fuel; cars without entries are not ranked
+         */
+        COST
+    }
+
+    /**
+     * A car's ranked value; highest values first, ties by car ID
+     */
+    private record Ranked(double value, long carId) implements Comparable<Ranked> {
+        @Override
+        public int compareTo(Ranked other) {
+            int byValue = Double.compare(other.value, value);
+            return byValue != 0 ? byValue : Long.compare(carId, other.carId);
+        }
+    }
+
+    private final InMemoryCarStorage storage;
+    private final Map<Metric, Leaderboard> leaderboards = new EnumMap<>(Metric.class);
+
+    public LeaderboardService(
+            InMemoryCarStorage storage,
+            @Value("${carfuel.leaderboard.consumption.size:50}") int consumptionSize,
+            @Value("${carfuel.leaderboard.cost.size:50}") int costSize) {
+        this.storage = storage;
+        leaderboards.put(Metric.CONSUMPTION, new Leaderboard(Math.max(1, consumptionSize)));
+        leaderboards.put(Metric.COST, new Leaderboard(Math.max(1, costSize)));
+
+        // Rank the cars recovered by the storage
+        storage.stream().forEach(this::update);
+        log.info("Leaderboards initialized with {} cars", storage.count());
+    }
+
+    /**
+     * Parse a metric name such as "consumption".
+     *
+     * @throws InvalidRequestException if the metric is unknown
+     */
+    public static Metric parseMetric(String name) {
+        try {
+            return Metric.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("metric must be consumption or cost");
+        }
+    }
+
+    /**
+     * Re-rank a car after its fuel history changed.
+     * Runs under the car's per-car lock, so updates of one car are applied in order.
+     *
+     * @param car the car whose aggregates changed
+     */
+    public void update(Car car) {
+        car.getFuelHistory().appendLock().lock();
+        try {
+            FuelHistory.Summary summary = car.getFuelHistory().summary();
+            int distance = summary.lastOdometer() - summary.firstOdometer();
+            leaderboards.get(Metric.CONSUMPTION).put(car.getId(),
+                    summary.size() >= 2 && distance > 0
+                            ? summary.totalLiters() / distance * 100
+                            : Double.NaN);
+            leaderboards.get(Metric.COST).put(car.getId(),
+                    summary.isEmpty() ? Double.NaN : summary.totalCost());
+        } finally {
+            car.getFuelHistory().appendLock().unlock();
+        }
+    }
+
+    /**
+     * Get the top cars of a metric.
+     *
+     * @param metric the ranked metric
+     * @param limit number of cars to return, or null for the configured size
+     * @return the cars with the highest values, best first
+     * @throws InvalidRequestException if the limit is not between 1 and the configured size
+     */
+    public List<LeaderboardEntry> top(Metric metric, Integer limit) {
+        Leaderboard leaderboard = leaderboards.get(metric);
+        int k = limit != null ? limit : leaderboard.size;
+        if (k < 1 || k > leaderboard.size) {
+            throw new InvalidRequestException(
+                String.format("limit must be between 1 and %d", leaderboard.size));
+        }
+
+        List<LeaderboardEntry> entries = new ArrayList<>(k);
+        Set<Long> ranked = new HashSet<>();
+        Iterator<Ranked> ranking = leaderboard.ranking.iterator();
+        while (ranking.hasNext() && entries.size() < k) {
+            Ranked next = ranking.next();
+            if (!ranked.add(next.carId())) {
+                continue; // Moved down while being read
+            }
+            storage.findById(next.carId()).ifPresent(car -> entries.add(LeaderboardEntry.builder()
+                    .rank(entries.size() + 1)
+                    .carId(car.getId())
+                    .brand(car.getBrand())
+                    .model(car.getModel())
+                    .year(car.getYear())
+                    .value(next.value())
+                    .build()));
+        }
+        return entries;
+    }
+
+    /**
+     * Ranking of one metric
+     */
+    private static final class Leaderboard {
+        final int size;
+        final ConcurrentSkipListSet<Ranked> ranking = new ConcurrentSkipListSet<>();
+        final Map<Long, Ranked> byCar = new ConcurrentHashMap<>();
+
+        Leaderboard(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Move a car to its new value; NaN removes it from the ranking
+         */
+        void put(long carId, double value) {
+            Ranked current = Double.isNaN(value) ? null : new Ranked(value, carId);
+            Ranked previous = current == null ? byCar.remove(carId) : byCar.put(carId, current);
+            if (previous != null && !previous.equals(current)) {
+                ranking.remove(previous);
+            }
+            if (current != null) {
+                ranking.add(current);
+            }
+        }
+    }
+}
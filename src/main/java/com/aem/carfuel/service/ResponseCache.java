@@ -0,0 +1,184 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.model.Car;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of pre-serialized UTF-8 JSON responses per car and view.
+ *
+ * Every entry is tagged with the car version it was built for and is only served
+ * while the car still has that version, so a write invalidates all views of a
+ * car atomically, even if a reader stores an old rendering concurrently. Writers
+ * also evict the car's entries eagerly to free memory. Concurrent misses for the
+ * same car version are coalesced, so a burst of readers after a write renders once.
+ *
+ * Entries live in a {@link ConcurrentHashMap}, so hits take no lock; a hit only
+ * stamps the entry with its access time. Beyond the capacity, the least recently
+ * used of a small random sample of entries is evicted, which approximates LRU
+ * without ordering every access. Responses are rendered with the JSON mapper
+ * Spring MVC uses, so a cached body is byte for byte what MVC would write.
+ */
+@Component
+@Slf4j
+public class ResponseCache {
+
+    /**
+     * Cached representations of a car
+     */
+    public enum View {
+        /**
+         * The full car, as returned by GET /api/cars/{id}
+         */
+        CAR,
+        /**
+         * Lifetime fuel statistics
+         */
+        STATS
+    }
+
+    /**
+     * Number of entries compared to choose one to evict
+     */
+    static final int EVICTION_SAMPLE = 8;
+
+    private record Key(long carId, View view) {
+    }
+
+    private static final class Entry {
+
+        final long version;
+        final byte[] body;
+
+        /**
+         * Last access as System.nanoTime; racing stamps are harmless, any of them is recent
+         */
+        long accessed;
+
+        Entry(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+            this.accessed = System.nanoTime();
+        }
+    }
+
+    private record Rendering(Key key, long version) {
+    }
+
+    private final JsonMapper jsonMapper;
+    private final int capacity;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final SingleFlight<Rendering, byte[]> renderings = new SingleFlight<>();
+
+    public ResponseCache(JsonMapper jsonMapper, @Value("${carfuel.cache.max-entries:10000}") int maxEntries) {
+        this.jsonMapper = jsonMapper;
+        this.capacity = Math.max(1, maxEntries);
+        log.info("Response cache holds up to {} entries", capacity);
+    }
+
+    /**
+     * Get the serialized view of a car, building and caching it if it is missing or stale.
+     *
+     * @param car the car
+     * @param view which representation
+     * @param body builds the object to serialize on a miss
+     * @return the UTF-8 JSON bytes
+     */
+    public byte[] get(Car car, View view, Supplier<?> body) {
+        // Read the version first, so a concurrent write can only make the rendering newer than its tag
+        long version = car.getVersion();
+        Key key = new Key(car.getId(), view);
+
+        Entry cached = entries.get(key);
+        if (cached != null && cached.version == version) {
+            cached.accessed = System.nanoTime();
+            return cached.body;
+        }
+
+        // Concurrent misses for the same version render once and share the bytes
+        byte[] bytes = renderings.execute(new Rendering(key, version),
+                () -> jsonMapper.writeValueAsBytes(body.get()));
+
+        Entry rendered = new Entry(version, bytes);
+        if (entries.merge(key, rendered, (current, fresh) -> current.version < fresh.version ? fresh : current)
+                == rendered) {
+            evictBeyondCapacity();
+        }
+        return bytes;
+    }
+
+    /**
+     * Drop all cached views of a car.
+     */
+    public void invalidate(Long carId) {
+        for (View view : View.values()) {
+            entries.remove(new Key(carId, view));
+        }
+    }
+
+    /**
+     * Evict sampled least recently used entries until the cache fits its capacity.
+     */
+    private void evictBeyondCapacity() {
+        while (entries.size() > capacity) {
+            Map.Entry<Key, Entry> victim = leastRecentlyUsedOfSample();
+            if (victim == null) {
+                return; // Emptied concurrently
+            }
+            entries.remove(victim.getKey(), victim.getValue());
+        }
+    }
+
+    /**
+     * Pick the least recently used of about {@value #EVICTION_SAMPLE} entries from
+     * a random part of the map, topped up from its start if that part is sparse.
+     */
+    private Map.Entry<Key, Entry> leastRecentlyUsedOfSample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Splitting a ConcurrentHashMap spliterator halves its table range in constant time
+        Spliterator<Map.Entry<Key, Entry>> region = entries.entrySet().spliterator();
+        while (region.estimateSize() > EVICTION_SAMPLE) {
+            Spliterator<Map.Entry<Key, Entry>> prefix = region.trySplit();
+            if (prefix == null) {
+                break;
+            }
+            if (random.nextBoolean()) {
+                region = prefix;
+            }
+        }
+
+        Sample sample = new Sample();
+        while (sample.size < EVICTION_SAMPLE && region.tryAdvance(sample)) {
+            // Each advance adds one entry
+        }
+        Spliterator<Map.Entry<Key, Entry>> start = entries.entrySet().spliterator();
+        while (sample.size < EVICTION_SAMPLE && start.tryAdvance(sample)) {
+            // Top up the sample from the start of the table
+        }
+        return sample.oldest;
+    }
+
+    private static final class Sample implements Consumer<Map.Entry<Key, Entry>> {
+
+        int size;
+        Map.Entry<Key, Entry> oldest;
+
+        @Override
+        public void accept(Map.Entry<Key, Entry> candidate) {
+            size++;
+            if (oldest == null || candidate.getValue().accessed - oldest.getValue().accessed < 0) {
+                oldest = candidate;
+            }
+        }
+    }
+}
@@ -1,23 +1,48 @@
 package com.aem.carfuel.servlet;
 
 import com.aem.carfuel.exception.CarNotFoundException;
-import com.aem.carfuel.model.FuelStats;
+import com.aem.carfuel.model.Car;
 import com.aem.carfuel.service.CarService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.aem.carfuel.service.ResponseCache;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Manual servlet implementation for retrieving fuel statistics.
  * Demonstrates traditional servlet handling without Spring MVC annotations.
  * 
- * Endpoint: GET /servlet/fuel-stats?carId={id}
+ * Endpoints:
+ * - GET /servlet/fuel-stats?carId={id} returns the stats of one car
+ * - GET /servlet/fuel-stats?carId=1,2,3 or POST /servlet/fuel-stats with a JSON
+ *   array of car IDs returns a JSON array with one result per car
+ * 
+ * Multi-car reports run asynchronously: the request is put into async mode, a
+ * POST body is collected by a non-blocking {@link ReadListener}, and the results
+ * are computed on the servlet's own executor and streamed back through a
+ * non-blocking {@link WriteListener}, one element whenever the connection can take
+ * more. Container and report threads never wait for the client, so a slow client
+ * only slows down its own report.
  * 
  * This servlet uses the same CarService as the REST controller,
  * demonstrating code reuse between traditional servlets and Spring REST APIs.
@@ -25,8 +50,26 @@ import java.io.PrintWriter;
 @Slf4j
 public class FuelStatsServlet extends HttpServlet {
     
+    /**
+     * Largest number of cars in one report
+     */
+    public static final int MAX_CAR_IDS = 10_000;
+    
+    private static final long ASYNC_TIMEOUT_MS = 300_000;
+    
+    /**
+     * Largest accepted POST body: every ID with its separator and some whitespace
+     */
+    private static final int MAX_BODY_BYTES = MAX_CAR_IDS * 32;
+    
+    private static final String INVALID_BODY = "Request body must be a JSON array of car IDs";
+    
     private CarService carService;
-    private ObjectMapper objectMapper;
+    private ResponseCache responseCache;
+    private JsonMapper jsonMapper;
+    private int workerThreads = Runtime.getRuntime().availableProcessors();
+    private boolean virtualThreads;
+    private ExecutorService executor;
     
     /**
      * Setter for dependency injection from ServletConfig
@@ -36,24 +79,76 @@ public class FuelStatsServlet extends HttpServlet {
     }
     
     /**
-     * Initialize the servlet with an ObjectMapper for JSON serialization
+     * Setter for dependency injection from ServletConfig.
+     * Stats responses are served as pre-serialized JSON from this cache.
+     */
+    public void setResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+    
+    /**
+     * Setter for dependency injection from ServletConfig.
+     * Report requests and error bodies are read and written with Spring's JSON mapper.
+     */
+    public void setJsonMapper(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+    
+    /**
+     * Setter for the number of threads computing multi-car reports, from ServletConfig
+     */
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+    
+    /**
+     * Setter for running multi-car reports on virtual threads, from ServletConfig.
+     * When set, every report drain gets its own virtual thread and the thread count is ignored.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+    
+    /**
+     * Initialize the servlet and its report executor
      */
     @Override
     public void init() throws ServletException {
         super.init();
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.findAndRegisterModules(); // Register JavaTimeModule for LocalDateTime
-        log.info("FuelStatsServlet initialized");
+        if (virtualThreads) {
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("fuel-stats-", 1).factory());
+            log.info("FuelStatsServlet initialized with virtual report threads");
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, workerThreads), r -> {
+            Thread thread = new Thread(r, "fuel-stats-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("FuelStatsServlet initialized with {} report threads", Math.max(1, workerThreads));
+    }
+    
+    /**
+     * Stop the report executor
+     */
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        super.destroy();
     }
     
     /**
      * Handle GET requests to retrieve fuel statistics.
      * 
      * Query Parameters:
-     * - carId (required): The ID of the car
+     * - carId (required): The ID of the car, or a comma-separated list of IDs
+     * 
+     * With a list, the response is streamed asynchronously as described on the class.
      * 
      * Response:
-     * - 200 OK: Returns FuelStats as JSON
+     * - 200 OK: Returns FuelStats as JSON, with the car's version as ETag
+     * - 304 Not Modified: If If-None-Match holds the current ETag
      * - 400 Bad Request: If carId is missing or invalid
      * - 404 Not Found: If car doesn't exist
      * - 500 Internal Server Error: For unexpected errors
@@ -68,8 +163,6 @@ public class FuelStatsServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
-        PrintWriter out = response.getWriter();
-        
         try {
             // Manual parameter extraction
             String carIdParam = request.getParameter("carId");
@@ -77,8 +170,21 @@ public class FuelStatsServlet extends HttpServlet {
             // Manual validation
             if (carIdParam == null || carIdParam.trim().isEmpty()) {
                 log.warn("Servlet: Missing carId parameter");
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                out.write("{\"message\":\"carId query parameter is required\",\"status\":400}");
+                sendError(response, HttpServletResponse.SC_BAD_REQUEST, "carId query parameter is required");
+                return;
+            }
+            
+            // Several cars: stream a report asynchronously
+            if (carIdParam.contains(",")) {
+                long[] carIds;
+                try {
+                    carIds = parseCarIds(carIdParam);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Servlet: Invalid carId list: {}", e.getMessage());
+                    sendError(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                    return;
+                }
+                startReport(request.startAsync(), response, carIds, null);
                 return;
             }
             
@@ -88,47 +194,354 @@ public class FuelStatsServlet extends HttpServlet {
                 carId = Long.parseLong(carIdParam);
             } catch (NumberFormatException e) {
                 log.warn("Servlet: Invalid carId format: {}", carIdParam);
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                out.write("{\"message\":\"carId must be a valid number\",\"status\":400}");
+                sendError(response, HttpServletResponse.SC_BAD_REQUEST, "carId must be a valid number");
                 return;
             }
             
-            log.info("Servlet: Calculating stats for car {}", carId);
-            
-            // Use service layer (same as REST controller)
-            FuelStats stats = carService.calculateStats(carId);
+            // Conditional GET: answer with headers only if the car has not changed
+            Car car = carService.getCarById(carId);
+            String etag = car.getETag();
+            response.setHeader("ETag", etag);
+            if (matchesETag(request.getHeader("If-None-Match"), etag)) {
+                log.info("Servlet: Stats for car {} not modified", carId);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
             
-            // Manual JSON serialization
-            String jsonResponse = objectMapper.writeValueAsString(stats);
+            // Use service layer (same as REST controller); cached bytes skip building and serialization
+            byte[] body = responseCache.get(car, ResponseCache.View.STATS, () -> carService.calculateStats(carId));
             
             response.setStatus(HttpServletResponse.SC_OK);
-            out.write(jsonResponse);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
             
             log.info("Servlet: Successfully returned stats for car {}", carId);
             
         } catch (CarNotFoundException e) {
             log.warn("Servlet: Car not found - {}", e.getMessage());
-            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
-            out.write(String.format("{\"message\":\"%s\",\"status\":404}", e.getMessage()));
+            sendError(response, HttpServletResponse.SC_NOT_FOUND, e.getMessage());
             
         } catch (Exception e) {
             log.error("Servlet: Unexpected error", e);
-            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            out.write(String.format("{\"message\":\"Internal server error: %s\",\"status\":500}", 
-                                   e.getMessage()));
-        } finally {
-            out.flush();
+            if (!response.isCommitted()) {
+                response.resetBuffer();
+                sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                          "Internal server error: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Write a JSON error body. Like successful responses it goes through the
+     * output stream, since a response cannot switch to its writer afterwards.
+     */
+    private void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        byte[] body = errorBody(status, message);
+        response.setStatus(status);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+    
+    private byte[] errorBody(int status, String message) {
+        return jsonMapper.writeValueAsBytes(jsonMapper.createObjectNode()
+                .put("message", message)
+                .put("status", status));
+    }
+    
+    /**
+     * Check an If-None-Match header against the current entity tag.
+     * The header may list several tags or be "*"; weak tags match by value.
+     */
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
         }
+        return false;
     }
     
     /**
-     * Provide information about supported methods
+     * Handle POST requests with a JSON array of car IDs, e.g. [1, 2, 3].
+     * The body is read without blocking as it arrives, then the results are
+     * streamed asynchronously as a JSON array.
      */
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
-        response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+        log.info("Servlet: Received request for a fuel stats report");
+        
         response.setContentType("application/json");
-        response.getWriter().write("{\"message\":\"Only GET method is supported\",\"status\":405}");
+        response.setCharacterEncoding("UTF-8");
+        AsyncContext async = request.startAsync();
+        async.setTimeout(ASYNC_TIMEOUT_MS);
+        ServletInputStream in = request.getInputStream();
+        in.setReadListener(new ReportRequest(async, response, in));
+    }
+    
+    /**
+     * Parse a comma-separated list of car IDs.
+     *
+     * @throws IllegalArgumentException if an ID is not a number or there are too many
+     */
+    private static long[] parseCarIds(String carIdParam) {
+        String[] parts = carIdParam.split(",");
+        long[] carIds = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                carIds[i] = Long.parseLong(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("carId must be a comma-separated list of numbers");
+            }
+        }
+        return checkCount(carIds);
+    }
+    
+    private static long[] checkCount(long[] carIds) {
+        if (carIds.length == 0 || carIds.length > MAX_CAR_IDS) {
+            throw new IllegalArgumentException(
+                String.format("A report must contain between 1 and %d car IDs", MAX_CAR_IDS));
+        }
+        return carIds;
+    }
+    
+    /**
+     * Stream a report, or a 400 error, from the executor. The request must already be in async mode.
+     *
+     * @param carIds the cars of the report, or null to answer with the error
+     * @param error why the report request is invalid, if it is
+     */
+    private void startReport(AsyncContext async, HttpServletResponse response,
+                             long[] carIds, String error) throws IOException {
+        async.setTimeout(ASYNC_TIMEOUT_MS);
+        
+        byte[] errorBody = null;
+        if (carIds == null) {
+            log.warn("Servlet: Invalid report request - {}", error);
+            errorBody = errorBody(HttpServletResponse.SC_BAD_REQUEST, error);
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentLength(errorBody.length);
+        }
+        
+        StatsReport report = new StatsReport(async, response, carIds, errorBody);
+        async.addListener(report);
+        response.getOutputStream().setWriteListener(report);
+    }
+    
+    /**
+     * Collects the body of a POST report request as the container makes it
+     * available, then starts the report.
+     */
+    private final class ReportRequest implements ReadListener {
+        
+        private final AsyncContext async;
+        private final HttpServletResponse response;
+        private final ServletInputStream in;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        private final byte[] buffer = new byte[8192];
+        private boolean tooLarge;
+        
+        ReportRequest(AsyncContext async, HttpServletResponse response, ServletInputStream in) {
+            this.async = async;
+            this.response = response;
+            this.in = in;
+        }
+        
+        @Override
+        public void onDataAvailable() throws IOException {
+            // Read only what is already there; the container calls back when more arrives
+            while (in.isReady() && !in.isFinished()) {
+                int read = in.read(buffer);
+                if (read < 0) {
+                    return;
+                }
+                // Past the limit the rest is still read, so the request completes, but not kept
+                tooLarge |= body.size() + read > MAX_BODY_BYTES;
+                if (!tooLarge) {
+                    body.write(buffer, 0, read);
+                }
+            }
+        }
+        
+        @Override
+        public void onAllDataRead() throws IOException {
+            long[] carIds = null;
+            String error = null;
+            try {
+                if (tooLarge) {
+                    throw new IllegalArgumentException(
+                        String.format("Request body must not exceed %d bytes", MAX_BODY_BYTES));
+                }
+                long[] parsed = jsonMapper.readValue(body.toByteArray(), long[].class);
+                if (parsed == null) {
+                    throw new IllegalArgumentException(INVALID_BODY);
+                }
+                carIds = checkCount(parsed);
+            } catch (JacksonException e) {
+                error = INVALID_BODY;
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            startReport(async, response, carIds, error);
+        }
+        
+        @Override
+        public void onError(Throwable t) {
+            log.warn("Servlet: Reading fuel stats report request failed - {}", t.getMessage());
+            async.complete();
+        }
+    }
+    
+    /**
+     * One asynchronous multi-car report, or the error answering an invalid one.
+     * 
+     * The container calls {@link #onWritePossible()} whenever the connection can
+     * take more data; it only hands {@link #drain()} to the executor, which computes
+     * and writes elements while the output stays ready. Drains never overlap, so the
+     * output stream is only ever used by one thread at a time.
+     */
+    private final class StatsReport implements WriteListener, AsyncListener {
+        
+        private final AsyncContext async;
+        private final ServletOutputStream out;
+        private final long[] carIds;
+        
+        /**
+         * Body of the 400 response to write instead of a report, or null
+         */
+        private final byte[] errorBody;
+        
+        /**
+         * Next element to write; -1 until the opening bracket is written
+         */
+        private int next = -1;
+        private boolean finished;
+        
+        /**
+         * Keeps drains from overlapping; not a monitor, since a drain on a virtual
+         * thread may wait for a shared stats computation
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        StatsReport(AsyncContext async, HttpServletResponse response, long[] carIds, byte[] errorBody)
+                throws IOException {
+            this.async = async;
+            this.out = response.getOutputStream();
+            this.carIds = carIds;
+            this.errorBody = errorBody;
+        }
+        
+        @Override
+        public void onWritePossible() {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                log.warn("Servlet: Report executor is shut down");
+                finish();
+            }
+        }
+        
+        @Override
+        public void onError(Throwable t) {
+            log.warn("Servlet: Fuel stats report aborted - {}", t.getMessage());
+            finish();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            log.warn("Servlet: Fuel stats report timed out after {} of {} cars",
+                     Math.max(0, next), carIds != null ? carIds.length : 0);
+            finish();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            onError(event.getThrowable());
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+        
+        private void drain() {
+            lock.lock();
+            try {
+                if (finished) {
+                    return;
+                }
+                while (out.isReady()) {
+                    if (errorBody != null) {
+                        out.write(errorBody);
+                        finish();
+                        return;
+                    } else if (next < 0) {
+                        log.info("Servlet: Streaming fuel stats for {} cars", carIds.length);
+                        out.write('[');
+                        next = 0;
+                    } else if (next < carIds.length) {
+                        out.write(element(carIds[next], next > 0));
+                        next++;
+                    } else {
+                        out.write(']');
+                        log.info("Servlet: Streamed fuel stats for {} cars", carIds.length);
+                        finish();
+                        return;
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Servlet: Fuel stats report failed", e);
+                finish();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        /**
+         * One array element: the stats of a car, or why they are missing
+         */
+        private byte[] element(long carId, boolean separator) throws IOException {
+            ByteArrayOutputStream element = new ByteArrayOutputStream(160);
+            if (separator) {
+                element.write(',');
+            }
+            try {
+                Car car = carService.getCarById(carId);
+                byte[] stats = responseCache.get(car, ResponseCache.View.STATS, () -> carService.calculateStats(carId));
+                element.write(String.format("{\"carId\":%d,\"status\":200,\"stats\":", carId)
+                        .getBytes(StandardCharsets.UTF_8));
+                element.write(stats);
+                element.write('}');
+            } catch (CarNotFoundException e) {
+                // The message is written by the mapper, so it is escaped like any other JSON string
+                element.write(jsonMapper.writeValueAsBytes(jsonMapper.createObjectNode()
+                        .put("carId", carId)
+                        .put("status", HttpServletResponse.SC_NOT_FOUND)
+                        .put("message", e.getMessage())));
+            }
+            return element.toByteArray();
+        }
+        
+        private void finish() {
+            lock.lock();
+            try {
+                if (!finished) {
+                    finished = true;
+                    async.complete();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 }
@@ -0,0 +1,175 @@
+package com.aem.carfuel.storage;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link DataInput} view over a {@link ByteBuffer}.
+ * Lets {@link CarBinaryCodec} decode straight from a memory-mapped file without copying.
+ *
+ * A single mapping is limited to 2 GiB, so larger files are read through a
+ * window that is remapped at the current position whenever the next value does
+ * not fit in it; values that straddle two windows are therefore never split.
+ */
+class ByteBufferDataInput implements DataInput {
+
+    private final FileChannel channel;
+    private final long limit;
+    private final int windowSize;
+
+    private ByteBuffer buffer;
+
+    /**
+     * File offset of the first byte of the current window
+     */
+    private long windowStart;
+
+    ByteBufferDataInput(ByteBuffer buffer) {
+        this.channel = null;
+        this.limit = buffer.limit();
+        this.windowSize = buffer.limit();
+        this.buffer = buffer;
+    }
+
+    /**
+     * Read the first {@code limit} bytes of a file through read-only mappings of
+     * at most {@code windowSize} bytes each.
+     */
+    ByteBufferDataInput(FileChannel channel, long limit, int windowSize) throws IOException {
+        this.channel = channel;
+        this.limit = limit;
+        this.windowSize = windowSize;
+        map(0, 0);
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!buffer.hasRemaining()) {
+                require(1);
+            }
+            int chunk = Math.min(len, buffer.remaining());
+            try {
+                buffer.get(b, off, chunk);
+            } catch (BufferUnderflowException e) {
+                throw new EOFException();
+            }
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        int skipped = (int) Math.min(n, limit - position());
+        if (skipped <= buffer.remaining()) {
+            buffer.position(buffer.position() + skipped);
+        } else {
+            map(position() + skipped, 0);
+        }
+        return skipped;
+    }
+
+    /**
+     * Offset of the next byte to read
+     */
+    long position() {
+        return windowStart + buffer.position();
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        require(Byte.BYTES);
+        return buffer.get();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(Short.BYTES);
+        return buffer.getShort();
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        require(Character.BYTES);
+        return buffer.getChar();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        require(Float.BYTES);
+        return buffer.getFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        require(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    @Override
+    public String readLine() {
+        throw new UnsupportedOperationException("readLine is not supported");
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (channel == null || position() + bytes > limit) {
+            throw new EOFException();
+        }
+        map(position(), bytes);
+    }
+
+    /**
+     * Map the window starting at a file offset, at least {@code bytes} long if the file allows.
+     */
+    private void map(long start, int bytes) throws IOException {
+        long size = Math.min(Math.max(windowSize, bytes), limit - start);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+    }
+}
@@ -0,0 +1,82 @@
+package com.aem.carfuel.storage;
+
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelHistory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed-layout binary encoding of cars and fuel entries.
+ * Shared by the write-ahead log and snapshots so both use the same record layout.
+ *
+ * Timestamps are stored as nanoseconds since the epoch (UTC), the same
+ * representation {@link FuelHistory} keeps in memory.
+ */
+public final class CarBinaryCodec {
+
+    private CarBinaryCodec() {
+    }
+
+    /**
+     * Write the car header (id, brand, model, year, createdAt) without its fuel entries.
+     */
+    public static void writeCar(DataOutput out, Car car) throws IOException {
+        out.writeLong(car.getId());
+        out.writeUTF(car.getBrand());
+        out.writeUTF(car.getModel());
+        out.writeInt(car.getYear());
+        out.writeLong(FuelHistory.toEpochNanos(car.getCreatedAt()));
+    }
+
+    /**
+     * Read a car header written by {@link #writeCar(DataOutput, Car)}.
+     */
+    public static Car readCar(DataInput in) throws IOException {
+        return Car.builder()
+                .id(in.readLong())
+                .brand(in.readUTF())
+                .model(in.readUTF())
+                .year(in.readInt())
+                .createdAt(FuelHistory.fromEpochNanos(in.readLong()))
+                .build();
+    }
+
+    /**
+     * Write a single fuel entry.
+     */
+    public static void writeFuelEntry(DataOutput out, FuelEntry entry) throws IOException {
+        out.writeLong(entry.getId());
+        out.writeDouble(entry.getLiters());
+        out.writeDouble(entry.getPrice());
+        out.writeInt(entry.getOdometer());
+        out.writeLong(FuelHistory.toEpochNanos(entry.getTimestamp()));
+    }
+
+    /**
+     * Write one entry of a columnar history without building a {@link FuelEntry} view.
+     * Produces the same bytes as {@link #writeFuelEntry(DataOutput, FuelEntry)}.
+     */
+    public static void writeFuelEntry(DataOutput out, FuelHistory history, int index) throws IOException {
+        out.writeLong(history.idAt(index));
+        out.writeDouble(history.litersAt(index));
+        out.writeDouble(history.priceAt(index));
+        out.writeInt(history.odometerAt(index));
+        out.writeLong(history.timestampAt(index));
+    }
+
+    /**
+     * Read a fuel entry written by {@link #writeFuelEntry(DataOutput, FuelEntry)}.
+     */
+    public static FuelEntry readFuelEntry(DataInput in) throws IOException {
+        return FuelEntry.builder()
+                .id(in.readLong())
+                .liters(in.readDouble())
+                .price(in.readDouble())
+                .odometer(in.readInt())
+                .timestamp(FuelHistory.fromEpochNanos(in.readLong()))
+                .build();
+    }
+}
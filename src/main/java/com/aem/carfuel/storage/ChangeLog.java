@@ -0,0 +1,141 @@
+package com.aem.carfuel.storage;
+
+import com.aem.carfuel.model.Change;
+import com.aem.carfuel.model.ChangeFeed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded in-memory record of the latest storage mutations, numbered by a
+ * global sequence.
+ *
+ * Changes are kept in a ring of fixed capacity, so reading the changes after a
+ * sequence costs O(returned) and memory stays bounded. Numbering and storing a
+ * change is a single short critical section, so readers always see a gap-free
+ * prefix of the sequence. Once a reader's position has been overwritten it is
+ * told to resync.
+ *
+ * Changes are recorded as they are applied, together with the write-ahead log
+ * record that makes them durable, but readers only get the prefix whose records
+ * are known to be on disk. A change lost in a crash was therefore never handed
+ * out, and the sequences numbered again after the restart cannot be mistaken
+ * for it.
+ */
+@Component
+@Slf4j
+public class ChangeLog {
+
+    private final Change[] ring;
+
+    /**
+     * Write-ahead log sequence of each change in the ring
+     */
+    private final long[] walSequences;
+
+    /**
+     * Sequence of the newest change
+     */
+    private long latestSequence;
+
+    /**
+     * Sequence of the newest change handed out to readers; all changes up to it are durable
+     */
+    private long visibleSequence;
+
+    /**
+     * Sequence before the first change recorded by this process
+     */
+    private long startSequence;
+
+    public ChangeLog(@Value("${carfuel.changes.capacity:65536}") int capacity) {
+        this.ring = new Change[Math.max(1, capacity)];
+        this.walSequences = new long[ring.length];
+        log.info("Change log retains the latest {} changes", ring.length);
+    }
+
+    /**
+     * Continue numbering after the given sequence; called once the storage is recovered.
+     * Changes from before are not retained, so readers positioned before it must resync.
+     */
+    public synchronized void startAt(long sequence) {
+        this.startSequence = sequence;
+        this.latestSequence = sequence;
+        this.visibleSequence = sequence;
+    }
+
+    /**
+     * Drop all retained changes and continue numbering past every sequence handed
+     * out so far, and past those a restart from the write-ahead log would reuse.
+     * Every reader is told to resync on its next read.
+     */
+    public synchronized void reset() {
+        startAt(Math.max(latestSequence + 1, System.currentTimeMillis() * 1000));
+    }
+
+    /**
+     * Number a change and retain it, evicting the oldest one when full.
+     *
+     * @param change the change; its sequence is assigned here
+     * @param walSequence the write-ahead log record of the change, or 0 without the log
+     * @return the assigned sequence
+     */
+    public synchronized long record(Change change, long walSequence) {
+        long sequence = ++latestSequence;
+        change.setSequence(sequence);
+        int index = (int) (sequence % ring.length);
+        ring[index] = change;
+        walSequences[index] = walSequence;
+        return sequence;
+    }
+
+    /**
+     * Get the durable changes after a sequence.
+     *
+     * @param since return changes with a higher sequence than this
+     * @param limit maximum number of changes to return
+     * @param durableWalSequence write-ahead log sequence up to which records are on disk
+     * @return the changes, or a resync signal if some of them are no longer retained
+     */
+    public synchronized ChangeFeed since(long since, int limit, long durableWalSequence) {
+        advanceVisible(durableWalSequence);
+        long oldest = Math.max(startSequence + 1, latestSequence - ring.length + 1);
+        // Evicted, or ahead of the newest change because it comes from an earlier run of the server
+        if (since < oldest - 1 || since > visibleSequence) {
+            return ChangeFeed.builder()
+                    .changes(List.of())
+                    .lastSequence(visibleSequence)
+                    .latestSequence(visibleSequence)
+                    .resyncRequired(true)
+                    .build();
+        }
+
+        long last = Math.min(visibleSequence, since + limit);
+        List<Change> changes = new ArrayList<>((int) (last - since));
+        for (long sequence = since + 1; sequence <= last; sequence++) {
+            changes.add(ring[(int) (sequence % ring.length)]);
+        }
+        return ChangeFeed.builder()
+                .changes(changes)
+                .lastSequence(last)
+                .latestSequence(visibleSequence)
+                .resyncRequired(false)
+                .build();
+    }
+
+    /**
+     * Extend the visible prefix over the changes whose log records are durable.
+     * Changes evicted before becoming visible are skipped; readers that would
+     * need them resync anyway.
+     */
+    private void advanceVisible(long durableWalSequence) {
+        visibleSequence = Math.max(visibleSequence, latestSequence - ring.length);
+        while (visibleSequence < latestSequence
+                && walSequences[(int) ((visibleSequence + 1) % ring.length)] <= durableWalSequence) {
+            visibleSequence++;
+        }
+    }
+}
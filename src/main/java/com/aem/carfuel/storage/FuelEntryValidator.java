@@ -0,0 +1,19 @@
+package com.aem.carfuel.storage;
+
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelHistory;
+
+/**
+ * Checks a fuel entry against a car's history right before it is appended.
+ * Called inside the car's append critical section, so the history cannot change meanwhile.
+ */
+@FunctionalInterface
+public interface FuelEntryValidator {
+
+    /**
+     * @param history the car's current fuel history
+     * @param entry the entry about to be appended
+     * @return null if the entry may be appended, otherwise the reason it is rejected
+     */
+    String validate(FuelHistory history, FuelEntry entry);
+}
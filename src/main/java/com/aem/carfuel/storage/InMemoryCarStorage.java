@@ -1,27 +1,58 @@
 package com.aem.carfuel.storage;
 
+import com.aem.carfuel.exception.StorageException;
 import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.Change;
+import com.aem.carfuel.model.ChangeEvent;
+import com.aem.carfuel.model.ChangeFeed;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelHistory;
+import com.aem.carfuel.model.IdWatermark;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Thread-safe in-memory storage for cars.
  * Uses ConcurrentHashMap for thread safety and AtomicLong for ID generation.
- * Data is not persisted - all data is lost when the application restarts.
+ * A case-normalized (brand, model, year) index enforces car uniqueness atomically.
+ * 
+ * Data is memory only unless the {@link WriteAheadLog} is enabled, in which case
+ * every car creation and fuel entry is logged before it is acknowledged and the
+ * state is rebuilt from the log on startup. With snapshots enabled, startup loads
+ * the latest {@link SnapshotStore} image and only replays the log written after it.
+ * 
+ * Every car creation and fuel entry is also numbered and kept in the bounded
+ * {@link ChangeLog}, from which mirrors fetch the changes since their last sync
+ * once the log has made them durable.
  */
 @Component
+@Slf4j
 public class InMemoryCarStorage {
     /**
      * Thread-safe map to store cars by their ID
      */
     private final Map<Long, Car> cars = new ConcurrentHashMap<>();
     
+    /**
+     * Ordered index of car IDs, used to page through cars by cursor
+     */
+    private final ConcurrentSkipListSet<Long> carIds = new ConcurrentSkipListSet<>();
+    
     /**
      * Thread-safe counter for generating unique car IDs
      */
@@ -32,21 +63,361 @@ public class InMemoryCarStorage {
      */
     private final AtomicLong fuelIdGenerator = new AtomicLong(1);
     
+    /**
+     * Unique index of case-normalized (brand, model, year) keys of stored cars
+     */
+    private final Set<String> brandModelYearIndex = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Durable log of all mutations (no-op when disabled)
+     */
+    private final WriteAheadLog writeAheadLog;
+    
+    /**
+     * Point-in-time images used to shorten log replay
+     */
+    private final SnapshotStore snapshotStore;
+    
+    /**
+     * Numbered record of the latest mutations
+     */
+    private final ChangeLog changeLog;
+    
+    /**
+     * Car creations hold the read lock from ID assignment until the car is
+     * stored, so they run concurrently; a snapshot cut takes the write lock while
+     * it rotates the log and lists the cars, so every car created before the
+     * rotation is in the snapshot. Fuel entry appends do not take it; see
+     * {@link #snapshot()}.
+     */
+    private final ReadWriteLock carCreationLock = new ReentrantReadWriteLock();
+    
+    /**
+     * Create the storage and rebuild its state from the latest snapshot
+     * and the write-ahead log written after it.
+     *
+     * @param writeAheadLog the log to replay and append to
+     * @param snapshotStore the snapshot images to load from
+     * @param changeLog records the mutations made from now on
+     */
+    public InMemoryCarStorage(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore, ChangeLog changeLog) {
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = snapshotStore;
+        this.changeLog = changeLog;
+        
+        WriteAheadLog.ReplayHandler handler = new WriteAheadLog.ReplayHandler() {
+            @Override
+            public void onCarCreated(Car car) {
+                restoreCar(car);
+            }
+            
+            @Override
+            public void onFuelEntryAdded(Long carId, FuelEntry entry) {
+                restoreFuelEntry(carId, entry);
+            }
+        };
+        
+        long fromSegment = 0;
+        long fromSequence = 0;
+        Optional<SnapshotStore.Header> snapshot = snapshotStore.loadLatest(handler);
+        if (snapshot.isPresent()) {
+            SnapshotStore.Header header = snapshot.get();
+            carIdGenerator.accumulateAndGet(header.nextCarId(), Math::max);
+            fuelIdGenerator.accumulateAndGet(header.nextFuelId(), Math::max);
+            fromSegment = header.walSegment();
+            fromSequence = header.walSequence();
+        }
+        
+        writeAheadLog.recover(handler, fromSegment, fromSequence);
+        if (writeAheadLog.isEnabled() || snapshot.isPresent()) {
+            log.info("Recovered {} cars from persistent storage", cars.size());
+        }
+        
+        // Change sequences continue the log's, so they are never reused after a restart.
+        // Without the log, start from the clock so positions from an earlier run look stale.
+        changeLog.startAt(writeAheadLog.isEnabled()
+            ? writeAheadLog.lastSequence()
+            : System.currentTimeMillis() * 1000);
+    }
+    
+    /**
+     * Save a new car only if no car with the same brand, model, and year exists.
+     * The uniqueness check and the insert happen as one atomic step, so
+     * concurrent creates of the same car cannot both succeed.
+     *
+     * @param car the new car to save (must not have an ID yet)
+     * @return an Optional containing the saved car, or empty if it is a duplicate
+     */
+    public Optional<Car> saveIfAbsent(Car car) {
+        String key = brandModelYearKey(car.getBrand(), car.getModel(), car.getYear());
+        if (!brandModelYearIndex.add(key)) {
+            return Optional.empty();
+        }
+        long sequence;
+        carCreationLock.readLock().lock();
+        try {
+            car.setId(generateCarId());
+            sequence = writeAheadLog.appendCarCreated(car);
+            cars.put(car.getId(), car);
+            carIds.add(car.getId());
+            changeLog.record(carCreated(car), sequence);
+        } catch (StorageException e) {
+            brandModelYearIndex.remove(key);
+            throw e;
+        } finally {
+            carCreationLock.readLock().unlock();
+        }
+        writeAheadLog.awaitDurable(sequence);
+        return Optional.of(car);
+    }
+    
+    /**
+     * Save several new cars, each only if no car with the same brand, model, and
+     * year exists, as {@link #saveIfAbsent} does one at a time. The call waits for
+     * durability once, for the last logged car.
+     *
+     * @param newCars the new cars to save (must not have IDs yet)
+     * @return per car, the saved car, or null if it is a duplicate
+     */
+    public List<Car> saveAllIfAbsent(List<Car> newCars) {
+        List<Car> saved = new ArrayList<>(newCars.size());
+        long sequence = 0;
+        carCreationLock.readLock().lock();
+        try {
+            for (Car car : newCars) {
+                String key = brandModelYearKey(car.getBrand(), car.getModel(), car.getYear());
+                if (!brandModelYearIndex.add(key)) {
+                    saved.add(null);
+                    continue;
+                }
+                car.setId(generateCarId());
+                try {
+                    sequence = writeAheadLog.appendCarCreated(car);
+                } catch (StorageException e) {
+                    brandModelYearIndex.remove(key);
+                    throw e;
+                }
+                cars.put(car.getId(), car);
+                carIds.add(car.getId());
+                changeLog.record(carCreated(car), sequence);
+                saved.add(car);
+            }
+        } finally {
+            carCreationLock.readLock().unlock();
+        }
+        writeAheadLog.awaitDurable(sequence);
+        return saved;
+    }
+    
+    /**
+     * Append a fuel entry to a stored car.
+     * 
+     * Validation, logging and the in-memory append run as one critical section
+     * on the car's own history, so concurrent posts for the same car are
+     * serialized while appends to different cars proceed in parallel; no lock
+     * shared between cars is taken. The entry
+     * is logged before it is applied, and the call returns only once the log's
+     * sync mode considers it durable.
+     *
+     * @param car the stored car
+     * @param entry the new fuel entry; an ID is assigned once it passes validation
+     * @param validator checks the entry against the current history
+     * @return empty if the entry was appended, otherwise the reason it was rejected
+     */
+    public Optional<String> addFuelEntry(Car car, FuelEntry entry, FuelEntryValidator validator) {
+        return addFuelEntry(car, entry, validator, appended -> { });
+    }
+    
+    /**
+     * Append a fuel entry to a stored car, as {@link #addFuelEntry(Car, FuelEntry, FuelEntryValidator)}
+     * does, and report it from inside the car's critical section.
+     *
+     * @param onAppended called with the entry right after it is appended, while
+     *                   the car's history cannot change; must be quick
+     */
+    public Optional<String> addFuelEntry(Car car, FuelEntry entry, FuelEntryValidator validator,
+                                         Consumer<FuelEntry> onAppended) {
+        return Optional.ofNullable(addFuelEntries(car, List.of(entry), validator, onAppended).get(0));
+    }
+    
+    /**
+     * Append several fuel entries to a stored car under a single critical section.
+     * 
+     * Each entry is validated against the history including the entries of this
+     * batch appended before it; rejected entries are skipped and the rest are
+     * applied. The call waits for durability once, for the last logged entry.
+     *
+     * @param car the stored car
+     * @param entries the new fuel entries, in the order they should be applied
+     * @param validator checks each entry against the current history
+     * @return per entry, null if it was appended (and got an ID), otherwise the reason it was rejected
+     */
+    public List<String> addFuelEntries(Car car, List<FuelEntry> entries, FuelEntryValidator validator) {
+        return addFuelEntries(car, entries, validator, appended -> { });
+    }
+    
+    /**
+     * Append several fuel entries to a stored car, as
+     * {@link #addFuelEntries(Car, List, FuelEntryValidator)} does, and report each
+     * appended one from inside the car's critical section. The callbacks for one
+     * car therefore run in the order its entries were committed, and each sees
+     * the history exactly as that entry left it.
+     *
+     * @param onAppended called with each entry right after it is appended, while
+     *                   the car's history cannot change; must be quick
+     */
+    public List<String> addFuelEntries(Car car, List<FuelEntry> entries, FuelEntryValidator validator,
+                                       Consumer<FuelEntry> onAppended) {
+        FuelHistory history = car.getFuelHistory();
+        List<String> rejections = new ArrayList<>(entries.size());
+        long sequence = 0;
+        history.appendLock().lock();
+        try {
+            for (FuelEntry entry : entries) {
+                String rejection = validator.validate(history, entry);
+                if (rejection == null) {
+                    if (entry.getId() == null) {
+                        entry.setId(generateFuelId());
+                    }
+                    sequence = writeAheadLog.appendFuelEntryAdded(car.getId(), entry);
+                    history.append(entry);
+                    changeLog.record(Change.builder()
+                        .type(ChangeEvent.Type.FUEL_ADDED)
+                        .carId(car.getId())
+                        .entry(entry)
+                        .build(), sequence);
+                    onAppended.accept(entry);
+                }
+                rejections.add(rejection);
+            }
+        } finally {
+            history.appendLock().unlock();
+        }
+        writeAheadLog.awaitDurable(sequence);
+        return rejections;
+    }
+    
+    /**
+     * Write a snapshot of the current state and drop the log it makes redundant.
+     * 
+     * Only car creations are paused, while the log is rotated and the cars are
+     * listed. Fuel entry appends keep running: each car's entry count is then
+     * captured under that car's own lock, which waits out any append that was
+     * logged before the rotation but not yet applied. A count may also include
+     * entries logged after the rotation; replay skips those, because a car's
+     * entry IDs increase in log order (see {@link #restoreFuelEntry}). The
+     * entries themselves are serialized afterwards, since fuel histories are
+     * append-only and the captured prefixes never change.
+     */
+    public void snapshot() {
+        List<Car> snapshotCars;
+        long walSegment;
+        long walSequence;
+        carCreationLock.writeLock().lock();
+        try {
+            walSegment = writeAheadLog.rotate();
+            walSequence = writeAheadLog.lastSequence();
+            snapshotCars = new ArrayList<>(cars.values());
+        } finally {
+            carCreationLock.writeLock().unlock();
+        }
+        
+        int[] entryCounts = new int[snapshotCars.size()];
+        for (int i = 0; i < entryCounts.length; i++) {
+            FuelHistory history = snapshotCars.get(i).getFuelHistory();
+            history.appendLock().lock();
+            try {
+                entryCounts[i] = history.size();
+            } finally {
+                history.appendLock().unlock();
+            }
+        }
+        SnapshotStore.Cut cut = new SnapshotStore.Cut(
+            walSegment,
+            walSequence,
+            carIdGenerator.get(),
+            fuelIdGenerator.get(),
+            snapshotCars,
+            entryCounts
+        );
+        
+        long oldestRetainedSegment = snapshotStore.write(cut);
+        writeAheadLog.deleteSegmentsBefore(oldestRetainedSegment);
+    }
+    
     /**
      * Save or update a car in storage.
-     * If the car doesn't have an ID, a new one will be generated.
+     * If the car doesn't have an ID, a new one will be generated and
+     * the creation is written to the write-ahead log.
      *
      * @param car the car to save
      * @return the saved car with its ID
      */
     public Car save(Car car) {
-        if (car.getId() == null) {
-            car.setId(generateCarId());
+        long sequence = 0;
+        carCreationLock.readLock().lock();
+        try {
+            boolean created = car.getId() == null;
+            if (created) {
+                car.setId(generateCarId());
+                sequence = writeAheadLog.appendCarCreated(car);
+            }
+            cars.put(car.getId(), car);
+            carIds.add(car.getId());
+            brandModelYearIndex.add(brandModelYearKey(car.getBrand(), car.getModel(), car.getYear()));
+            if (created) {
+                changeLog.record(carCreated(car), sequence);
+            }
+        } finally {
+            carCreationLock.readLock().unlock();
         }
-        cars.put(car.getId(), car);
+        writeAheadLog.awaitDurable(sequence);
         return car;
     }
     
+    /**
+     * Get the highest car and fuel entry IDs assigned so far.
+     * IDs are assigned in recording order, so they tell which cars and entries
+     * were recorded before this call, whatever their timestamps. Every car up to
+     * the car ID is stored when this returns; an entry up to the fuel entry ID may
+     * still be in the middle of its append until {@link #awaitAppends(Car)}.
+     *
+     * @return the current watermark
+     */
+    public IdWatermark idWatermark() {
+        carCreationLock.writeLock().lock();
+        try {
+            return new IdWatermark(carIdGenerator.get() - 1, fuelIdGenerator.get() - 1);
+        } finally {
+            carCreationLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Wait until appends to a car that are in progress have been applied.
+     * An entry's ID is assigned inside the car's append critical section, so
+     * afterwards every entry of the car with an ID already handed out is visible.
+     *
+     * @param car the stored car
+     */
+    public void awaitAppends(Car car) {
+        // Nothing to do once acquired; acquiring the lock is the wait
+        car.getFuelHistory().appendLock().lock();
+        car.getFuelHistory().appendLock().unlock();
+    }
+    
+    /**
+     * Get the mutations made after a change sequence number.
+     * Only mutations the write-ahead log has made durable are returned.
+     *
+     * @param since return changes with a higher sequence than this
+     * @param limit maximum number of changes to return
+     * @return the changes in sequence order, or a resync signal if some are no longer retained
+     */
+    public ChangeFeed findChangesSince(long since, int limit) {
+        return changeLog.since(since, limit, writeAheadLog.durableSequence());
+    }
+    
     /**
      * Find a car by its ID.
      *
@@ -66,6 +437,42 @@ public class InMemoryCarStorage {
         return new ArrayList<>(cars.values());
     }
     
+    /**
+     * Stream over all cars in storage without copying them.
+     * The stream is weakly consistent and splits well for parallel processing;
+     * cars added while it runs may or may not be included.
+     *
+     * @return a stream of all cars
+     */
+    public Stream<Car> stream() {
+        return cars.values().stream();
+    }
+    
+    /**
+     * Get a page of cars in ascending ID order.
+     * Walks the ordered ID index from the cursor, so only the cars on the page
+     * (plus any skipped by the filter) are visited.
+     *
+     * @param afterId return cars with an ID greater than this, or null to start from the beginning
+     * @param limit maximum number of cars to return
+     * @param filter only cars matching this are returned
+     * @return the matching cars, at most {@code limit} of them
+     */
+    public List<Car> findPage(Long afterId, int limit, Predicate<Car> filter) {
+        List<Car> page = new ArrayList<>(Math.min(limit, cars.size()));
+        Iterable<Long> ids = afterId == null ? carIds : carIds.tailSet(afterId, false);
+        for (Long id : ids) {
+            if (page.size() == limit) {
+                break;
+            }
+            Car car = cars.get(id);
+            if (car != null && filter.test(car)) {
+                page.add(car);
+            }
+        }
+        return page;
+    }
+    
     /**
      * Check if a car exists with the given ID.
      *
@@ -96,10 +503,14 @@ public class InMemoryCarStorage {
     
     /**
      * Delete all cars from storage.
-     * Useful for testing purposes.
+     * Useful for testing purposes. Only clears memory; the write-ahead log is left intact.
+     * The change log is reset, so mirrors are told to resync instead of keeping deleted cars.
      */
     public void deleteAll() {
         cars.clear();
+        carIds.clear();
+        brandModelYearIndex.clear();
+        changeLog.reset();
     }
     
     /**
@@ -120,9 +531,59 @@ public class InMemoryCarStorage {
      * @return true if a car exists with these attributes, false otherwise
      */
     public boolean existsByBrandModelYear(String brand, String model, Integer year) {
-        return cars.values().stream()
-            .anyMatch(car -> car.getBrand().equalsIgnoreCase(brand)
-                && car.getModel().equalsIgnoreCase(model)
-                && car.getYear().equals(year));
+        return brandModelYearIndex.contains(brandModelYearKey(brand, model, year));
+    }
+    
+    /**
+     * Apply a replayed car creation and advance the car ID generator past it.
+     */
+    private void restoreCar(Car car) {
+        cars.put(car.getId(), car);
+        carIds.add(car.getId());
+        brandModelYearIndex.add(brandModelYearKey(car.getBrand(), car.getModel(), car.getYear()));
+        carIdGenerator.accumulateAndGet(car.getId() + 1, Math::max);
+    }
+    
+    /**
+     * Apply a replayed fuel entry and advance the fuel ID generator past it.
+     * A car's entries get increasing IDs in log order, so an entry whose ID is not
+     * above the car's last one is already in the snapshot and is skipped.
+     */
+    private void restoreFuelEntry(Long carId, FuelEntry entry) {
+        Car car = cars.get(carId);
+        if (car == null) {
+            log.warn("Skipping replayed fuel entry {} for unknown car {}", entry.getId(), carId);
+            return;
+        }
+        FuelHistory history = car.getFuelHistory();
+        int size = history.size();
+        if (size > 0 && history.idAt(size - 1) >= entry.getId()) {
+            return;
+        }
+        car.addFuelEntry(entry);
+        fuelIdGenerator.accumulateAndGet(entry.getId() + 1, Math::max);
+    }
+    
+    /**
+     * Describe the creation of a car for the change log.
+     */
+    private static Change carCreated(Car car) {
+        return Change.builder()
+            .type(ChangeEvent.Type.CAR_CREATED)
+            .carId(car.getId())
+            .brand(car.getBrand())
+            .model(car.getModel())
+            .year(car.getYear())
+            .createdAt(car.getCreatedAt())
+            .build();
+    }
+    
+    /**
+     * Build the case-insensitive uniqueness key for a brand, model, and year.
+     */
+    private static String brandModelYearKey(String brand, String model, Integer year) {
+        return brand.toLowerCase(Locale.ROOT) + '\0'
+            + model.toLowerCase(Locale.ROOT) + '\0'
+            + year;
     }
 }
@@ -0,0 +1,55 @@
+package com.aem.carfuel.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically snapshots {@link InMemoryCarStorage} so startup only replays
+ * the tail of the write-ahead log.
+ */
+@Component
+@Slf4j
+public class SnapshotScheduler implements Closeable {
+
+    private final ScheduledExecutorService executor;
+
+    public SnapshotScheduler(
+            InMemoryCarStorage storage,
+            SnapshotStore snapshotStore,
+            @Value("${carfuel.storage.snapshot.interval-seconds:300}") long intervalSeconds) {
+        if (!snapshotStore.isEnabled() || intervalSeconds <= 0) {
+            this.executor = null;
+            return;
+        }
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "storage-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                storage.snapshot();
+            } catch (RuntimeException e) {
+                log.error("Scheduled snapshot failed", e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        log.info("Storage snapshots scheduled every {} seconds", intervalSeconds);
+    }
+
+    /**
+     * Stop taking snapshots
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
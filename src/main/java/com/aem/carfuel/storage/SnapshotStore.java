@@ -0,0 +1,280 @@
+package com.aem.carfuel.storage;
+
+import com.aem.carfuel.exception.StorageException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelHistory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes point-in-time binary snapshots of {@link InMemoryCarStorage}.
+ *
+ * A snapshot covers every write-ahead log segment before {@code walSegment}; on
+ * startup the latest valid snapshot is loaded through a memory-mapped read and only
+ * the log segments from {@code walSegment} onwards are replayed. Snapshots larger
+ * than a single mapping allows are read through successive windows.
+ *
+ * Files are named after the WAL segment they start from and a generation that
+ * increases with every snapshot written, and are ordered by generation. Each cut
+ * thus gets a new file even when the segment does not change, as with the log
+ * disabled, and the retained snapshots are distinct images to fall back to.
+ *
+ * File layout:
+ * [int magic][int version][long walSegment][long walSequence][long nextCarId][long nextFuelId]
+ * [int carCount] then per car: [car header][int entryCount][entries...]
+ * and finally [int crc32] over everything before it.
+ */
+@Component
+@Slf4j
+public class SnapshotStore {
+
+    /**
+     * State captured at the moment of a snapshot.
+     * Only the first {@code entryCounts[i]} fuel entries of {@code cars.get(i)} belong to it.
+     */
+    public record Cut(long walSegment, long walSequence, long nextCarId, long nextFuelId,
+                      List<Car> cars, int[] entryCounts) {
+    }
+
+    /**
+     * Counters restored from a loaded snapshot
+     */
+    public record Header(long walSegment, long walSequence, long nextCarId, long nextFuelId, int carCount) {
+    }
+
+    private static final int MAGIC = 0x43465331; // "CFS1"
+    private static final int VERSION = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    /**
+     * Largest part of a snapshot mapped at once
+     */
+    static final int MAP_WINDOW_BYTES = 1 << 30;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int retain;
+
+    public SnapshotStore(
+            @Value("${carfuel.storage.snapshot.enabled:false}") boolean enabled,
+            @Value("${carfuel.storage.snapshot.directory:data/snapshots}") String directory,
+            @Value("${carfuel.storage.snapshot.retain:2}") int retain) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.retain = Math.max(1, retain);
+    }
+
+    /**
+     * Whether snapshots are taken and loaded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Load the newest readable snapshot into the handler.
+     * Falls back to older retained snapshots if the newest one is damaged.
+     *
+     * @param handler receives each car followed by its fuel entries
+     * @return the snapshot header, or empty if there is nothing to load
+     */
+    public Optional<Header> loadLatest(WriteAheadLog.ReplayHandler handler) {
+        if (!enabled || !Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+        try {
+            for (Path snapshot : listSnapshots().reversed()) {
+                long started = System.nanoTime();
+                Optional<Header> header = load(snapshot, handler);
+                if (header.isPresent()) {
+                    log.info("Loaded snapshot {} with {} cars in {} ms",
+                             snapshot.getFileName(), header.get().carCount(),
+                             (System.nanoTime() - started) / 1_000_000);
+                    return header;
+                }
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new StorageException("Failed to load snapshot from " + directory, e);
+        }
+    }
+
+    /**
+     * Write a snapshot for the given cut and drop snapshots beyond the retention count.
+     *
+     * @param cut the state to persist
+     * @return the WAL segment covered by the oldest retained snapshot;
+     *         log segments before it are no longer needed
+     */
+    public long write(Cut cut) {
+        Path target = null;
+        long started = System.nanoTime();
+        long entries = 0;
+
+        try {
+            Files.createDirectories(directory);
+            List<Path> existing = listSnapshots();
+            long generation = existing.isEmpty() ? 1 : generationOf(existing.get(existing.size() - 1)) + 1;
+            target = directory.resolve(String.format("%s%016d-%016d%s",
+                    SNAPSHOT_PREFIX, cut.walSegment(), generation, SNAPSHOT_SUFFIX));
+            Path temp = directory.resolve(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                CheckedOutputStream checked = new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+                DataOutputStream out = new DataOutputStream(checked);
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(cut.walSegment());
+                out.writeLong(cut.walSequence());
+                out.writeLong(cut.nextCarId());
+                out.writeLong(cut.nextFuelId());
+                out.writeInt(cut.cars().size());
+
+                for (int i = 0; i < cut.cars().size(); i++) {
+                    Car car = cut.cars().get(i);
+                    int count = cut.entryCounts()[i];
+                    CarBinaryCodec.writeCar(out, car);
+                    out.writeInt(count);
+                    FuelHistory history = car.getFuelHistory();
+                    for (int e = 0; e < count; e++) {
+                        CarBinaryCodec.writeFuelEntry(out, history, e);
+                    }
+                    entries += count;
+                }
+
+                out.flush();
+                out.writeInt((int) checked.getChecksum().getValue());
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+
+            log.info("Wrote snapshot {} ({} cars, {} fuel entries) in {} ms",
+                     target.getFileName(), cut.cars().size(), entries,
+                     (System.nanoTime() - started) / 1_000_000);
+            return prune();
+        } catch (IOException e) {
+            throw new StorageException("Failed to write snapshot " + (target != null ? target : "to " + directory), e);
+        }
+    }
+
+    private Optional<Header> load(Path snapshot, WriteAheadLog.ReplayHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < Integer.BYTES * 3) {
+                log.warn("Ignoring snapshot {} with unexpected size {}", snapshot.getFileName(), size);
+                return Optional.empty();
+            }
+            long bodySize = size - Integer.BYTES;
+
+            // Verify the whole image before applying anything
+            CRC32 crc = new CRC32();
+            for (long offset = 0; offset < bodySize; offset += MAP_WINDOW_BYTES) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                                       Math.min(MAP_WINDOW_BYTES, bodySize - offset)));
+            }
+            int stored = channel.map(FileChannel.MapMode.READ_ONLY, bodySize, Integer.BYTES).getInt();
+            if ((int) crc.getValue() != stored) {
+                log.warn("Ignoring corrupt snapshot {}", snapshot.getFileName());
+                return Optional.empty();
+            }
+
+            ByteBufferDataInput in = new ByteBufferDataInput(channel, bodySize, MAP_WINDOW_BYTES);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Ignoring snapshot {} with unknown format", snapshot.getFileName());
+                return Optional.empty();
+            }
+            Header header = new Header(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readInt());
+
+            for (int i = 0; i < header.carCount(); i++) {
+                Car car = CarBinaryCodec.readCar(in);
+                handler.onCarCreated(car);
+                int count = in.readInt();
+                for (int e = 0; e < count; e++) {
+                    handler.onFuelEntryAdded(car.getId(), CarBinaryCodec.readFuelEntry(in));
+                }
+            }
+            return Optional.of(header);
+        }
+    }
+
+    /**
+     * Make the rename of a new snapshot durable, so a crash cannot bring back the
+     * old directory entry after the log it covers has been deleted.
+     */
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Some platforms (Windows) cannot open a directory for syncing
+            log.debug("Could not sync snapshot directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Delete snapshots beyond the retention count.
+     *
+     * @return the WAL segment of the oldest retained snapshot
+     */
+    private long prune() throws IOException {
+        List<Path> snapshots = listSnapshots();
+        int excess = snapshots.size() - retain;
+        for (int i = 0; i < excess; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+            log.debug("Deleted old snapshot {}", snapshots.get(i).getFileName());
+        }
+        return walSegmentOf(snapshots.get(Math.max(0, excess)));
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(SnapshotStore::generationOf)
+                            .thenComparingLong(SnapshotStore::walSegmentOf))
+                    .toList();
+        }
+    }
+
+    private static long walSegmentOf(Path snapshot) {
+        return Long.parseLong(nameParts(snapshot)[0]);
+    }
+
+    /**
+     * Generation of a snapshot; 0 for files named before generations were added
+     */
+    private static long generationOf(Path snapshot) {
+        String[] parts = nameParts(snapshot);
+        return parts.length > 1 ? Long.parseLong(parts[1]) : 0;
+    }
+
+    private static String[] nameParts(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()).split("-");
+    }
+}
@@ -0,0 +1,557 @@
+package com.aem.carfuel.storage;
+
+import com.aem.carfuel.exception.StorageException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented write-ahead log for {@link InMemoryCarStorage}.
+ *
+ * Every car creation and fuel entry is appended as a binary record before the
+ * storage acknowledges it. On startup the log is replayed to rebuild the
+ * in-memory state. The log is disabled by default.
+ *
+ * Record layout:
+ * [int length][long sequence][byte type][payload][int crc32]
+ * where length covers sequence, type and payload, and the CRC covers the same bytes.
+ *
+ * Sync modes (carfuel.storage.wal.sync-mode):
+ * - ALWAYS:   fsync on every append (lowest throughput, no window of loss)
+ * - GROUP:    writers wait for a shared fsync that covers many appends at once;
+ *             sync-interval-ms is how long the leading writer waits to gather a batch
+ * - PERIODIC: a background thread fsyncs every sync-interval-ms and writers never wait
+ *             (highest throughput, may lose the last interval on a crash)
+ */
+@Component
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    /**
+     * When appended records are forced to disk
+     */
+    public enum SyncMode {
+        ALWAYS, GROUP, PERIODIC
+    }
+
+    /**
+     * Callback used to apply replayed records to the storage
+     */
+    public interface ReplayHandler {
+        void onCarCreated(Car car);
+
+        void onFuelEntryAdded(Long carId, FuelEntry entry);
+    }
+
+    static final byte CAR_CREATED = 1;
+    static final byte FUEL_ENTRY_ADDED = 2;
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Bytes of sequence + type that precede the payload
+     */
+    private static final int RECORD_HEADER = Long.BYTES + Byte.BYTES;
+
+    /**
+     * Largest segment size; replay maps a whole segment, which must stay below 2 GiB
+     * even when its last record overshoots the limit
+     */
+    static final long MAX_SEGMENT_SIZE_MB = 2047;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final SyncMode syncMode;
+    private final long syncIntervalMs;
+    private final long segmentSizeBytes;
+
+    /**
+     * Serializes appends and segment rotation
+     */
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    /**
+     * Guards durableSequence and syncInProgress for group commit. A lock rather than
+     * a monitor, so virtual threads waiting for a sync release their carrier thread
+     */
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    /**
+     * Signalled when durableSequence advances or a sync finishes
+     */
+    private final Condition syncDone = syncLock.newCondition();
+
+    private FileChannel channel;
+    private long segmentIndex;
+    private long segmentBytes;
+    private long lastSequence;
+
+    private long durableSequence;
+    private boolean syncInProgress;
+
+    private ScheduledExecutorService periodicSyncer;
+
+    public WriteAheadLog(
+            @Value("${carfuel.storage.wal.enabled:false}") boolean enabled,
+            @Value("${carfuel.storage.wal.directory:data/wal}") String directory,
+            @Value("${carfuel.storage.wal.sync-mode:group}") String syncMode,
+            @Value("${carfuel.storage.wal.sync-interval-ms:2}") long syncIntervalMs,
+            @Value("${carfuel.storage.wal.segment-size-mb:64}") long segmentSizeMb) {
+        if (segmentSizeMb < 1 || segmentSizeMb > MAX_SEGMENT_SIZE_MB) {
+            throw new IllegalArgumentException(String.format(
+                    "carfuel.storage.wal.segment-size-mb must be between 1 and %d, was %d",
+                    MAX_SEGMENT_SIZE_MB, segmentSizeMb));
+        }
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.syncMode = SyncMode.valueOf(syncMode.trim().toUpperCase(Locale.ROOT));
+        this.syncIntervalMs = syncIntervalMs;
+        this.segmentSizeBytes = segmentSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Whether the log is active
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replay the log segments from {@code fromSegment} onwards into the handler
+     * and open a fresh segment for appends. Does nothing when the log is disabled.
+     *
+     * @param handler receives each replayed record in log order
+     * @param fromSegment first segment to replay; earlier ones are covered by a snapshot
+     * @param fromSequence last sequence number covered by that snapshot
+     */
+    public void recover(ReplayHandler handler, long fromSegment, long fromSequence) {
+        if (!enabled) {
+            log.info("Write-ahead log disabled - storage is memory only");
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            long started = System.nanoTime();
+            long records = 0;
+            lastSequence = fromSequence;
+            segmentIndex = Math.max(0, fromSegment - 1);
+            for (Path segment : listSegments()) {
+                long index = segmentIndexOf(segment);
+                if (index < fromSegment) {
+                    continue;
+                }
+                records += replaySegment(segment, handler);
+                segmentIndex = Math.max(segmentIndex, index);
+            }
+            logReplayRate(records, System.nanoTime() - started);
+
+            durableSequence = lastSequence;
+            openNextSegment();
+
+            if (syncMode == SyncMode.PERIODIC) {
+                periodicSyncer = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "wal-periodic-sync");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                periodicSyncer.scheduleWithFixedDelay(
+                        this::syncQuietly, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+            }
+            log.info("Write-ahead log ready in {} (sync mode {}, segment {})",
+                     directory.toAbsolutePath(), syncMode, segmentIndex);
+        } catch (IOException e) {
+            throw new StorageException("Failed to recover write-ahead log from " + directory, e);
+        }
+    }
+
+    /**
+     * Append a car creation record.
+     *
+     * @return the sequence number of the record, or 0 when the log is disabled
+     */
+    public long appendCarCreated(Car car) {
+        if (!enabled) {
+            return 0;
+        }
+        return append(CAR_CREATED, out -> CarBinaryCodec.writeCar(out, car));
+    }
+
+    /**
+     * Append a fuel entry record.
+     *
+     * @return the sequence number of the record, or 0 when the log is disabled
+     */
+    public long appendFuelEntryAdded(Long carId, FuelEntry entry) {
+        if (!enabled) {
+            return 0;
+        }
+        return append(FUEL_ENTRY_ADDED, out -> {
+            out.writeLong(carId);
+            CarBinaryCodec.writeFuelEntry(out, entry);
+        });
+    }
+
+    /**
+     * Block until the record with the given sequence number is on disk.
+     * Only GROUP mode waits here; ALWAYS has already synced and PERIODIC never waits.
+     *
+     * The first waiter becomes the leader and performs one fsync that covers every
+     * record appended so far; the others wait for it and are released together.
+     *
+     * @param sequence the sequence number returned by an append
+     */
+    public void awaitDurable(long sequence) {
+        if (!enabled || syncMode != SyncMode.GROUP) {
+            return;
+        }
+        try {
+            while (true) {
+                syncLock.lock();
+                try {
+                    while (durableSequence < sequence && syncInProgress) {
+                        syncDone.await();
+                    }
+                    if (durableSequence >= sequence) {
+                        return;
+                    }
+                    syncInProgress = true;
+                } finally {
+                    syncLock.unlock();
+                }
+
+                long covered = 0;
+                try {
+                    if (syncIntervalMs > 0) {
+                        Thread.sleep(syncIntervalMs);
+                    }
+                    covered = forceCurrentSegment();
+                } finally {
+                    syncLock.lock();
+                    try {
+                        syncInProgress = false;
+                        durableSequence = Math.max(durableSequence, covered);
+                        syncDone.signalAll();
+                    } finally {
+                        syncLock.unlock();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Interrupted while waiting for write-ahead log sync");
+        }
+    }
+
+    /**
+     * Close the active segment and start a new one.
+     * Every record appended so far is durable and lives in a segment before the returned one.
+     *
+     * @return the index of the new active segment, or 0 when the log is disabled
+     */
+    public long rotate() {
+        if (!enabled) {
+            return 0;
+        }
+        appendLock.lock();
+        try {
+            rotateLocked();
+            return segmentIndex;
+        } catch (IOException e) {
+            throw new StorageException("Failed to rotate write-ahead log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Sequence number up to which records are known to be on disk.
+     * Every sequence counts as durable when the log is disabled.
+     */
+    public long durableSequence() {
+        if (!enabled) {
+            return Long.MAX_VALUE;
+        }
+        syncLock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Sequence number of the last appended record
+     */
+    public long lastSequence() {
+        appendLock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Delete segments that are fully covered by a snapshot.
+     *
+     * @param segment the first segment that must be kept
+     */
+    public void deleteSegmentsBefore(long segment) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            for (Path path : listSegments()) {
+                if (segmentIndexOf(path) < segment) {
+                    Files.deleteIfExists(path);
+                    log.debug("Deleted compacted log segment {}", path.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete compacted log segments before {}", segment, e);
+        }
+    }
+
+    /**
+     * Force the active segment to disk and close it.
+     */
+    @Override
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        if (periodicSyncer != null) {
+            periodicSyncer.shutdownNow();
+        }
+        appendLock.lock();
+        try {
+            if (channel != null && channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+                markDurable(lastSequence);
+            }
+            log.info("Write-ahead log closed at sequence {}", lastSequence);
+        } catch (IOException e) {
+            log.error("Failed to close write-ahead log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a record payload
+     */
+    @FunctionalInterface
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private long append(byte type, PayloadWriter payloadWriter) {
+        byte[] payload;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            payloadWriter.write(out);
+            out.flush();
+            payload = bytes.toByteArray();
+        } catch (IOException e) {
+            throw new StorageException("Failed to encode write-ahead log record", e);
+        }
+
+        int length = RECORD_HEADER + payload.length;
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length + Integer.BYTES);
+
+        appendLock.lock();
+        try {
+            long sequence = lastSequence + 1;
+            record.putInt(length).putLong(sequence).put(type).put(payload);
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), Integer.BYTES, length);
+            record.putInt((int) crc.getValue());
+            record.flip();
+
+            if (segmentBytes > 0 && segmentBytes + record.remaining() > segmentSizeBytes) {
+                rotateLocked();
+            }
+            writeLocked(record);
+            lastSequence = sequence;
+
+            if (syncMode == SyncMode.ALWAYS) {
+                channel.force(false);
+                markDurable(sequence);
+            }
+            return sequence;
+        } catch (IOException e) {
+            throw new StorageException("Failed to append to write-ahead log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void writeLocked(ByteBuffer record) throws IOException {
+        int size = record.remaining();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            segmentBytes += size;
+        } catch (IOException e) {
+            // Drop a partially written record so later appends stay readable
+            channel.truncate(segmentBytes);
+            throw e;
+        }
+    }
+
+    private void rotateLocked() throws IOException {
+        channel.force(false);
+        channel.close();
+        markDurable(lastSequence);
+        openNextSegment();
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentIndex++;
+        channel = FileChannel.open(segmentPath(segmentIndex),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentBytes = 0;
+    }
+
+    private long forceCurrentSegment() {
+        FileChannel target;
+        long covered;
+        appendLock.lock();
+        try {
+            target = channel;
+            covered = lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            target.force(false);
+        } catch (ClosedChannelException e) {
+            // The segment was rotated meanwhile, and rotation forces it before closing
+        } catch (IOException e) {
+            throw new StorageException("Failed to sync write-ahead log", e);
+        }
+        return covered;
+    }
+
+    private void syncQuietly() {
+        try {
+            markDurable(forceCurrentSegment());
+        } catch (StorageException e) {
+            log.error("Periodic write-ahead log sync failed", e);
+        }
+    }
+
+    private void markDurable(long sequence) {
+        syncLock.lock();
+        try {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+                syncDone.signalAll();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private long replaySegment(Path segment, ReplayHandler handler) throws IOException {
+        long records = 0;
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            CRC32 crc = new CRC32();
+
+            while (buffer.remaining() >= Integer.BYTES) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                if (length < RECORD_HEADER || buffer.remaining() < length + Integer.BYTES) {
+                    log.warn("Truncated record at offset {} in {} - ignoring the rest of the segment",
+                             start, segment.getFileName());
+                    break;
+                }
+
+                byte[] body = new byte[length];
+                buffer.get(body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != buffer.getInt()) {
+                    log.warn("Corrupt record at offset {} in {} - ignoring the rest of the segment",
+                             start, segment.getFileName());
+                    break;
+                }
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                long sequence = record.readLong();
+                byte type = record.readByte();
+                switch (type) {
+                    case CAR_CREATED -> handler.onCarCreated(CarBinaryCodec.readCar(record));
+                    case FUEL_ENTRY_ADDED -> {
+                        long carId = record.readLong();
+                        handler.onFuelEntryAdded(carId, CarBinaryCodec.readFuelEntry(record));
+                    }
+                    default -> log.warn("Skipping unknown record type {} in {}", type, segment.getFileName());
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private void logReplayRate(long records, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        long perSecond = seconds > 0 ? Math.round(records / seconds) : records;
+        log.info("Replayed {} write-ahead log records in {} ms ({} entries/sec)",
+                 records, elapsedNanos / 1_000_000, perSecond);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentIndexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,277 @@
+package com.aem.carfuel.wire;
+
+import com.aem.carfuel.dto.AddFuelRequest;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelHistory;
+import com.aem.carfuel.model.FuelStats;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Compact binary representation of cars, fuel entries, fuel statistics and
+ * fuel entry requests, offered next to JSON as {@value #MEDIA_TYPE_VALUE}.
+ *
+ * Every message starts with a version byte, {@value #VERSION}, followed by its
+ * fields in a fixed order, written with {@link DataOutput}: big-endian numbers,
+ * doubles as IEEE 754 bits, strings as modified UTF-8 with a 2-byte length, and
+ * timestamps as nanoseconds since the epoch (UTC), or Long.MIN_VALUE for none.
+ * The layout is defined here and is independent of the write-ahead log records,
+ * so either can change without breaking the other; a change to this one takes a
+ * new version. Readers reject versions they do not know.
+ *
+ * <pre>
+ * FuelEntry       byte version, long id, double liters, double price, int odometer, long timestamp (37 bytes)
+ * Car             byte version, long id, UTF brand, UTF model, int year, long createdAt,
+ *                 int entry count, then that many entries (FuelEntry without the version) in time order
+ * FuelStats       byte version, double totalFuel, double totalCost, double avgConsumption, int entriesCount (29 bytes)
+ * AddFuelRequest  byte version, double liters, double price, int odometer, long timestamp (29 bytes)
+ * </pre>
+ */
+public final class BinaryWireFormat {
+
+    /**
+     * Media type of the binary representation
+     */
+    public static final String MEDIA_TYPE_VALUE = "application/x-carfuel-binary";
+
+    /**
+     * Media type of the binary representation
+     */
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    /**
+     * Version of the layout, the first byte of every message
+     */
+    public static final int VERSION = 1;
+
+    private BinaryWireFormat() {
+    }
+
+    /**
+     * Whether the binary representation can be written for a type
+     */
+    public static boolean canWrite(Class<?> type) {
+        return type == Car.class || type == FuelEntry.class || type == FuelStats.class;
+    }
+
+    /**
+     * Whether the binary representation can be read for a type
+     */
+    public static boolean canRead(Class<?> type) {
+        return type == AddFuelRequest.class;
+    }
+
+    /**
+     * Whether an Accept header prefers the binary representation: it must be the
+     * listed type with the highest quality, the first one among equals. Wildcards
+     * never select it, so JSON stays the default.
+     *
+     * @param accept the Accept header, or null
+     */
+    public static boolean isPreferred(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        try {
+            MediaType preferred = null;
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (preferred == null || type.getQualityValue() > preferred.getQualityValue()) {
+                    preferred = type;
+                }
+            }
+            return preferred != null && preferred.getQualityValue() > 0
+                    && preferred.equalsTypeAndSubtype(MEDIA_TYPE);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Encode a car, fuel entry or fuel statistics into a new array.
+     */
+    public static byte[] encode(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(value instanceof Car car
+                ? 64 + car.getEntriesCount() * 36
+                : 37);
+        try {
+            write(new DataOutputStream(bytes), value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen in memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write a car, fuel entry or fuel statistics.
+     *
+     * @throws IllegalArgumentException if the type has no binary representation
+     */
+    public static void write(DataOutput out, Object value) throws IOException {
+        if (value instanceof Car car) {
+            writeCar(out, car);
+        } else if (value instanceof FuelEntry entry) {
+            writeFuelEntry(out, entry);
+        } else if (value instanceof FuelStats stats) {
+            writeStats(out, stats);
+        } else {
+            throw new IllegalArgumentException("No binary representation for " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Write a car with its fuel entries in time order, straight from the columnar history.
+     */
+    public static void writeCar(DataOutput out, Car car) throws IOException {
+        FuelHistory history = car.getFuelHistory();
+        // Fix the entries first, so the count matches even while entries are appended
+        PrimitiveIterator.OfInt rows = history.rowsBetween(Long.MIN_VALUE, Long.MAX_VALUE);
+        int[] order = new int[history.size()];
+        int count = 0;
+        while (rows.hasNext() && count < order.length) {
+            order[count++] = rows.nextInt();
+        }
+
+        out.writeByte(VERSION);
+        out.writeLong(car.getId());
+        out.writeUTF(car.getBrand());
+        out.writeUTF(car.getModel());
+        out.writeInt(car.getYear());
+        out.writeLong(FuelHistory.toEpochNanos(car.getCreatedAt()));
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            int row = order[i];
+            out.writeLong(history.idAt(row));
+            out.writeDouble(history.litersAt(row));
+            out.writeDouble(history.priceAt(row));
+            out.writeInt(history.odometerAt(row));
+            out.writeLong(history.timestampAt(row));
+        }
+    }
+
+    /**
+     * Read a car written by {@link #writeCar(DataOutput, Car)}.
+     *
+     * @throws IllegalArgumentException if the message has an unknown version
+     */
+    public static Car readCar(DataInput in) throws IOException {
+        readVersion(in);
+        Car car = Car.builder()
+                .id(in.readLong())
+                .brand(in.readUTF())
+                .model(in.readUTF())
+                .year(in.readInt())
+                .createdAt(FuelHistory.fromEpochNanos(in.readLong()))
+                .build();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            car.addFuelEntry(readFuelEntryFields(in));
+        }
+        return car;
+    }
+
+    /**
+     * Write a fuel entry.
+     */
+    public static void writeFuelEntry(DataOutput out, FuelEntry entry) throws IOException {
+        out.writeByte(VERSION);
+        out.writeLong(entry.getId());
+        out.writeDouble(entry.getLiters());
+        out.writeDouble(entry.getPrice());
+        out.writeInt(entry.getOdometer());
+        out.writeLong(FuelHistory.toEpochNanos(entry.getTimestamp()));
+    }
+
+    /**
+     * Read a fuel entry written by {@link #writeFuelEntry(DataOutput, FuelEntry)}.
+     *
+     * @throws IllegalArgumentException if the message has an unknown version
+     */
+    public static FuelEntry readFuelEntry(DataInput in) throws IOException {
+        readVersion(in);
+        return readFuelEntryFields(in);
+    }
+
+    private static FuelEntry readFuelEntryFields(DataInput in) throws IOException {
+        return FuelEntry.builder()
+                .id(in.readLong())
+                .liters(in.readDouble())
+                .price(in.readDouble())
+                .odometer(in.readInt())
+                .timestamp(FuelHistory.fromEpochNanos(in.readLong()))
+                .build();
+    }
+
+    /**
+     * Write fuel statistics.
+     */
+    public static void writeStats(DataOutput out, FuelStats stats) throws IOException {
+        out.writeByte(VERSION);
+        out.writeDouble(stats.getTotalFuel());
+        out.writeDouble(stats.getTotalCost());
+        out.writeDouble(stats.getAvgConsumption());
+        out.writeInt(stats.getEntriesCount());
+    }
+
+    /**
+     * Read fuel statistics written by {@link #writeStats(DataOutput, FuelStats)}.
+     *
+     * @throws IllegalArgumentException if the message has an unknown version
+     */
+    public static FuelStats readStats(DataInput in) throws IOException {
+        readVersion(in);
+        return FuelStats.builder()
+                .totalFuel(in.readDouble())
+                .totalCost(in.readDouble())
+                .avgConsumption(in.readDouble())
+                .entriesCount(in.readInt())
+                .build();
+    }
+
+    /**
+     * Write a fuel entry request.
+     */
+    public static void writeAddFuelRequest(DataOutput out, AddFuelRequest request) throws IOException {
+        out.writeByte(VERSION);
+        out.writeDouble(request.getLiters());
+        out.writeDouble(request.getPrice());
+        out.writeInt(request.getOdometer());
+        out.writeLong(FuelHistory.toEpochNanos(request.getTimestamp()));
+    }
+
+    /**
+     * Read a fuel entry request. Bean validation applies afterwards as for JSON.
+     *
+     * @throws IllegalArgumentException if the message has an unknown version, or
+     *         liters or price is not a finite number
+     */
+    public static AddFuelRequest readAddFuelRequest(DataInput in) throws IOException {
+        readVersion(in);
+        AddFuelRequest request = AddFuelRequest.builder()
+                .liters(in.readDouble())
+                .price(in.readDouble())
+                .odometer(in.readInt())
+                .timestamp(FuelHistory.fromEpochNanos(in.readLong()))
+                .build();
+        if (!Double.isFinite(request.getLiters()) || !Double.isFinite(request.getPrice())) {
+            throw new IllegalArgumentException("Liters and price must be finite numbers");
+        }
+        return request;
+    }
+
+    private static void readVersion(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException(String.format(
+                    "Unsupported binary format version %d, expected %d", version, VERSION));
+        }
+    }
+}
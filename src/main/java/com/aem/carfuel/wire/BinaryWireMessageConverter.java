@@ -0,0 +1,64 @@
+package com.aem.carfuel.wire;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Reads and writes the {@link BinaryWireFormat} representation for content
+ * negotiation: fuel entry requests sent with that Content-Type, and cars, fuel
+ * entries and statistics for requests that accept it.
+ */
+public class BinaryWireMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public BinaryWireMessageConverter() {
+        super(BinaryWireFormat.MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BinaryWireFormat.canRead(clazz) || BinaryWireFormat.canWrite(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return BinaryWireFormat.canRead(clazz) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return BinaryWireFormat.canWrite(clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputMessage.getBody()));
+        try {
+            Object request = BinaryWireFormat.readAddFuelRequest(in);
+            if (in.read() != -1) {
+                throw new HttpMessageNotReadableException("Unexpected data after the binary request body", inputMessage);
+            }
+            return request;
+        } catch (EOFException e) {
+            throw new HttpMessageNotReadableException("Truncated binary request body", e, inputMessage);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputMessage.getBody()));
+        BinaryWireFormat.write(out, value);
+        out.flush();
+    }
+}
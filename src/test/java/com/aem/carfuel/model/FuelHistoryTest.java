@@ -0,0 +1,217 @@
+package com.aem.carfuel.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class FuelHistoryTest {
+
+	private static final long HOUR = 3_600_000_000_000L;
+
+	@Test
+	void backDatedAppendsAreReadInTimeOrder() {
+		Random random = new Random(7);
+		FuelHistory history = new FuelHistory();
+		List<long[]> appended = new ArrayList<>(); // {timestamp, row}
+
+		for (int row = 0; row < 2_000; row++) {
+			// Mostly in order, with back-dated entries and repeated timestamps mixed in
+			long timestamp = random.nextInt(10) < 7 ? row * HOUR : random.nextInt(row + 1) * HOUR;
+			history.append(row, 30 + row % 11, 50 + row % 13, 1_000 + row, timestamp);
+			appended.add(new long[] {timestamp, row});
+		}
+
+		List<long[]> expected = new ArrayList<>(appended);
+		expected.sort(Comparator.<long[]>comparingLong(key -> key[0]).thenComparingLong(key -> key[1]));
+
+		List<FuelEntry> entries = history.toEntries();
+		assertThat(entries).hasSize(expected.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertThat(entries.get(i).getId()).isEqualTo(expected.get(i)[1]);
+		}
+
+		FuelHistory.Summary summary = history.summary();
+		assertThat(summary.firstTimestamp()).isEqualTo(expected.get(0)[0]);
+		assertThat(summary.lastTimestamp()).isEqualTo(expected.get(expected.size() - 1)[0]);
+
+		for (int probe = 0; probe < 500; probe++) {
+			long time = random.nextInt(2_100) * HOUR - random.nextInt(2) * (HOUR / 2);
+			assertThat(history.rowAtOrBefore(time)).isEqualTo(bruteAtOrBefore(expected, time));
+			assertThat(history.rowAfter(time)).isEqualTo(bruteAfter(expected, time));
+
+			long to = time + random.nextInt(200) * HOUR;
+			List<Long> rows = new ArrayList<>();
+			PrimitiveIterator.OfInt between = history.rowsBetween(time, to);
+			between.forEachRemaining((int row) -> rows.add((long) row));
+			assertThat(rows).isEqualTo(expected.stream()
+					.filter(key -> key[0] >= time && key[0] <= to)
+					.map(key -> key[1])
+					.toList());
+		}
+	}
+
+	@Test
+	void emptyHistoryHasNoNeighbors() {
+		FuelHistory history = new FuelHistory();
+		assertThat(history.rowAtOrBefore(Long.MAX_VALUE)).isEqualTo(-1);
+		assertThat(history.rowAfter(Long.MIN_VALUE)).isEqualTo(-1);
+		assertThat(history.rowsBetween(Long.MIN_VALUE, Long.MAX_VALUE).hasNext()).isFalse();
+		assertThat(history.toEntries()).isEmpty();
+	}
+
+	@Test
+	void timestampsOutsideTheNanosecondRangeAreRejectedNotWrapped() {
+		LocalDateTime latest = FuelHistory.fromEpochNanos(Long.MAX_VALUE);
+		LocalDateTime earliest = FuelHistory.fromEpochNanos(Long.MIN_VALUE + 1);
+		assertThat(FuelHistory.toEpochNanos(latest)).isEqualTo(Long.MAX_VALUE);
+		assertThat(FuelHistory.toEpochNanos(earliest)).isEqualTo(Long.MIN_VALUE + 1);
+
+		// Long.MIN_VALUE itself stands for no timestamp
+		for (LocalDateTime outside : List.of(latest.plusNanos(1), earliest.minusNanos(1),
+				LocalDateTime.of(1500, 1, 1, 0, 0), LocalDateTime.of(2300, 1, 1, 0, 0))) {
+			assertThatThrownBy(() -> FuelHistory.toEpochNanos(outside))
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessageContaining("outside the supported range");
+		}
+		assertThat(FuelHistory.toEpochNanos(null)).isEqualTo(Long.MIN_VALUE);
+	}
+
+	@Test
+	void concurrentAppendsAreAllKeptAndReadersSeeOrderedPrefixes() throws Exception {
+		FuelHistory history = new FuelHistory();
+		int writers = 4;
+		int perWriter = 5_000;
+		ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean done = new AtomicBoolean();
+		try {
+			List<Future<?>> appends = new ArrayList<>();
+			for (int w = 0; w < writers; w++) {
+				int writer = w;
+				appends.add(executor.submit(() -> {
+					start.await();
+					Random random = new Random(writer);
+					for (int i = 0; i < perWriter; i++) {
+						long id = (long) writer * perWriter + i;
+						history.append(id, 1.0, 2.0, 1_000 + i, random.nextInt(1_000_000) * HOUR);
+					}
+					return null;
+				}));
+			}
+			Future<?> reader = executor.submit(() -> {
+				start.await();
+				while (!done.get()) {
+					FuelHistory.Summary summary = history.summary();
+					List<FuelEntry> entries = history.toEntries();
+					assertThat(entries.size()).isGreaterThanOrEqualTo(summary.size());
+					for (int i = 1; i < entries.size(); i++) {
+						assertThat(entries.get(i).getTimestamp()).isAfterOrEqualTo(entries.get(i - 1).getTimestamp());
+					}
+				}
+				return null;
+			});
+
+			start.countDown();
+			for (Future<?> append : appends) {
+				append.get(30, TimeUnit.SECONDS);
+			}
+			done.set(true);
+			reader.get(30, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		FuelHistory.Summary summary = history.summary();
+		assertThat(summary.size()).isEqualTo(writers * perWriter);
+		assertThat(summary.totalLiters()).isEqualTo(writers * perWriter * 1.0);
+		assertThat(summary.totalCost()).isEqualTo(writers * perWriter * 2.0);
+		assertThat(history.toEntries().stream().map(FuelEntry::getId).distinct().count())
+				.isEqualTo(writers * perWriter);
+	}
+
+	@Test
+	void windowsAndLastFillsMatchBruteForce() {
+		Random random = new Random(11);
+		FuelHistory history = new FuelHistory();
+		List<double[]> appended = new ArrayList<>(); // {timestamp, row, liters, price, odometer}
+
+		for (int row = 0; row < 1_500; row++) {
+			long timestamp = random.nextInt(10) < 8 ? row * HOUR : random.nextInt(row + 1) * HOUR;
+			double liters = 20 + random.nextInt(4_000) / 100.0;
+			double price = 30 + random.nextInt(9_000) / 100.0;
+			int odometer = 1_000 + row * 400 + random.nextInt(300);
+			history.append(row, liters, price, odometer, timestamp);
+			appended.add(new double[] {timestamp, row, liters, price, odometer});
+
+			// Query while appending, so the time index is both extended and rebuilt
+			if (row % 50 == 49) {
+				List<double[]> ordered = timeOrdered(appended);
+				for (int probe = 0; probe < 20; probe++) {
+					long from = (random.nextInt(row + 60) - 30) * HOUR;
+					long to = from + random.nextInt(400) * HOUR;
+					assertSameSummary(history.window(from, to), ordered.stream()
+							.filter(key -> key[0] >= from && key[0] <= to)
+							.toList());
+					int fills = 1 + random.nextInt(row + 10);
+					assertSameSummary(history.lastFills(fills),
+							ordered.subList(Math.max(0, ordered.size() - fills), ordered.size()));
+				}
+			}
+		}
+	}
+
+	private static List<double[]> timeOrdered(List<double[]> appended) {
+		List<double[]> ordered = new ArrayList<>(appended);
+		ordered.sort(Comparator.<double[]>comparingDouble(key -> key[0]).thenComparingDouble(key -> key[1]));
+		return ordered;
+	}
+
+	private static void assertSameSummary(FuelHistory.Summary summary, List<double[]> window) {
+		assertThat(summary.size()).isEqualTo(window.size());
+		if (window.isEmpty()) {
+			return;
+		}
+		double liters = window.stream().mapToDouble(key -> key[2]).sum();
+		double cost = window.stream().mapToDouble(key -> key[3]).sum();
+		assertThat(summary.totalLiters()).isCloseTo(liters, within(1e-6));
+		assertThat(summary.totalCost()).isCloseTo(cost, within(1e-6));
+		assertThat(summary.firstOdometer()).isEqualTo((int) window.get(0)[4]);
+		assertThat(summary.lastOdometer()).isEqualTo((int) window.get(window.size() - 1)[4]);
+		assertThat(summary.firstTimestamp()).isEqualTo((long) window.get(0)[0]);
+		assertThat(summary.lastTimestamp()).isEqualTo((long) window.get(window.size() - 1)[0]);
+	}
+
+	private static int bruteAtOrBefore(List<long[]> ordered, long time) {
+		int row = -1;
+		for (long[] key : ordered) {
+			if (key[0] <= time) {
+				row = (int) key[1];
+			}
+		}
+		return row;
+	}
+
+	private static int bruteAfter(List<long[]> ordered, long time) {
+		for (long[] key : ordered) {
+			if (key[0] > time) {
+				return (int) key[1];
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,129 @@
+package com.aem.carfuel.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LogHistogramTest {
+
+	private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+	@Test
+	void quantilesStayWithinTheRelativeAccuracy() {
+		Random random = new Random(17);
+		double[] uniform = new double[20_000];
+		double[] logNormal = new double[20_000];
+		double[] wideRange = new double[20_000];
+		for (int i = 0; i < uniform.length; i++) {
+			uniform[i] = 30 + random.nextDouble() * 40;
+			logNormal[i] = Math.exp(2 + random.nextGaussian() * 0.5);
+			wideRange[i] = Math.pow(10, -2 + random.nextDouble() * 7);
+		}
+
+		assertAccurate(histogram(uniform), uniform);
+		assertAccurate(histogram(logNormal), logNormal);
+		assertAccurate(histogram(wideRange), wideRange);
+	}
+
+	@Test
+	void mergedHistogramsAnswerLikeOneBuiltFromAllValues() {
+		Random random = new Random(23);
+		LogHistogram all = new LogHistogram();
+		LogHistogram merged = new LogHistogram();
+		List<Double> values = new ArrayList<>();
+		for (int part = 0; part < 8; part++) {
+			LogHistogram partial = new LogHistogram();
+			// Parts cover different magnitudes, so merging grows the bucket range both ways
+			double scale = Math.pow(10, part % 2 == 0 ? part / 2 : -part / 2);
+			for (int i = 0; i < 1_000; i++) {
+				double value = scale * (1 + random.nextDouble());
+				partial.add(value);
+				all.add(value);
+				values.add(value);
+			}
+			merged.merge(partial);
+		}
+
+		assertThat(merged.count()).isEqualTo(all.count());
+		assertThat(merged.min()).isEqualTo(all.min());
+		assertThat(merged.max()).isEqualTo(all.max());
+		for (double quantile : QUANTILES) {
+			assertThat(merged.quantile(quantile)).isEqualTo(all.quantile(quantile));
+		}
+		assertAccurate(merged, values.stream().mapToDouble(Double::doubleValue).toArray());
+	}
+
+	@Test
+	void outOfRangeAndNonFiniteValues() {
+		LogHistogram histogram = new LogHistogram();
+		assertThat(histogram.quantile(0.5)).isNaN();
+
+		histogram.add(Double.NaN);
+		histogram.add(Double.POSITIVE_INFINITY);
+		histogram.add(0);
+		histogram.add(1e9);
+
+		assertThat(histogram.count()).isEqualTo(2);
+		assertThat(histogram.min()).isEqualTo(LogHistogram.MIN_TRACKED);
+		assertThat(histogram.max()).isEqualTo(LogHistogram.MAX_TRACKED);
+		assertThat(histogram.quantile(0)).isEqualTo(LogHistogram.MIN_TRACKED);
+		assertThat(histogram.quantile(1)).isEqualTo(LogHistogram.MAX_TRACKED);
+	}
+
+	@Test
+	void consumptionDistributionFollowsBackDatedEntries() {
+		Random random = new Random(29);
+		FuelHistory history = new FuelHistory();
+		List<double[]> entries = new ArrayList<>(); // {timestamp, liters, odometer}
+		for (int row = 0; row < 400; row++) {
+			// Back-dated entries get a timestamp and an odometer reading between their neighbors
+			long timestamp = random.nextInt(5) == 0 ? random.nextInt(row + 1) * 1_000L + 500 : row * 1_000L;
+			int odometer = (int) (timestamp / 10) + random.nextInt(5);
+			double liters = 20 + random.nextInt(3_000) / 100.0;
+			history.append(row, liters, 60, odometer, timestamp);
+			entries.add(new double[] {timestamp, liters, odometer});
+		}
+
+		List<double[]> ordered = new ArrayList<>(entries);
+		ordered.sort((a, b) -> Double.compare(a[0], b[0]));
+		List<Double> intervals = new ArrayList<>();
+		for (int i = 1; i < ordered.size(); i++) {
+			double distance = ordered.get(i)[2] - ordered.get(i - 1)[2];
+			if (distance > 0) {
+				intervals.add(ordered.get(i)[1] / distance * 100);
+			}
+		}
+
+		LogHistogram consumption = history.distribution().consumption();
+		assertThat(consumption.count()).isEqualTo(intervals.size());
+		assertAccurate(consumption, intervals.stream().mapToDouble(Double::doubleValue).toArray());
+	}
+
+	private static LogHistogram histogram(double[] values) {
+		LogHistogram histogram = new LogHistogram();
+		for (double value : values) {
+			histogram.add(value);
+		}
+		return histogram;
+	}
+
+	/**
+	 * Compare with the exact value at the same rank the histogram uses
+	 */
+	private static void assertAccurate(LogHistogram histogram, double[] values) {
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		for (double quantile : QUANTILES) {
+			double exact = sorted[(int) Math.floor(quantile * (sorted.length - 1))];
+			assertThat(histogram.quantile(quantile))
+					.as("quantile %s", quantile)
+					.isCloseTo(exact, within(exact * LogHistogram.RELATIVE_ACCURACY * (1 + 1e-9)));
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.exception.DuplicateCarException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CarCreationTest {
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void duplicatesAreDetectedRegardlessOfCase() {
+		Car created = carService.createCar("Toyota", "Corolla", 2018);
+
+		assertThatThrownBy(() -> carService.createCar("TOYOTA", "corolla", 2018))
+				.isInstanceOf(DuplicateCarException.class);
+		assertThat(carService.createCar("Toyota", "Corolla", 2019).getId()).isNotEqualTo(created.getId());
+		assertThat(carService.getAllCars()).hasSize(2);
+	}
+
+	@Test
+	void concurrentCaseVariantsOfTheSameCarCreateExactlyOne() throws Exception {
+		String[] brands = { "Toyota", "TOYOTA", "toyota", "ToYoTa" };
+		String[] models = { "Corolla", "COROLLA", "corolla", "CoRoLLa" };
+		int threads = 32;
+
+		for (int round = 0; round < 20; round++) {
+			int year = 1990 + round;
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Car>> attempts = new ArrayList<>();
+			try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+				for (int i = 0; i < threads; i++) {
+					String brand = brands[i % brands.length];
+					String model = models[(i / brands.length) % models.length];
+					attempts.add(executor.submit(() -> {
+						start.await();
+						return carService.createCar(brand, model, year);
+					}));
+				}
+				start.countDown();
+			}
+
+			int created = 0;
+			for (Future<Car> attempt : attempts) {
+				try {
+					attempt.get();
+					created++;
+				} catch (ExecutionException e) {
+					assertThat(e.getCause()).isInstanceOf(DuplicateCarException.class);
+				}
+			}
+			assertThat(created).as("cars created for %d", year).isEqualTo(1);
+		}
+
+		List<Car> cars = carService.getAllCars();
+		assertThat(cars).hasSize(20);
+		assertThat(cars).extracting(car -> car.getBrand().toLowerCase(Locale.ROOT) + " "
+				+ car.getModel().toLowerCase(Locale.ROOT)).containsOnly("toyota corolla");
+		assertThat(cars).extracting(Car::getYear).doesNotHaveDuplicates();
+	}
+}
@@ -0,0 +1,133 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.exception.InvalidRequestException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.CarPage;
+import com.aem.carfuel.model.CarSummary;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class CarPagingTest {
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void pagesReturnEveryCarOnceInIdOrder() {
+		List<Long> created = new ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			created.add(carService.createCar("Brand" + i, "Model", 2000 + i).getId());
+		}
+
+		assertThat(pageThrough(7, null, null)).isEqualTo(created);
+		assertThat(carService.getCars(null, null)).extracting(Car::getId).isEqualTo(created);
+	}
+
+	@Test
+	void carsAddedWhilePagingDoNotShiftOrRepeatEarlierCars() {
+		List<Long> before = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			before.add(carService.createCar("Early" + i, "Model", 2010).getId());
+		}
+
+		List<Long> seen = new ArrayList<>();
+		CarPage<Car> page = carService.getCarPage(null, 4, null, null);
+		seen.addAll(ids(page));
+		int added = 0;
+		while (page.getNextCursor() != null) {
+			// New cars get higher IDs, so they show up at the end and never displace a page
+			carService.createCar("Late" + added++, "Model", 2020);
+			page = carService.getCarPage(page.getNextCursor(), 4, null, null);
+			seen.addAll(ids(page));
+		}
+
+		assertThat(seen).doesNotHaveDuplicates();
+		assertThat(seen.subList(0, before.size())).isEqualTo(before);
+		assertThat(seen).isSorted();
+	}
+
+	@Test
+	void filtersApplyAcrossPages() {
+		for (int i = 0; i < 12; i++) {
+			carService.createCar(i % 3 == 0 ? "Toyota" : "Honda", "Model" + i, 2018 + i % 2);
+		}
+
+		List<Long> toyotas = pageThrough(2, "TOYOTA", null);
+		assertThat(toyotas).hasSize(4);
+		assertThat(toyotas).isEqualTo(carService.getCars("toyota", null).stream().map(Car::getId).toList());
+		assertThat(pageThrough(3, "Honda", 2019)).hasSize(4);
+	}
+
+	@Test
+	void summariesMirrorTheCarPagesWithoutTheirHistories() {
+		Long empty = carService.createCar("Toyota", "Corolla", 2018).getId();
+		Long driven = carService.createCar("Toyota", "Yaris", 2018).getId();
+		carService.createCar("Honda", "Civic", 2018);
+		LocalDateTime day = LocalDateTime.of(2025, 3, 1, 8, 0);
+		carService.addFuelEntry(driven, 40.0, 70.0, 1_000, day);
+		carService.addFuelEntry(driven, 40.0, 70.0, 1_800, day.plusDays(2));
+		// Back-dated, so the latest odometer reading stays the one from the last day
+		carService.addFuelEntry(driven, 40.0, 70.0, 1_400, day.plusDays(1));
+
+		CarPage<CarSummary> page = carService.getCarSummaryPage(null, 1, "toyota", 2018);
+		assertThat(page.getCars()).extracting(CarSummary::getId, CarSummary::getEntriesCount, CarSummary::getLastOdometer)
+				.containsExactly(tuple(empty, 0, null));
+		CarPage<CarSummary> next = carService.getCarSummaryPage(page.getNextCursor(), 1, "toyota", 2018);
+		assertThat(next.getCars()).extracting(CarSummary::getId, CarSummary::getEntriesCount, CarSummary::getLastOdometer)
+				.containsExactly(tuple(driven, 3, 1_800));
+		assertThat(next.getNextCursor()).isNull();
+
+		Car car = carService.getCarById(driven);
+		CarSummary summary = next.getCars().get(0);
+		assertThat(summary.getBrand()).isEqualTo(car.getBrand());
+		assertThat(summary.getModel()).isEqualTo(car.getModel());
+		assertThat(summary.getYear()).isEqualTo(car.getYear());
+		assertThat(summary.getCreatedAt()).isEqualTo(car.getCreatedAt());
+		assertThat(carService.getCarSummaryPage(null, 10, null, null).getCars()).extracting(CarSummary::getId)
+				.isEqualTo(ids(carService.getCarPage(null, 10, null, null)));
+	}
+
+	@Test
+	void rejectsOutOfRangeLimits() {
+		assertThatThrownBy(() -> carService.getCarPage(null, 0, null, null))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> carService.getCarPage(null, CarService.MAX_PAGE_SIZE + 1, null, null))
+				.isInstanceOf(InvalidRequestException.class);
+	}
+
+	private List<Long> pageThrough(int limit, String brand, Integer year) {
+		List<Long> ids = new ArrayList<>();
+		Long cursor = null;
+		do {
+			CarPage<Car> page = carService.getCarPage(cursor, limit, brand, year);
+			assertThat(page.getCars().size()).isLessThanOrEqualTo(limit);
+			ids.addAll(ids(page));
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		return ids;
+	}
+
+	private static List<Long> ids(CarPage<Car> page) {
+		return page.getCars().stream().map(Car::getId).toList();
+	}
+}
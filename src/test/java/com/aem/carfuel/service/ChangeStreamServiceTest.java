@@ -0,0 +1,182 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.model.ChangeEvent;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ChangeStreamServiceTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	private record Event(String id, String name, String data) {
+	}
+
+	@Value("${local.server.port}")
+	private int port;
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private ChangeStreamService changeStreamService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@Autowired
+	private JsonMapper jsonMapper;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	private final List<Stream<String>> streams = new ArrayList<>();
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@AfterEach
+	void closeStreams() {
+		streams.forEach(Stream::close);
+	}
+
+	@Test
+	void resumingAfterAnEventReplaysTheRestInOrder() throws Exception {
+		Iterator<String> live = connect(null);
+		for (int i = 0; i < 5; i++) {
+			carService.createCar("Brand" + i, "Model", 2000 + i);
+		}
+		List<Event> received = read(live, 5);
+		assertThat(received).extracting(Event::name).containsOnly("car-created");
+		for (int i = 1; i < received.size(); i++) {
+			assertThat(Long.parseLong(received.get(i).id())).isEqualTo(Long.parseLong(received.get(i - 1).id()) + 1);
+		}
+
+		List<Event> resumed = read(connect(received.get(1).id()), 3);
+
+		assertThat(resumed).isEqualTo(received.subList(2, 5));
+	}
+
+	@Test
+	void idFromAnEarlierRunIsAnnouncedAsAnOverflow() throws Exception {
+		Iterator<String> live = connect(null);
+		carService.createCar("Toyota", "Corolla", 2018);
+		Event first = read(live, 1).get(0);
+
+		// An earlier run numbered its events from an earlier clock reading
+		long earlier = Long.parseLong(first.id()) - 10_000_000L;
+		Iterator<String> resumed = connect(Long.toString(earlier));
+		carService.createCar("Honda", "Civic", 2021);
+
+		List<Event> events = read(resumed, 2);
+		assertThat(events.get(0).name()).isEqualTo(ChangeStreamService.OVERFLOW_EVENT);
+		assertThat(events.get(0).data()).isEqualTo("{\"missed\":-1}");
+		assertThat(events.get(1).name()).isEqualTo("car-created");
+		assertThat(events.get(1).data()).contains("\"brand\":\"Honda\"");
+	}
+
+	@Test
+	void concurrentPublishersLeaveNoGapsAndKeepTheirOrder() throws Exception {
+		Iterator<String> live = connect(null);
+		int publishers = 8;
+		int perPublisher = 400; // All of them fit in the ring, so nothing is evicted
+		CountDownLatch start = new CountDownLatch(1);
+		try (ExecutorService executor = Executors.newFixedThreadPool(publishers)) {
+			for (int publisher = 0; publisher < publishers; publisher++) {
+				long carId = publisher;
+				executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < perPublisher; i++) {
+						changeStreamService.publish(ChangeEvent.builder()
+								.type(ChangeEvent.Type.CAR_CREATED).carId(carId).year(i).build());
+					}
+					return null;
+				});
+			}
+			start.countDown();
+		}
+
+		List<Event> received = read(live, publishers * perPublisher);
+		assertThat(received).hasSize(publishers * perPublisher);
+		int[] nextYear = new int[publishers];
+		long firstId = Long.parseLong(received.get(0).id());
+		for (int i = 0; i < received.size(); i++) {
+			Event event = received.get(i);
+			assertThat(event.name()).isEqualTo("car-created");
+			assertThat(Long.parseLong(event.id())).isEqualTo(firstId + i);
+			JsonNode data = jsonMapper.readTree(event.data());
+			int publisher = data.get("carId").asInt();
+			assertThat(data.get("year").asInt()).isEqualTo(nextYear[publisher]++);
+		}
+		assertThat(nextYear).containsOnly(perPublisher);
+	}
+
+	private Iterator<String> connect(String lastEventId) throws IOException, InterruptedException {
+		int connected = changeStreamService.subscriberCount();
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/cars/events"))
+				.header("Accept", "text/event-stream");
+		if (lastEventId != null) {
+			request.header("Last-Event-ID", lastEventId);
+		}
+		HttpResponse<Stream<String>> response = client.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+		assertThat(response.statusCode()).isEqualTo(200);
+		streams.add(response.body());
+		assertThat(changeStreamService.subscriberCount()).isGreaterThan(connected);
+		return response.body().iterator();
+	}
+
+	/**
+	 * Read events, skipping comments such as heartbeats
+	 */
+	private static List<Event> read(Iterator<String> lines, int count) {
+		return assertTimeoutPreemptively(TIMEOUT, () -> {
+			List<Event> events = new ArrayList<>();
+			String id = null;
+			String name = null;
+			StringBuilder data = new StringBuilder();
+			while (events.size() < count && lines.hasNext()) {
+				String line = lines.next();
+				if (line.isEmpty()) {
+					if (name != null || !data.isEmpty()) {
+						events.add(new Event(id, name, data.toString()));
+					}
+					id = null;
+					name = null;
+					data.setLength(0);
+				} else if (line.startsWith("id:")) {
+					id = line.substring(3).trim();
+				} else if (line.startsWith("event:")) {
+					name = line.substring(6).trim();
+				} else if (line.startsWith("data:")) {
+					data.append(line.substring(5).trim());
+				}
+			}
+			return events;
+		});
+	}
+}
@@ -0,0 +1,142 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.IdWatermark;
+import com.aem.carfuel.model.ImportResult;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class FleetExportServiceTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 6, 1, 7, 30);
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private FleetExportService exportService;
+
+	@Autowired
+	private FleetImportService importService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void ndjsonExportImportsBackIntoAnEmptyInstance() throws IOException {
+		Car corolla = carService.createCar("Toyota", "Corolla", 2018);
+		carService.addFuelEntry(corolla.getId(), 40.0, 70.25, 10_000, START);
+		carService.addFuelEntry(corolla.getId(), 38.5, 66.0, 10_900, START.plusDays(9));
+		carService.addFuelEntry(corolla.getId(), 12.125, 20.5, 10_400, START.plusDays(4)); // back-dated
+		Car civic = carService.createCar("Honda", "Civic, \"Type R\"", 2021);
+		carService.addFuelEntry(civic.getId(), 0.0001, 0.0002, 3_000, START.plusHours(5));
+		carService.createCar("Mazda", "MX-5", 1990); // no entries
+
+		Map<String, List<FuelEntry>> before = entriesByCar();
+		byte[] export = ndjson(null, exportService.watermark());
+
+		storage.deleteAll();
+		ImportResult result = importService.importNdjson(new ByteArrayInputStream(export));
+
+		assertThat(result.getRejected()).isZero();
+		assertThat(result.getCarsCreated()).isEqualTo(3);
+		assertThat(result.getEntriesAccepted()).isEqualTo(4);
+		Map<String, List<FuelEntry>> after = entriesByCar();
+		assertThat(after.keySet()).isEqualTo(before.keySet());
+		before.forEach((car, entries) -> assertThat(withoutIds(after.get(car))).isEqualTo(withoutIds(entries)));
+	}
+
+	@Test
+	void reimportIntoTheSameInstanceIsRejected() throws IOException {
+		Car car = carService.createCar("Toyota", "Yaris", 2020);
+		carService.addFuelEntry(car.getId(), 30.0, 50.0, 1_000, START);
+
+		ImportResult result = importService.importNdjson(
+				new ByteArrayInputStream(ndjson(null, exportService.watermark())));
+
+		assertThat(result.getCarsCreated()).isZero();
+		assertThat(result.getEntriesAccepted()).isZero();
+		assertThat(result.getRejected()).isEqualTo(2);
+	}
+
+	@Test
+	void incrementalExportIncludesBackDatedEntriesRecordedSince() throws IOException {
+		Car car = carService.createCar("Skoda", "Fabia", 2017);
+		carService.addFuelEntry(car.getId(), 30.0, 50.0, 1_000, START);
+		carService.addFuelEntry(car.getId(), 31.0, 51.0, 2_000, START.plusDays(20));
+		Car untouched = carService.createCar("Seat", "Ibiza", 2016);
+		carService.addFuelEntry(untouched.getId(), 20.0, 40.0, 500, START);
+		IdWatermark first = exportService.watermark();
+
+		// Recorded after the first export, but with a refill time before its entries
+		carService.addFuelEntry(car.getId(), 29.0, 49.0, 1_500, START.plusDays(10));
+		Car added = carService.createCar("Kia", "Ceed", 2022);
+		IdWatermark second = exportService.watermark();
+		carService.addFuelEntry(car.getId(), 28.0, 48.0, 2_500, START.plusDays(30)); // after the second watermark
+
+		List<String> lines = new String(ndjson(first, second), StandardCharsets.UTF_8).lines().toList();
+
+		assertThat(lines).hasSize(3);
+		assertThat(lines.get(0)).contains("\"type\":\"car\"", "\"id\":" + car.getId());
+		assertThat(lines.get(1)).contains("\"type\":\"fuel\"", "\"odometer\":1500");
+		assertThat(lines.get(2)).contains("\"type\":\"car\"", "\"id\":" + added.getId());
+		assertThat(String.join("\n", lines)).doesNotContain("Ibiza");
+	}
+
+	@Test
+	void csvWritesPlainDecimals() throws IOException {
+		Car car = carService.createCar("Fiat", "Panda", 2012);
+		carService.addFuelEntry(car.getId(), 0.0001, 12345678.5, 100, START);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exportService.writeCsv(out, null, exportService.watermark());
+		List<String> rows = out.toString(StandardCharsets.UTF_8).lines().toList();
+
+		assertThat(rows).hasSize(2);
+		assertThat(rows.get(0)).isEqualTo(FleetExportService.CSV_HEADER);
+		assertThat(rows.get(1)).contains(",0.0001,12345678.5,100,").doesNotContain("E");
+	}
+
+	private byte[] ndjson(IdWatermark after, IdWatermark upTo) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exportService.writeNdjson(out, after, upTo);
+		return out.toByteArray();
+	}
+
+	private Map<String, List<FuelEntry>> entriesByCar() {
+		return storage.findAll().stream().collect(Collectors.toMap(
+				car -> car.getBrand() + "|" + car.getModel() + "|" + car.getYear(),
+				Car::getFuelEntries));
+	}
+
+	private static List<String> withoutIds(List<FuelEntry> entries) {
+		return entries.stream()
+				.sorted(Comparator.comparing(FuelEntry::getTimestamp))
+				.map(entry -> entry.getLiters() + "/" + entry.getPrice() + "/" + entry.getOdometer()
+						+ "/" + entry.getTimestamp())
+				.toList();
+	}
+}
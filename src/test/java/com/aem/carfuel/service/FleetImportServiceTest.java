@@ -0,0 +1,105 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.ImportReject;
+import com.aem.carfuel.model.ImportResult;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class FleetImportServiceTest {
+
+	@Autowired
+	private FleetImportService importService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void rejectsMistypedFieldsWithTheirLineNumbers() throws IOException {
+		ImportResult result = importNdjson("""
+				{"type":"car","ref":"c1","brand":"Toyota","model":"Corolla","year":2018}
+				{"type":"car","ref":"c2","brand":"Honda","model":"Civic","year":"2019"}
+				{"type":"fuel","car":"c1","liters":"forty","price":52.5,"odometer":45000}
+				{"type":"fuel","car":"c1","liters":40.0,"price":52.5,"odometer":45000.5}
+				{"type":"fuel","car":"c1","liters":{"value":40},"price":52.5,"odometer":45000}
+				{"type":"fuel","car":"c1","liters":40.0,"price":52.5,"odometer":45000,"timestamp":20251230}
+				{"type":"fuel","car":"c1","liters":40.0,"price":52.5,"odometer":45000,"note":{"ignored":[1,2]}}
+				""");
+
+		assertThat(result.getCompleted()).isTrue();
+		assertThat(result.getLinesRead()).isEqualTo(7);
+		assertThat(result.getCarsCreated()).isEqualTo(1);
+		assertThat(result.getEntriesAccepted()).isEqualTo(1);
+		assertThat(result.getRejects())
+				.extracting(ImportReject::getLine, ImportReject::getMessage)
+				.containsExactlyInAnyOrder(
+						tuple(2L, "Field 'year' must be an integer"),
+						tuple(3L, "Field 'liters' must be a finite number"),
+						tuple(4L, "Field 'odometer' must be an integer"),
+						tuple(5L, "Field 'liters' must be a finite number"),
+						tuple(6L, "Field 'timestamp' must be a string"));
+	}
+
+	@Test
+	void resolvesReferencesAcrossBatchesAndRejectsDuplicates() throws IOException {
+		int cars = FleetImportService.BATCH_SIZE + 10;
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < cars; i++) {
+			body.append(String.format("{\"type\":\"car\",\"ref\":\"c%d\",\"brand\":\"Brand%d\",\"model\":\"M\",\"year\":2020}%n", i, i));
+		}
+		body.append("{\"type\":\"car\",\"ref\":\"dup\",\"brand\":\"Brand0\",\"model\":\"M\",\"year\":2020}\n");
+		for (int i = 0; i < cars; i++) {
+			body.append(String.format("{\"type\":\"fuel\",\"car\":\"c%d\",\"liters\":40,\"price\":60.5,\"odometer\":1000}%n", i));
+		}
+		body.append("{\"type\":\"fuel\",\"car\":\"dup\",\"liters\":40,\"price\":60.5,\"odometer\":1000}\n");
+		body.append("{\"type\":\"fuel\",\"car\":\"nope\",\"liters\":40,\"price\":60.5,\"odometer\":1000}\n");
+
+		ImportResult result = importNdjson(body.toString());
+
+		assertThat(result.getCarsCreated()).isEqualTo(cars);
+		assertThat(result.getEntriesAccepted()).isEqualTo(cars);
+		assertThat(result.getRejected()).isEqualTo(3);
+		assertThat(result.getRejects()).extracting(ImportReject::getLine)
+				.containsExactlyInAnyOrder((long) cars + 1, 2L * cars + 2, 2L * cars + 3);
+		assertThat(storage.count()).isEqualTo(cars);
+		for (Car car : storage.findAll()) {
+			assertThat(car.getEntriesCount()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void redeclaredReferenceKeepsEarlierLinesOnTheFirstCar() throws IOException {
+		ImportResult result = importNdjson("""
+				{"type":"car","ref":"c","brand":"Audi","model":"A4","year":2015}
+				{"type":"fuel","car":"c","liters":40.0,"price":52.5,"odometer":1000}
+				{"type":"car","ref":"c","brand":"Audi","model":"A6","year":2016}
+				{"type":"fuel","car":"c","liters":41.0,"price":53.5,"odometer":2000}
+				""");
+
+		assertThat(result.getRejected()).isZero();
+		for (Car car : storage.findAll()) {
+			assertThat(car.getEntriesCount()).isEqualTo(1);
+			assertThat(car.getFuelEntries().get(0).getOdometer()).isEqualTo(car.getModel().equals("A4") ? 1000 : 2000);
+		}
+	}
+
+	private ImportResult importNdjson(String body) throws IOException {
+		return importService.importNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+	}
+}
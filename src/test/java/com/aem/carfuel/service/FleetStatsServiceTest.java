@@ -0,0 +1,134 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.exception.InvalidRequestException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FleetStats;
+import com.aem.carfuel.model.FuelStats;
+import com.aem.carfuel.service.FleetStatsService.GroupBy;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class FleetStatsServiceTest {
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private FleetStatsService fleetStatsService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void groupsAreAggregatedAndOrdered() {
+		Long corolla = carService.createCar("Toyota", "Corolla", 2018).getId();
+		Long yaris = carService.createCar("Toyota", "Yaris", 2018).getId();
+		Long civic = carService.createCar("Honda", "Civic", 2019).getId();
+		carService.createCar("Ford", "Focus", 2018);
+		carService.addFuelEntry(corolla, 40.0, 70.0, 1_000, null);
+		carService.addFuelEntry(corolla, 30.0, 50.0, 1_500, null);
+		carService.addFuelEntry(yaris, 20.0, 35.0, 800, null); // No distance, so no consumption
+		carService.addFuelEntry(civic, 45.0, 80.0, 2_000, null);
+		carService.addFuelEntry(civic, 35.0, 60.0, 3_000, null);
+
+		List<FleetStats> fleet = fleetStatsService.calculateFleetStats(EnumSet.noneOf(GroupBy.class));
+		assertThat(fleet).hasSize(1);
+		FleetStats total = fleet.get(0);
+		assertThat(total.getBrand()).isNull();
+		assertThat(total.getCarsCount()).isEqualTo(4);
+		assertThat(total.getEntriesCount()).isEqualTo(5);
+		assertThat(total.getTotalFuel()).isEqualTo(170.0);
+		assertThat(total.getTotalCost()).isEqualTo(295.0);
+		assertThat(total.getAvgConsumption()).isCloseTo(150.0 / 1_500 * 100, within(1e-9));
+
+		assertThat(fleetStatsService.calculateFleetStats(EnumSet.of(GroupBy.BRAND)))
+				.extracting(FleetStats::getBrand, FleetStats::getModel, FleetStats::getYear,
+						FleetStats::getCarsCount, FleetStats::getEntriesCount)
+				.containsExactly(
+						tuple("Ford", null, null, 1L, 0L),
+						tuple("Honda", null, null, 1L, 2L),
+						tuple("Toyota", null, null, 2L, 3L));
+
+		List<FleetStats> byBrandAndYear = fleetStatsService.calculateFleetStats(EnumSet.of(GroupBy.BRAND, GroupBy.YEAR));
+		assertThat(byBrandAndYear).extracting(FleetStats::getBrand, FleetStats::getYear)
+				.containsExactly(tuple("Ford", 2018), tuple("Honda", 2019), tuple("Toyota", 2018));
+		FleetStats toyota = byBrandAndYear.get(2);
+		assertThat(toyota.getTotalFuel()).isEqualTo(90.0);
+		// Only the Corolla has a distance; the Yaris does not dilute the average
+		assertThat(toyota.getAvgConsumption()).isCloseTo(70.0 / 500 * 100, within(1e-9));
+
+		assertThat(fleetStatsService.calculateFleetStats(EnumSet.of(GroupBy.YEAR)))
+				.extracting(FleetStats::getYear, FleetStats::getCarsCount)
+				.containsExactly(tuple(2018, 3L), tuple(2019, 1L));
+	}
+
+	@Test
+	void emptyFleetHasOneZeroTotalAndNoGroups() {
+		List<FleetStats> fleet = fleetStatsService.calculateFleetStats(EnumSet.noneOf(GroupBy.class));
+		assertThat(fleet).extracting(FleetStats::getCarsCount, FleetStats::getEntriesCount, FleetStats::getAvgConsumption)
+				.containsExactly(tuple(0L, 0L, 0.0));
+		assertThat(fleetStatsService.calculateFleetStats(EnumSet.of(GroupBy.MODEL))).isEmpty();
+	}
+
+	@Test
+	void parallelAggregationMatchesPerCarStatistics() {
+		Random random = new Random(9);
+		String[] brands = { "Toyota", "Honda", "Ford", "Audi" };
+		for (int i = 0; i < 400; i++) {
+			Long carId = carService.createCar(brands[i % brands.length], "Model" + i, 2000 + i % 20).getId();
+			int odometer = 1_000;
+			for (int entry = random.nextInt(4); entry > 0; entry--) {
+				odometer += random.nextInt(600);
+				carService.addFuelEntry(carId, 20.0 + random.nextInt(30), 30.0 + random.nextInt(60), odometer, null);
+			}
+		}
+
+		for (FleetStats group : fleetStatsService.calculateFleetStats(EnumSet.of(GroupBy.BRAND))) {
+			long cars = 0;
+			long entries = 0;
+			double liters = 0;
+			double cost = 0;
+			for (Car car : carService.getCars(group.getBrand(), null)) {
+				FuelStats stats = carService.calculateStats(car.getId());
+				cars++;
+				entries += stats.getEntriesCount();
+				liters += stats.getTotalFuel();
+				cost += stats.getTotalCost();
+			}
+			assertThat(group.getCarsCount()).isEqualTo(cars);
+			assertThat(group.getEntriesCount()).isEqualTo(entries);
+			assertThat(group.getTotalFuel()).isCloseTo(liters, within(1e-6));
+			assertThat(group.getTotalCost()).isCloseTo(cost, within(1e-6));
+		}
+	}
+
+	@Test
+	void parsesGroupByLists() {
+		assertThat(FleetStatsService.parseGroupBy(null)).isEmpty();
+		assertThat(FleetStatsService.parseGroupBy(" ")).isEmpty();
+		Set<GroupBy> parsed = FleetStatsService.parseGroupBy("brand, YEAR");
+		assertThat(parsed).containsExactlyInAnyOrder(GroupBy.BRAND, GroupBy.YEAR);
+		assertThatThrownBy(() -> FleetStatsService.parseGroupBy("brand,color"))
+				.isInstanceOf(InvalidRequestException.class)
+				.hasMessage("groupBy must be a list of brand, model and year");
+	}
+}
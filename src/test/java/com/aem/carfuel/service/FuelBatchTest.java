@@ -0,0 +1,63 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.dto.FuelBatchItem;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelBatchItemResult;
+import com.aem.carfuel.model.FuelBatchResult;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class FuelBatchTest {
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void itemWithSeveralViolationsAlwaysReportsTheSameOne() {
+		FuelBatchItem invalid = FuelBatchItem.builder().liters(-1.0).price(-2.0).odometer(-3).build();
+		List<FuelBatchItem> items = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			items.add(invalid);
+		}
+
+		FuelBatchResult result = carService.addFuelEntries(items);
+
+		assertThat(result.getRejected()).isEqualTo(50);
+		assertThat(result.getResults()).extracting(FuelBatchItemResult::getMessage).containsOnly("Car ID is required");
+	}
+
+	@Test
+	void validItemsAreAcceptedAndBadOnesRejectedOnTheirOwn() {
+		Car car = carService.createCar("Toyota", "Corolla", 2018);
+		LocalDateTime start = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+		FuelBatchResult result = carService.addFuelEntries(List.of(
+				FuelBatchItem.builder().carId(car.getId()).liters(40.0).price(70.0).odometer(1_000).timestamp(start).build(),
+				FuelBatchItem.builder().carId(car.getId()).liters(40.0).price(-1.0).odometer(1_500).timestamp(start.plusDays(1)).build(),
+				FuelBatchItem.builder().carId(car.getId() + 1000).liters(40.0).price(70.0).odometer(1_500).build(),
+				FuelBatchItem.builder().carId(car.getId()).liters(35.0).price(60.0).odometer(1_600).timestamp(start.plusDays(2)).build()));
+
+		assertThat(result.getAccepted()).isEqualTo(2);
+		assertThat(result.getResults()).extracting(FuelBatchItemResult::getMessage).containsExactly(
+				null, "Price must be positive", "Car not found with id: " + (car.getId() + 1000), null);
+		assertThat(carService.calculateStats(car.getId()).getEntriesCount()).isEqualTo(2);
+	}
+}
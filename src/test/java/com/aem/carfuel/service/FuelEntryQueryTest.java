@@ -0,0 +1,104 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.exception.CarNotFoundException;
+import com.aem.carfuel.exception.InvalidRequestException;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class FuelEntryQueryTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void rangesMatchAFilterOfTheWholeHistory() {
+		Long carId = carWithShuffledEntries(120);
+		List<FuelEntry> all = carService.getCarById(carId).getFuelEntries();
+		Random random = new Random(5);
+
+		for (int probe = 0; probe < 200; probe++) {
+			LocalDateTime from = random.nextInt(5) == 0 ? null : START.plusMinutes(random.nextInt(130 * 60) - 300);
+			LocalDateTime to = random.nextInt(5) == 0 ? null : START.plusMinutes(random.nextInt(130 * 60) - 300);
+			if (from != null && to != null && from.isAfter(to)) {
+				continue;
+			}
+			int limit = 1 + random.nextInt(50);
+
+			List<FuelEntry> expected = all.stream()
+					.filter(entry -> from == null || !entry.getTimestamp().isBefore(from))
+					.filter(entry -> to == null || !entry.getTimestamp().isAfter(to))
+					.limit(limit)
+					.toList();
+			assertThat(carService.getFuelEntries(carId, from, to, limit)).extracting(FuelEntry::getId)
+					.as("from %s to %s, limit %d", from, to, limit)
+					.containsExactlyElementsOf(expected.stream().map(FuelEntry::getId).toList());
+		}
+	}
+
+	@Test
+	void boundsAreInclusive() {
+		Long carId = carWithShuffledEntries(10);
+
+		assertThat(carService.getFuelEntries(carId, START.plusHours(3), START.plusHours(5), 10))
+				.extracting(FuelEntry::getTimestamp)
+				.containsExactly(START.plusHours(3), START.plusHours(4), START.plusHours(5));
+		assertThat(carService.getFuelEntries(carId, START.plusHours(4), START.plusHours(4), 10)).hasSize(1);
+		assertThat(carService.getFuelEntries(carId, START.plusHours(4).plusMinutes(1), START.plusHours(4).plusMinutes(59), 10))
+				.isEmpty();
+		assertThat(carService.getFuelEntries(carId, START.plusHours(20), null, 10)).isEmpty();
+	}
+
+	@Test
+	void rejectsInvalidQueries() {
+		Long carId = carWithShuffledEntries(2);
+
+		assertThatThrownBy(() -> carService.getFuelEntries(carId, START.plusHours(1), START, 10))
+				.isInstanceOf(InvalidRequestException.class).hasMessage("from must not be after to");
+		assertThatThrownBy(() -> carService.getFuelEntries(carId, null, null, 0))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> carService.getFuelEntries(carId, null, null, CarService.MAX_PAGE_SIZE + 1))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> carService.getFuelEntries(-1L, null, null, 10))
+				.isInstanceOf(CarNotFoundException.class);
+	}
+
+	/**
+	 * A car with one entry per hour from {@link #START}, added in shuffled order
+	 */
+	private Long carWithShuffledEntries(int count) {
+		Long carId = carService.createCar("Toyota", "Corolla", 2018).getId();
+		List<Integer> hours = new ArrayList<>();
+		for (int hour = 0; hour < count; hour++) {
+			hours.add(hour);
+		}
+		Collections.shuffle(hours, new Random(count));
+		for (int hour : hours) {
+			carService.addFuelEntry(carId, 40.0, 70.0, 1_000 + hour * 100, START.plusHours(hour));
+		}
+		return carId;
+	}
+}
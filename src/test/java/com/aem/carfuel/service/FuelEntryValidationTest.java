@@ -0,0 +1,170 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.dto.AddFuelRequest;
+import com.aem.carfuel.dto.FuelBatchItem;
+import com.aem.carfuel.exception.InvalidRequestException;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelBatchItemResult;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelHistory;
+import com.aem.carfuel.model.ImportReject;
+import com.aem.carfuel.model.ImportResult;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class FuelEntryValidationTest {
+
+	private static final LocalDateTime EARLIEST = FuelHistory.EARLIEST_TIMESTAMP;
+
+	@Value("${local.server.port}")
+	private int port;
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private FleetImportService importService;
+
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void timestampsFromTheEarliestSupportedOneAreValid() {
+		assertThat(violations(EARLIEST)).isEmpty();
+		assertThat(violations(null)).isEmpty();
+		assertThat(violations(EARLIEST.minusNanos(1))).containsExactly("Timestamp cannot be before 1900-01-01T00:00");
+		assertThat(violations(LocalDateTime.of(1500, 1, 1, 0, 0))).containsExactly("Timestamp cannot be before 1900-01-01T00:00");
+		assertThat(violations(LocalDateTime.now().plusDays(1))).containsExactly("Timestamp cannot be in the future");
+	}
+
+	@Test
+	void earlyTimestampIsABadRequest() throws Exception {
+		Car car = carService.createCar("Toyota", "Corolla", 2018);
+
+		HttpResponse<String> early = postFuel(car, "1500-01-01T00:00:00");
+		assertThat(early.statusCode()).isEqualTo(400);
+		assertThat(early.body()).contains("Timestamp cannot be before 1900-01-01T00:00");
+
+		assertThat(postFuel(car, "1900-01-01T00:00:00").statusCode()).isEqualTo(200);
+		assertThat(carService.getCarById(car.getId()).getEntriesCount()).isEqualTo(1);
+	}
+
+	@Test
+	void batchItemsAndImportLinesWithEarlyTimestampsAreRejected() throws Exception {
+		Car car = carService.createCar("Toyota", "Corolla", 2018);
+
+		List<FuelBatchItemResult> results = carService.addFuelEntries(List.of(
+				FuelBatchItem.builder().carId(car.getId()).liters(40.0).price(70.0).odometer(1_000)
+						.timestamp(LocalDateTime.of(1500, 1, 1, 0, 0)).build(),
+				FuelBatchItem.builder().carId(car.getId()).liters(40.0).price(70.0).odometer(1_000)
+						.timestamp(EARLIEST).build())).getResults();
+		assertThat(results).extracting(FuelBatchItemResult::getMessage)
+				.containsExactly("Timestamp cannot be before 1900-01-01T00:00", null);
+
+		String ndjson = """
+				{"type":"fuel","carId":%d,"liters":40.0,"price":70.0,"odometer":2000,"timestamp":"1677-01-01T00:00:00"}
+				{"type":"fuel","carId":%d,"liters":40.0,"price":70.0,"odometer":2000,"timestamp":"2025-01-01T00:00:00"}
+				""".formatted(car.getId(), car.getId());
+		ImportResult imported = importService.importNdjson(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+		assertThat(imported.getEntriesAccepted()).isEqualTo(1);
+		assertThat(imported.getRejects()).extracting(ImportReject::getLine, ImportReject::getMessage)
+				.containsExactly(tuple(1L, "Timestamp cannot be before 1900-01-01T00:00"));
+		assertThat(carService.getCarById(car.getId()).getEntriesCount()).isEqualTo(2);
+	}
+
+	@Test
+	void queryWindowsCannotStartBeforeTheEarliestTimestamp() {
+		Long carId = carService.createCar("Toyota", "Corolla", 2018).getId();
+		LocalDateTime early = EARLIEST.minusNanos(1);
+
+		assertThatThrownBy(() -> carService.calculateStats(carId, early, null, null, null))
+				.isInstanceOf(InvalidRequestException.class).hasMessage("from cannot be before 1900-01-01T00:00");
+		assertThatThrownBy(() -> carService.calculateStats(carId, null, early, null, null))
+				.isInstanceOf(InvalidRequestException.class).hasMessage("to cannot be before 1900-01-01T00:00");
+		assertThatThrownBy(() -> carService.calculateStats(carId, null, null, Integer.MAX_VALUE, null))
+				.isInstanceOf(InvalidRequestException.class).hasMessageStartingWith("lastDays cannot reach back");
+		assertThatThrownBy(() -> carService.getFuelEntries(carId, early, null, 10))
+				.isInstanceOf(InvalidRequestException.class).hasMessage("from cannot be before 1900-01-01T00:00");
+
+		int daysSinceEarliest = (int) ChronoUnit.DAYS.between(EARLIEST, LocalDateTime.now());
+		assertThat(carService.calculateStats(carId, null, null, daysSinceEarliest, null).getEntriesCount()).isZero();
+		assertThat(carService.calculateStats(carId, EARLIEST, null, null, null).getEntriesCount()).isZero();
+	}
+
+	@Test
+	void backDatedOdometerMustFitBetweenItsNeighbors() {
+		Car car = carService.createCar("Toyota", "Corolla", 2018);
+		Long carId = car.getId();
+		LocalDateTime day = LocalDateTime.of(2025, 3, 1, 8, 0);
+		carService.addFuelEntry(carId, 40.0, 70.0, 1_000, day);
+		carService.addFuelEntry(carId, 40.0, 70.0, 3_000, day.plusDays(2));
+
+		assertThatThrownBy(() -> carService.addFuelEntry(carId, 40.0, 70.0, 999, day.plusDays(1)))
+				.isInstanceOf(InvalidRequestException.class)
+				.hasMessage("Invalid odometer reading: 999 km. Cannot be less than previous reading: 1000 km");
+		assertThatThrownBy(() -> carService.addFuelEntry(carId, 40.0, 70.0, 3_001, day.plusDays(1)))
+				.isInstanceOf(InvalidRequestException.class)
+				.hasMessage("Invalid odometer reading: 3001 km. Cannot be greater than later reading: 3000 km");
+		// Before the first entry, only that entry bounds the reading
+		assertThatThrownBy(() -> carService.addFuelEntry(carId, 40.0, 70.0, 1_001, day.minusDays(1)))
+				.isInstanceOf(InvalidRequestException.class)
+				.hasMessage("Invalid odometer reading: 1001 km. Cannot be greater than later reading: 1000 km");
+
+		carService.addFuelEntry(carId, 40.0, 70.0, 1_000, day.plusDays(1));
+		carService.addFuelEntry(carId, 40.0, 70.0, 3_000, day.plusDays(1).plusHours(1));
+		carService.addFuelEntry(carId, 30.0, 50.0, 500, day.minusDays(1));
+
+		assertThat(carService.getCarById(carId).getFuelEntries()).extracting(FuelEntry::getOdometer)
+				.containsExactly(500, 1_000, 1_000, 3_000, 3_000);
+		assertThat(carService.calculateStats(carId).getAvgConsumption()).isEqualTo(190.0 / 2_500 * 100);
+	}
+
+	private List<String> violations(LocalDateTime timestamp) {
+		AddFuelRequest request = AddFuelRequest.builder().liters(40.0).price(70.0).odometer(1_000)
+				.timestamp(timestamp).build();
+		return validator.validate(request).stream().map(ConstraintViolation::getMessage).toList();
+	}
+
+	private HttpResponse<String> postFuel(Car car, String timestamp) throws Exception {
+		String body = """
+				{"liters":40.0,"price":70.0,"odometer":1000,"timestamp":"%s"}""".formatted(timestamp);
+		HttpRequest request = HttpRequest.newBuilder(
+						URI.create("http://localhost:" + port + "/api/cars/" + car.getId() + "/fuel"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,118 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelStats;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+class FuelStatsTest {
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void runningAggregatesMatchARecomputationAfterEveryAppend() {
+		Long carId = carService.createCar("Toyota", "Corolla", 2018).getId();
+		assertThat(carService.calculateStats(carId).getEntriesCount()).isZero();
+
+		// Odometer readings grow with time, so any insertion order is valid, back-dated ones included
+		List<Integer> slots = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			slots.add(i);
+		}
+		Collections.shuffle(slots, new Random(11));
+		LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+		Random random = new Random(3);
+		for (int slot : slots) {
+			carService.addFuelEntry(carId, 20.0 + random.nextInt(300) / 10.0, 30.0 + random.nextInt(600) / 10.0,
+					10_000 + slot * 450, start.plusHours(slot));
+
+			FuelStats stats = carService.calculateStats(carId);
+			FuelStats expected = recompute(carService.getCarById(carId).getFuelEntries());
+			assertThat(stats.getEntriesCount()).isEqualTo(expected.getEntriesCount());
+			assertThat(stats.getTotalFuel()).isCloseTo(expected.getTotalFuel(), within(1e-9));
+			assertThat(stats.getTotalCost()).isCloseTo(expected.getTotalCost(), within(1e-9));
+			assertThat(stats.getAvgConsumption()).isCloseTo(expected.getAvgConsumption(), within(1e-9));
+		}
+	}
+
+	@Test
+	void concurrentReadersNeverGetStatsOfAnEarlierVersion() throws Exception {
+		Long carId = carService.createCar("Toyota", "Corolla", 2018).getId();
+		int entries = 500;
+
+		AtomicBoolean writing = new AtomicBoolean(true);
+		try (ExecutorService executor = Executors.newFixedThreadPool(9)) {
+			List<Future<Integer>> reads = new ArrayList<>();
+			for (int reader = 0; reader < 8; reader++) {
+				reads.add(executor.submit(() -> {
+					int checked = 0;
+					while (writing.get()) {
+						int committed = carService.getCarById(carId).getEntriesCount();
+						FuelStats stats = carService.calculateStats(carId);
+						// A shared result may be newer than the caller's version, never older
+						assertThat(stats.getEntriesCount()).isGreaterThanOrEqualTo(committed);
+						assertThat(stats.getTotalFuel()).isEqualTo(40.0 * stats.getEntriesCount());
+						checked++;
+					}
+					return checked;
+				}));
+			}
+
+			for (int i = 0; i < entries; i++) {
+				carService.addFuelEntry(carId, 40.0, 70.0, 1_000 + i * 500, null);
+				// Every caller after the write sees it, whether or not it joined a running computation
+				assertThat(carService.calculateStats(carId).getEntriesCount()).isEqualTo(i + 1);
+			}
+			writing.set(false);
+			for (Future<Integer> read : reads) {
+				assertThat(read.get()).isPositive();
+			}
+		}
+	}
+
+	/**
+	 * Statistics computed from scratch over entries in time order
+	 */
+	private static FuelStats recompute(List<FuelEntry> entries) {
+		double liters = 0;
+		double cost = 0;
+		for (FuelEntry entry : entries) {
+			liters += entry.getLiters();
+			cost += entry.getPrice();
+		}
+		int distance = entries.isEmpty() ? 0
+				: entries.get(entries.size() - 1).getOdometer() - entries.get(0).getOdometer();
+		return FuelStats.builder()
+				.entriesCount(entries.size())
+				.totalFuel(liters)
+				.totalCost(cost)
+				.avgConsumption(entries.size() >= 2 && distance > 0 ? liters / distance * 100 : 0.0)
+				.build();
+	}
+}
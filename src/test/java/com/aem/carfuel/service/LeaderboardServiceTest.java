@@ -0,0 +1,150 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.exception.InvalidRequestException;
+import com.aem.carfuel.model.FuelStats;
+import com.aem.carfuel.model.LeaderboardEntry;
+import com.aem.carfuel.service.LeaderboardService.Metric;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class LeaderboardServiceTest {
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private LeaderboardService leaderboardService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void carsAreRankedByValueThenId() {
+		Long cheap = carService.createCar("Toyota", "Corolla", 2018).getId();
+		Long pricey = carService.createCar("Audi", "A6", 2020).getId();
+		Long tied = carService.createCar("Honda", "Civic", 2021).getId();
+		carService.createCar("Ford", "Focus", 2019); // No entries, so not ranked
+		carService.addFuelEntry(cheap, 40.0, 50.0, 1_000, null);
+		carService.addFuelEntry(pricey, 40.0, 90.0, 1_000, null);
+		carService.addFuelEntry(tied, 40.0, 50.0, 1_000, null);
+
+		assertThat(leaderboardService.top(Metric.COST, null))
+				.extracting(LeaderboardEntry::getRank, LeaderboardEntry::getCarId)
+				.containsExactly(
+						tuple(1, pricey), tuple(2, cheap), tuple(3, tied));
+		// One entry gives no distance, so no consumption yet
+		assertThat(leaderboardService.top(Metric.CONSUMPTION, null)).isEmpty();
+
+		carService.addFuelEntry(cheap, 10.0, 12.0, 1_500, null);
+		assertThat(leaderboardService.top(Metric.CONSUMPTION, 1)).extracting(LeaderboardEntry::getCarId)
+				.containsExactly(cheap);
+		assertThat(leaderboardService.top(Metric.COST, 1)).extracting(LeaderboardEntry::getCarId)
+				.containsExactly(pricey);
+
+		assertThatThrownBy(() -> leaderboardService.top(Metric.COST, 0))
+				.isInstanceOf(InvalidRequestException.class);
+		assertThatThrownBy(() -> LeaderboardService.parseMetric("speed"))
+				.isInstanceOf(InvalidRequestException.class);
+	}
+
+	@Test
+	void rankingStaysOrderedUnderConcurrentUpdates() throws Exception {
+		int writers = 4;
+		int carsPerWriter = 6;
+		int entriesPerCar = 150;
+		List<Long> carIds = new ArrayList<>();
+		for (int i = 0; i < writers * carsPerWriter; i++) {
+			carIds.add(carService.createCar("Brand" + i, "Model", 2000 + i).getId());
+		}
+
+		AtomicBoolean writing = new AtomicBoolean(true);
+		try (ExecutorService executor = Executors.newFixedThreadPool(writers + 2)) {
+			List<Future<?>> writes = new ArrayList<>();
+			for (int writer = 0; writer < writers; writer++) {
+				// Each writer owns its cars, so its odometer readings stay in order
+				List<Long> owned = carIds.subList(writer * carsPerWriter, (writer + 1) * carsPerWriter);
+				Random random = new Random(writer);
+				writes.add(executor.submit(() -> {
+					int[] odometers = new int[owned.size()];
+					for (int i = 0; i < entriesPerCar; i++) {
+						for (int car = 0; car < owned.size(); car++) {
+							odometers[car] += 300 + random.nextInt(400);
+							carService.addFuelEntry(owned.get(car), 20.0 + random.nextInt(40),
+									30.0 + random.nextInt(90), odometers[car], null);
+						}
+					}
+				}));
+			}
+
+			List<Future<Integer>> reads = new ArrayList<>();
+			for (Metric metric : Metric.values()) {
+				reads.add(executor.submit(() -> {
+					int checked = 0;
+					while (writing.get()) {
+						assertRanked(leaderboardService.top(metric, null));
+						checked++;
+					}
+					return checked;
+				}));
+			}
+
+			for (Future<?> write : writes) {
+				write.get();
+			}
+			writing.set(false);
+			for (Future<Integer> read : reads) {
+				assertThat(read.get()).isPositive();
+			}
+		}
+
+		// Once writes settle, each ranking matches the cars' own statistics
+		List<Long> byCost = new ArrayList<>(carIds);
+		byCost.sort(Comparator.comparing((Long carId) -> -carService.calculateStats(carId).getTotalCost())
+				.thenComparing(Comparator.naturalOrder()));
+		List<LeaderboardEntry> costTop = leaderboardService.top(Metric.COST, null);
+		assertThat(costTop).extracting(LeaderboardEntry::getCarId).containsExactlyElementsOf(byCost);
+		for (LeaderboardEntry entry : costTop) {
+			FuelStats stats = carService.calculateStats(entry.getCarId());
+			assertThat(entry.getValue()).isEqualTo(stats.getTotalCost());
+		}
+		for (LeaderboardEntry entry : leaderboardService.top(Metric.CONSUMPTION, null)) {
+			assertThat(entry.getValue()).isEqualTo(carService.calculateStats(entry.getCarId()).getAvgConsumption());
+		}
+		assertRanked(leaderboardService.top(Metric.CONSUMPTION, null));
+	}
+
+	/**
+	 * Check that ranks run from 1 and values never increase; each car appears once
+	 */
+	private static void assertRanked(List<LeaderboardEntry> entries) {
+		assertThat(entries).extracting(LeaderboardEntry::getCarId).doesNotHaveDuplicates();
+		for (int i = 0; i < entries.size(); i++) {
+			assertThat(entries.get(i).getRank()).isEqualTo(i + 1);
+			if (i > 0) {
+				assertThat(entries.get(i).getValue()).isLessThanOrEqualTo(entries.get(i - 1).getValue());
+			}
+		}
+	}
+}
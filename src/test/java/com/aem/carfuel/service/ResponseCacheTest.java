@@ -0,0 +1,81 @@
+package com.aem.carfuel.service;
+
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelEntry;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+	private static final int CAPACITY = 64;
+
+	private final ResponseCache cache = new ResponseCache(JsonMapper.builder().build(), CAPACITY);
+
+	private final AtomicInteger renders = new AtomicInteger();
+
+	@Test
+	void hitsServeTheCachedBytesUntilTheCarChanges() {
+		Car car = car(1);
+		byte[] first = get(car);
+
+		assertThat(get(car)).isSameAs(first);
+		assertThat(renders).hasValue(1);
+
+		car.addFuelEntry(FuelEntry.builder().id(1L).liters(40.0).price(70.0).odometer(1_000)
+				.timestamp(LocalDateTime.of(2025, 1, 1, 8, 0)).build());
+		assertThat(new String(get(car), StandardCharsets.UTF_8)).contains("\"odometer\":1000");
+		assertThat(renders).hasValue(2);
+	}
+
+	@Test
+	void invalidatedViewsAreRenderedAgain() {
+		Car car = car(1);
+		get(car);
+		cache.invalidate(car.getId());
+		get(car);
+
+		assertThat(renders).hasValue(2);
+	}
+
+	@Test
+	void staysBoundedAndKeepsRecentlyUsedEntries() {
+		Car hot = car(0);
+		byte[] hotBody = get(hot);
+		List<Car> cold = new ArrayList<>();
+		for (int i = 1; i <= 20 * CAPACITY; i++) {
+			Car car = car(i);
+			cold.add(car);
+			get(car);
+			assertThat(get(hot)).isSameAs(hotBody);
+		}
+		assertThat(renders).hasValue(1 + 20 * CAPACITY);
+
+		renders.set(0);
+		for (Car car : cold) {
+			get(car);
+			assertThat(get(hot)).isSameAs(hotBody);
+		}
+		assertThat(renders.get()).isGreaterThanOrEqualTo(19 * CAPACITY);
+	}
+
+	private byte[] get(Car car) {
+		return cache.get(car, ResponseCache.View.STATS, () -> {
+			renders.incrementAndGet();
+			return Map.of("car", car.getId(), "entries", car.getFuelEntries());
+		});
+	}
+
+	private static Car car(long id) {
+		return Car.builder().id(id).brand("Brand").model("Model").year(2020)
+				.createdAt(LocalDateTime.of(2024, 1, 1, 0, 0)).build();
+	}
+}
@@ -0,0 +1,121 @@
+package com.aem.carfuel.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+	private final SingleFlight<String, Integer> flights = new SingleFlight<>();
+
+	private final AtomicInteger computations = new AtomicInteger();
+
+	@Test
+	void concurrentCallersShareOneComputation() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<Object> outcomes = new ArrayList<>();
+		List<Thread> callers = startCallers(8, () -> flights.execute("car-1", () -> {
+			computations.incrementAndGet();
+			await(release);
+			return 42;
+		}), outcomes);
+
+		release.countDown();
+		for (Thread caller : callers) {
+			caller.join();
+		}
+
+		assertThat(computations).hasValue(1);
+		assertThat(outcomes).hasSize(8).containsOnly(42);
+		assertThat(flights.inFlightCount()).isZero();
+
+		// Completed flights are not cached
+		assertThat(flights.execute("car-1", computations::incrementAndGet)).isEqualTo(2);
+	}
+
+	@Test
+	void followersGetTheLeadersException() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("boom");
+		List<Object> outcomes = new ArrayList<>();
+		List<Thread> callers = startCallers(4, () -> flights.execute("car-1", () -> {
+			computations.incrementAndGet();
+			await(release);
+			throw failure;
+		}), outcomes);
+
+		release.countDown();
+		for (Thread caller : callers) {
+			caller.join();
+		}
+
+		assertThat(computations).hasValue(1);
+		// Rethrown unchanged, not wrapped in a CompletionException
+		assertThat(outcomes).hasSize(4).allSatisfy(outcome -> assertThat(outcome).isSameAs(failure));
+		assertThat(flights.inFlightCount()).isZero();
+	}
+
+	@Test
+	void differentKeysDoNotShare() {
+		assertThat(flights.execute("car-1@1", computations::incrementAndGet)).isEqualTo(1);
+		assertThat(flights.execute("car-1@2", () -> flights.execute("car-2@1", computations::incrementAndGet)))
+				.isEqualTo(2);
+		assertThatThrownBy(() -> flights.execute("car-1@2", () -> {
+			throw new IllegalArgumentException("unknown car");
+		})).isInstanceOf(IllegalArgumentException.class).hasMessage("unknown car");
+	}
+
+	/**
+	 * Start a leader, then followers once the leader is in flight, and return
+	 * once all of them are waiting for its result. Each caller adds its result
+	 * or exception to the outcomes.
+	 */
+	private List<Thread> startCallers(int count, Supplier<Integer> call, List<Object> outcomes)
+			throws InterruptedException {
+		Runnable caller = () -> {
+			Object outcome;
+			try {
+				outcome = call.get();
+			} catch (RuntimeException e) {
+				outcome = e;
+			}
+			synchronized (outcomes) {
+				outcomes.add(outcome);
+			}
+		};
+
+		List<Thread> callers = new ArrayList<>();
+		callers.add(Thread.ofPlatform().start(caller));
+		waitUntil(() -> flights.inFlightCount() == 1);
+		for (int i = 1; i < count; i++) {
+			callers.add(Thread.ofPlatform().start(caller));
+		}
+		waitUntil(() -> callers.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING));
+		return callers;
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+			Thread.sleep(1);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
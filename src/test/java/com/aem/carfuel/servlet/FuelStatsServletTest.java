@@ -0,0 +1,99 @@
+package com.aem.carfuel.servlet;
+
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.service.CarService;
+import com.aem.carfuel.storage.InMemoryCarStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class FuelStatsServletTest {
+
+	@Value("${local.server.port}")
+	private int port;
+
+	@Autowired
+	private CarService carService;
+
+	@Autowired
+	private InMemoryCarStorage storage;
+
+	@Autowired
+	private JsonMapper jsonMapper;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@BeforeEach
+	void clearStorage() {
+		storage.deleteAll();
+	}
+
+	@Test
+	void singleCarErrorsAreJsonBodies() throws Exception {
+		HttpResponse<String> missing = get("?carId=424242");
+		assertThat(missing.statusCode()).isEqualTo(404);
+		assertThat(missing.body()).isEqualTo("{\"message\":\"Car not found with id: 424242\",\"status\":404}");
+
+		HttpResponse<String> invalid = get("?carId=abc");
+		assertThat(invalid.statusCode()).isEqualTo(400);
+		assertThat(invalid.body()).contains("\"status\":400");
+	}
+
+	@Test
+	void postedReportStreamsOneElementPerCar() throws Exception {
+		Car car = carService.createCar("Toyota", "Corolla", 2018);
+		carService.addFuelEntry(car.getId(), 40.0, 70.0, 1_000, LocalDateTime.of(2025, 1, 1, 8, 0));
+
+		HttpResponse<String> report = post("[" + car.getId() + ", 424242]");
+
+		assertThat(report.statusCode()).isEqualTo(200);
+		assertThat(report.body())
+				.startsWith("[{\"carId\":" + car.getId() + ",\"status\":200,\"stats\":{")
+				.endsWith(",{\"carId\":424242,\"status\":404,\"message\":\"Car not found with id: 424242\"}]");
+
+		JsonNode elements = jsonMapper.readTree(report.body());
+		assertThat(elements).hasSize(2);
+		assertThat(elements.get(1).get("message").asString()).isEqualTo("Car not found with id: 424242");
+	}
+
+	@Test
+	void invalidPostedReportIsRejected() throws Exception {
+		HttpResponse<String> notArray = post("{\"carIds\":[1]}");
+		assertThat(notArray.statusCode()).isEqualTo(400);
+		assertThat(notArray.body())
+				.isEqualTo("{\"message\":\"Request body must be a JSON array of car IDs\",\"status\":400}");
+
+		HttpResponse<String> empty = post("[]");
+		assertThat(empty.statusCode()).isEqualTo(400);
+		assertThat(empty.body()).contains("between 1 and " + FuelStatsServlet.MAX_CAR_IDS);
+	}
+
+	private HttpResponse<String> get(String query) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(uri(query)).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpResponse<String> post(String body) throws IOException, InterruptedException {
+		return client.send(HttpRequest.newBuilder(uri(""))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String query) {
+		return URI.create("http://localhost:" + port + "/servlet/fuel-stats" + query);
+	}
+}
@@ -0,0 +1,64 @@
+package com.aem.carfuel.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ByteBufferDataInputTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsValuesStraddlingMappingWindows() throws IOException {
+		Path file = directory.resolve("values.bin");
+		try (OutputStream stream = Files.newOutputStream(file);
+			 DataOutputStream out = new DataOutputStream(stream)) {
+			for (int i = 0; i < 100; i++) {
+				out.writeLong(i * 1_000_000_007L);
+				out.writeUTF("car-" + i);
+				out.writeDouble(i / 3.0);
+				out.writeInt(-i);
+			}
+		}
+
+		// Windows far smaller than the values force a remap inside most of them
+		for (int window : new int[] {3, 7, 16, 1 << 20}) {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				ByteBufferDataInput in = new ByteBufferDataInput(channel, channel.size(), window);
+				for (int i = 0; i < 100; i++) {
+					assertThat(in.readLong()).isEqualTo(i * 1_000_000_007L);
+					assertThat(in.readUTF()).isEqualTo("car-" + i);
+					assertThat(in.readDouble()).isEqualTo(i / 3.0);
+					assertThat(in.readInt()).isEqualTo(-i);
+				}
+				assertThat(in.position()).isEqualTo(channel.size());
+				assertThatThrownBy(in::readByte).isInstanceOf(EOFException.class);
+			}
+		}
+	}
+
+	@Test
+	void stopsAtTheLimitBeforeTheEndOfTheFile() throws IOException {
+		Path file = directory.resolve("limited.bin");
+		Files.write(file, new byte[] {0, 0, 0, 42, 0, 0, 0, 7});
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBufferDataInput in = new ByteBufferDataInput(channel, 6, 4);
+			assertThat(in.readInt()).isEqualTo(42);
+			assertThatThrownBy(in::readInt).isInstanceOf(EOFException.class);
+			assertThat(in.skipBytes(10)).isEqualTo(2);
+		}
+	}
+}
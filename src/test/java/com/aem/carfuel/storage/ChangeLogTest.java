@@ -0,0 +1,168 @@
+package com.aem.carfuel.storage;
+
+import com.aem.carfuel.model.Change;
+import com.aem.carfuel.model.ChangeEvent;
+import com.aem.carfuel.model.ChangeFeed;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeLogTest {
+
+	private static final int CAPACITY = 16;
+
+	private static final long ALL_DURABLE = Long.MAX_VALUE;
+
+	private final ChangeLog changeLog = new ChangeLog(CAPACITY);
+
+	@Test
+	void readsArePagedGapFreeInSequenceOrder() {
+		changeLog.startAt(100);
+		for (long carId = 1; carId <= 10; carId++) {
+			assertThat(changeLog.record(change(carId), 0)).isEqualTo(100 + carId);
+		}
+
+		List<Long> carIds = new ArrayList<>();
+		long since = 100;
+		ChangeFeed feed;
+		do {
+			feed = changeLog.since(since, 3, ALL_DURABLE);
+			assertThat(feed.getResyncRequired()).isFalse();
+			assertThat(feed.getLatestSequence()).isEqualTo(110);
+			for (Change change : feed.getChanges()) {
+				assertThat(change.getSequence()).isEqualTo(++since);
+				carIds.add(change.getCarId());
+			}
+			assertThat(feed.getLastSequence()).isEqualTo(since);
+		} while (!feed.getChanges().isEmpty());
+
+		assertThat(carIds).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+	}
+
+	@Test
+	void wrappingPastCapacityKeepsTheNewestChangesAndAsksOlderReadersToResync() {
+		int recorded = CAPACITY * 3 + 5;
+		for (long carId = 1; carId <= recorded; carId++) {
+			changeLog.record(change(carId), 0);
+		}
+		long oldest = recorded - CAPACITY + 1;
+
+		ChangeFeed retained = changeLog.since(oldest - 1, Integer.MAX_VALUE, ALL_DURABLE);
+		assertThat(retained.getResyncRequired()).isFalse();
+		assertThat(retained.getChanges()).extracting(Change::getSequence)
+				.containsExactlyElementsOf(range(oldest, recorded));
+		assertThat(retained.getChanges()).extracting(Change::getCarId)
+				.containsExactlyElementsOf(range(oldest, recorded));
+
+		for (long since : new long[] { 0, 1, oldest - 2 }) {
+			ChangeFeed evicted = changeLog.since(since, 10, ALL_DURABLE);
+			assertThat(evicted.getResyncRequired()).isTrue();
+			assertThat(evicted.getChanges()).isEmpty();
+			assertThat(evicted.getLastSequence()).isEqualTo(recorded);
+		}
+
+		ChangeFeed resumed = changeLog.since(changeLog.since(0, 10, ALL_DURABLE).getLastSequence(), 10, ALL_DURABLE);
+		assertThat(resumed.getResyncRequired()).isFalse();
+		assertThat(resumed.getChanges()).isEmpty();
+	}
+
+	@Test
+	void readersFromBeforeTheStartOrFromAnEarlierRunMustResync() {
+		changeLog.startAt(1_000);
+		changeLog.record(change(1), 0);
+		changeLog.record(change(2), 0);
+
+		// Changes up to the start sequence were made before this log existed
+		assertThat(changeLog.since(999, 10, ALL_DURABLE).getResyncRequired()).isTrue();
+		assertThat(changeLog.since(1_000, 10, ALL_DURABLE).getChanges()).extracting(Change::getSequence)
+				.containsExactly(1_001L, 1_002L);
+		// A position beyond the newest change comes from a run that recorded more
+		ChangeFeed ahead = changeLog.since(5_000, 10, ALL_DURABLE);
+		assertThat(ahead.getResyncRequired()).isTrue();
+		assertThat(ahead.getLastSequence()).isEqualTo(1_002);
+	}
+
+	@Test
+	void onlyTheDurablePrefixIsHandedOut() {
+		changeLog.startAt(100);
+		changeLog.record(change(1), 7);
+		changeLog.record(change(2), 9);
+		changeLog.record(change(3), 8);
+
+		ChangeFeed nothingDurable = changeLog.since(100, 10, 6);
+		assertThat(nothingDurable.getResyncRequired()).isFalse();
+		assertThat(nothingDurable.getChanges()).isEmpty();
+		assertThat(nothingDurable.getLatestSequence()).isEqualTo(100);
+		// A reader that somehow got ahead of the durable prefix is not trusted
+		assertThat(changeLog.since(101, 10, 6).getResyncRequired()).isTrue();
+
+		// The third change is durable, but the second one before it is not yet
+		assertThat(changeLog.since(100, 10, 8).getChanges()).extracting(Change::getCarId).containsExactly(1L);
+		assertThat(changeLog.since(101, 10, 9).getChanges()).extracting(Change::getCarId).containsExactly(2L, 3L);
+	}
+
+	@Test
+	void resetAsksEveryReaderToResync() {
+		changeLog.startAt(100);
+		changeLog.record(change(1), 0);
+		changeLog.record(change(2), 0);
+
+		changeLog.reset();
+
+		for (long since : new long[] { 100, 101, 102 }) {
+			assertThat(changeLog.since(since, 10, ALL_DURABLE).getResyncRequired()).isTrue();
+		}
+		ChangeFeed restarted = changeLog.since(0, 10, ALL_DURABLE);
+		assertThat(restarted.getResyncRequired()).isTrue();
+		long start = restarted.getLastSequence();
+		assertThat(start).isGreaterThan(102);
+
+		changeLog.record(change(3), 0);
+		assertThat(changeLog.since(start, 10, ALL_DURABLE).getChanges()).extracting(Change::getSequence)
+				.containsExactly(start + 1);
+	}
+
+	@Test
+	void concurrentWritersNeverLeaveGapsForReaders() throws Exception {
+		ChangeLog large = new ChangeLog(100_000);
+		int writers = 8;
+		int perWriter = 5_000;
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int writer = 0; writer < writers; writer++) {
+				long carId = writer;
+				executor.submit(() -> {
+					for (int i = 0; i < perWriter; i++) {
+						large.record(change(carId), 0);
+					}
+				});
+			}
+
+			long since = 0;
+			while (since < (long) writers * perWriter) {
+				ChangeFeed feed = large.since(since, 1_000, ALL_DURABLE);
+				assertThat(feed.getResyncRequired()).isFalse();
+				for (Change change : feed.getChanges()) {
+					assertThat(change).isNotNull();
+					assertThat(change.getSequence()).isEqualTo(++since);
+				}
+			}
+		}
+	}
+
+	private static Change change(long carId) {
+		return Change.builder().type(ChangeEvent.Type.CAR_CREATED).carId(carId).build();
+	}
+
+	private static List<Long> range(long from, long to) {
+		List<Long> values = new ArrayList<>();
+		for (long value = from; value <= to; value++) {
+			values.add(value);
+		}
+		return values;
+	}
+}
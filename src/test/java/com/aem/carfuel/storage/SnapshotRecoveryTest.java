@@ -0,0 +1,210 @@
+package com.aem.carfuel.storage;
+
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelHistory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotRecoveryTest {
+
+	private static final FuelEntryValidator ACCEPT_ALL = (history, entry) -> null;
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+	@TempDir
+	Path directory;
+
+	private final List<WriteAheadLog> logs = new ArrayList<>();
+
+	@AfterEach
+	void closeLogs() {
+		logs.forEach(WriteAheadLog::close);
+		logs.clear();
+	}
+
+	@Test
+	void restartLoadsSnapshotAndReplaysLogTail() throws IOException {
+		InMemoryCarStorage storage = open();
+		Car corolla = storage.saveIfAbsent(car("Toyota", "Corolla", 2018)).orElseThrow();
+		storage.addFuelEntry(corolla, entry(40.0, 70.0, 10_000, 0), ACCEPT_ALL);
+		storage.addFuelEntry(corolla, entry(38.5, 66.0, 10_600, 7), ACCEPT_ALL);
+
+		storage.snapshot();
+		assertThat(listFiles(directory.resolve("snapshots"))).hasSize(1);
+
+		// Written after the snapshot, so only the log has them
+		storage.addFuelEntry(corolla, entry(41.2, 73.5, 11_150, 14), ACCEPT_ALL);
+		storage.addFuelEntry(corolla, entry(35.0, 61.0, 10_300, 3), ACCEPT_ALL); // back-dated
+		Car golf = storage.saveIfAbsent(car("Volkswagen", "Golf", 2020)).orElseThrow();
+		storage.addFuelEntry(golf, entry(30.0, 55.0, 5_000, 1), ACCEPT_ALL);
+		closeLogs();
+
+		InMemoryCarStorage restarted = open();
+		assertThat(restarted.count()).isEqualTo(2);
+		assertSameHistory(restarted.findById(corolla.getId()).orElseThrow(), corolla);
+		assertSameHistory(restarted.findById(golf.getId()).orElseThrow(), golf);
+		assertThat(restarted.existsByBrandModelYear("toyota", "COROLLA", 2018)).isTrue();
+
+		// Identifiers continue after the recovered ones
+		assertThat(restarted.generateCarId()).isGreaterThan(golf.getId());
+		assertThat(restarted.generateFuelId()).isGreaterThan(golf.getFuelHistory().idAt(0));
+	}
+
+	@Test
+	void restartAfterSeveralSnapshotsKeepsEverything() {
+		InMemoryCarStorage storage = open();
+		Car car = storage.saveIfAbsent(car("Skoda", "Octavia", 2019)).orElseThrow();
+		for (int i = 0; i < 30; i++) {
+			storage.addFuelEntry(car, entry(30 + i % 7, 50 + i % 5, 1_000 + i * 500, i), ACCEPT_ALL);
+			if (i % 10 == 9) {
+				storage.snapshot();
+			}
+		}
+		closeLogs();
+
+		Car recovered = open().findById(car.getId()).orElseThrow();
+		assertSameHistory(recovered, car);
+	}
+
+	@Test
+	void corruptNewestSnapshotFallsBackToOlderOneAndLog() throws IOException {
+		InMemoryCarStorage storage = open();
+		Car car = storage.saveIfAbsent(car("Mazda", "3", 2021)).orElseThrow();
+		storage.addFuelEntry(car, entry(40.0, 70.0, 1_000, 0), ACCEPT_ALL);
+		storage.snapshot();
+		storage.addFuelEntry(car, entry(42.0, 71.0, 1_600, 1), ACCEPT_ALL);
+		storage.snapshot();
+		storage.addFuelEntry(car, entry(39.0, 69.0, 2_200, 2), ACCEPT_ALL);
+		closeLogs();
+
+		List<Path> snapshots = listFiles(directory.resolve("snapshots"));
+		Path newest = snapshots.get(snapshots.size() - 1);
+		byte[] bytes = Files.readAllBytes(newest);
+		bytes[bytes.length / 2] ^= 0x5A;
+		Files.write(newest, bytes);
+
+		Car recovered = open().findById(car.getId()).orElseThrow();
+		assertSameHistory(recovered, car);
+	}
+
+	@Test
+	void withoutTheLogEachSnapshotIsRetainedAsItsOwnFile() throws IOException {
+		InMemoryCarStorage storage = openWithoutLog();
+		Car car = storage.saveIfAbsent(car("Kia", "Ceed", 2022)).orElseThrow();
+		storage.addFuelEntry(car, entry(40.0, 70.0, 1_000, 0), ACCEPT_ALL);
+		storage.snapshot();
+		storage.addFuelEntry(car, entry(42.0, 71.0, 1_600, 1), ACCEPT_ALL);
+		storage.snapshot();
+		List<FuelEntry> secondCut = car.getFuelEntries();
+		storage.addFuelEntry(car, entry(39.0, 69.0, 2_200, 2), ACCEPT_ALL);
+		storage.snapshot();
+
+		List<Path> snapshots = listFiles(directory.resolve("snapshots"));
+		assertThat(snapshots).hasSize(2);
+		assertSameHistory(openWithoutLog().findById(car.getId()).orElseThrow(), car);
+
+		// A damaged newest snapshot falls back to the previous cut
+		Path newest = snapshots.get(snapshots.size() - 1);
+		byte[] bytes = Files.readAllBytes(newest);
+		bytes[bytes.length / 2] ^= 0x5A;
+		Files.write(newest, bytes);
+		assertThat(openWithoutLog().findById(car.getId()).orElseThrow().getFuelEntries()).isEqualTo(secondCut);
+	}
+
+	@Test
+	void snapshotsTakenDuringAppendsNeitherLoseNorDuplicateEntries() throws Exception {
+		InMemoryCarStorage storage = open("periodic");
+		List<Car> cars = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			cars.add(storage.saveIfAbsent(car("Brand" + i, "Model", 2020)).orElseThrow());
+		}
+
+		List<Thread> writers = new ArrayList<>();
+		for (Car car : cars) {
+			Thread writer = new Thread(() -> {
+				for (int i = 0; i < 500; i++) {
+					storage.addFuelEntry(car, entry(30, 50, 1_000 + i * 100, i), ACCEPT_ALL);
+				}
+			});
+			writers.add(writer);
+			writer.start();
+		}
+		while (writers.stream().anyMatch(Thread::isAlive)) {
+			storage.snapshot();
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		closeLogs();
+
+		InMemoryCarStorage restarted = open();
+		for (Car car : cars) {
+			Car recovered = restarted.findById(car.getId()).orElseThrow();
+			assertThat(recovered.getEntriesCount()).isEqualTo(500);
+			assertSameHistory(recovered, car);
+		}
+	}
+
+	private InMemoryCarStorage open() {
+		return open("always");
+	}
+
+	private InMemoryCarStorage open(String syncMode) {
+		WriteAheadLog log = new WriteAheadLog(true, directory.resolve("wal").toString(), syncMode, 1, 64);
+		logs.add(log);
+		SnapshotStore snapshots = new SnapshotStore(true, directory.resolve("snapshots").toString(), 2);
+		return new InMemoryCarStorage(log, snapshots, new ChangeLog(64));
+	}
+
+	private InMemoryCarStorage openWithoutLog() {
+		WriteAheadLog log = new WriteAheadLog(false, directory.resolve("wal").toString(), "always", 1, 64);
+		SnapshotStore snapshots = new SnapshotStore(true, directory.resolve("snapshots").toString(), 2);
+		return new InMemoryCarStorage(log, snapshots, new ChangeLog(64));
+	}
+
+	private static void assertSameHistory(Car actual, Car expected) {
+		assertThat(actual.getBrand()).isEqualTo(expected.getBrand());
+		assertThat(actual.getModel()).isEqualTo(expected.getModel());
+		assertThat(actual.getYear()).isEqualTo(expected.getYear());
+		assertThat(actual.getFuelEntries()).isEqualTo(expected.getFuelEntries());
+		FuelHistory.Summary summary = actual.getFuelHistory().summary();
+		assertThat(summary.totalLiters()).isEqualTo(expected.getFuelHistory().summary().totalLiters());
+		assertThat(summary.totalCost()).isEqualTo(expected.getFuelHistory().summary().totalCost());
+	}
+
+	private static List<Path> listFiles(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().endsWith(".bin")).sorted().toList();
+		}
+	}
+
+	private static Car car(String brand, String model, int year) {
+		return Car.builder()
+				.brand(brand)
+				.model(model)
+				.year(year)
+				.createdAt(START.minusDays(30))
+				.build();
+	}
+
+	private static FuelEntry entry(double liters, double price, int odometer, int day) {
+		return FuelEntry.builder()
+				.liters(liters)
+				.price(price)
+				.odometer(odometer)
+				.timestamp(START.plusDays(day))
+				.build();
+	}
+}
@@ -0,0 +1,222 @@
+package com.aem.carfuel.storage;
+
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteAheadLogTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 8, 0);
+
+	@TempDir
+	Path directory;
+
+	private final List<WriteAheadLog> logs = new ArrayList<>();
+
+	/**
+	 * Collects replayed records as "car:id:brand" and "fuel:carId:entryId:odometer"
+	 */
+	private static final class Recorder implements WriteAheadLog.ReplayHandler {
+
+		final List<String> records = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void onCarCreated(Car car) {
+			records.add("car:" + car.getId() + ":" + car.getBrand());
+		}
+
+		@Override
+		public void onFuelEntryAdded(Long carId, FuelEntry entry) {
+			records.add("fuel:" + carId + ":" + entry.getId() + ":" + entry.getOdometer());
+		}
+	}
+
+	@AfterEach
+	void closeLogs() {
+		logs.forEach(WriteAheadLog::close);
+		logs.clear();
+	}
+
+	@Test
+	void replaysRecordsInOrderAndContinuesTheSequence() {
+		WriteAheadLog wal = open("group", 64);
+		List<String> written = new ArrayList<>();
+		long sequence = 0;
+		for (long carId = 1; carId <= 3; carId++) {
+			sequence = wal.appendCarCreated(car(carId));
+			written.add("car:" + carId + ":Brand" + carId);
+			for (int i = 0; i < 4; i++) {
+				long entryId = carId * 100 + i;
+				sequence = wal.appendFuelEntryAdded(carId, entry(entryId, 1_000 + i * 100));
+				written.add("fuel:" + carId + ":" + entryId + ":" + (1_000 + i * 100));
+			}
+		}
+		wal.awaitDurable(sequence);
+		assertThat(sequence).isEqualTo(15);
+		closeLogs();
+
+		Recorder replayed = new Recorder();
+		WriteAheadLog reopened = open("group", 64, replayed);
+
+		assertThat(replayed.records).isEqualTo(written);
+		assertThat(reopened.lastSequence()).isEqualTo(15);
+		assertThat(reopened.appendCarCreated(car(4))).isEqualTo(16);
+	}
+
+	@Test
+	void tornTailIsDroppedAndLaterAppendsSurvive() throws IOException {
+		WriteAheadLog wal = open("always", 64);
+		wal.appendCarCreated(car(1));
+		wal.appendFuelEntryAdded(1L, entry(10, 1_000));
+		wal.appendFuelEntryAdded(1L, entry(11, 1_100));
+		closeLogs();
+
+		// A crash in the middle of the last record
+		Path segment = lastSegmentWithData();
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 7);
+		}
+
+		Recorder replayed = new Recorder();
+		WriteAheadLog reopened = open("always", 64, replayed);
+		assertThat(replayed.records).containsExactly("car:1:Brand1", "fuel:1:10:1000");
+		assertThat(reopened.lastSequence()).isEqualTo(2);
+
+		reopened.appendFuelEntryAdded(1L, entry(12, 1_200));
+		closeLogs();
+
+		Recorder again = new Recorder();
+		open("always", 64, again);
+		assertThat(again.records).containsExactly("car:1:Brand1", "fuel:1:10:1000", "fuel:1:12:1200");
+	}
+
+	@Test
+	void corruptRecordEndsItsSegment() throws IOException {
+		WriteAheadLog wal = open("always", 64);
+		wal.appendCarCreated(car(1));
+		wal.appendFuelEntryAdded(1L, entry(10, 1_000));
+		wal.appendFuelEntryAdded(1L, entry(11, 1_100));
+		closeLogs();
+
+		// Flip a byte inside the payload of the second record
+		Path segment = lastSegmentWithData();
+		byte[] bytes = Files.readAllBytes(segment);
+		int secondRecord = Integer.BYTES + ByteBuffer.wrap(bytes).getInt() + Integer.BYTES;
+		bytes[secondRecord + Integer.BYTES + 12] ^= 0x40;
+		Files.write(segment, bytes);
+
+		Recorder replayed = new Recorder();
+		WriteAheadLog reopened = open("always", 64, replayed);
+
+		assertThat(replayed.records).containsExactly("car:1:Brand1");
+		assertThat(reopened.lastSequence()).isEqualTo(1);
+	}
+
+	@Test
+	void fullSegmentsRollOverAndReplayAcrossThem() throws IOException {
+		WriteAheadLog wal = open("periodic", 1);
+		wal.appendCarCreated(car(1));
+		int entries = 40_000; // About 61 bytes each, so more than two 1 MiB segments
+		for (int i = 0; i < entries; i++) {
+			wal.appendFuelEntryAdded(1L, entry(i + 1, i));
+		}
+		closeLogs();
+
+		List<Path> segments = segments();
+		assertThat(segments).hasSizeGreaterThanOrEqualTo(3);
+		for (Path segment : segments) {
+			assertThat(Files.size(segment)).isLessThanOrEqualTo(1024 * 1024);
+		}
+
+		Recorder replayed = new Recorder();
+		WriteAheadLog reopened = open("periodic", 1, replayed);
+		assertThat(replayed.records).hasSize(entries + 1);
+		for (int i = 0; i < entries; i++) {
+			assertThat(replayed.records.get(i + 1)).isEqualTo("fuel:1:" + (i + 1) + ":" + i);
+		}
+		assertThat(reopened.lastSequence()).isEqualTo(entries + 1);
+	}
+
+	@Test
+	void groupCommitReleasesManyConcurrentWriters() throws Exception {
+		WriteAheadLog wal = open("group", 64);
+		int writers = 200;
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < writers; i++) {
+				long carId = i + 1;
+				executor.execute(() -> wal.awaitDurable(wal.appendCarCreated(car(carId))));
+			}
+		}
+		closeLogs();
+
+		Recorder replayed = new Recorder();
+		open("group", 64, replayed);
+		assertThat(replayed.records).hasSize(writers).doesNotHaveDuplicates();
+	}
+
+	@Test
+	void segmentSizesThatCannotBeMappedForReplayAreRefused() {
+		for (long segmentSizeMb : new long[] { 0, WriteAheadLog.MAX_SEGMENT_SIZE_MB + 1, 4096 }) {
+			assertThatThrownBy(() -> new WriteAheadLog(true, directory.toString(), "group", 1, segmentSizeMb))
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessageContaining("segment-size-mb must be between 1 and 2047");
+		}
+		assertThat(new WriteAheadLog(true, directory.toString(), "group", 1, WriteAheadLog.MAX_SEGMENT_SIZE_MB))
+				.isNotNull();
+	}
+
+	private WriteAheadLog open(String syncMode, long segmentSizeMb) {
+		return open(syncMode, segmentSizeMb, new Recorder());
+	}
+
+	private WriteAheadLog open(String syncMode, long segmentSizeMb, Recorder recorder) {
+		WriteAheadLog wal = new WriteAheadLog(true, directory.toString(), syncMode, 1, segmentSizeMb);
+		wal.recover(recorder, 0, 0);
+		logs.add(wal);
+		return wal;
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList();
+		}
+	}
+
+	private Path lastSegmentWithData() throws IOException {
+		List<Path> segments = segments();
+		for (int i = segments.size() - 1; i >= 0; i--) {
+			if (Files.size(segments.get(i)) > 0) {
+				return segments.get(i);
+			}
+		}
+		throw new AssertionError("No segment holds records");
+	}
+
+	private static Car car(long id) {
+		return Car.builder().id(id).brand("Brand" + id).model("Model").year(2020).createdAt(START).build();
+	}
+
+	private static FuelEntry entry(long id, int odometer) {
+		return FuelEntry.builder().id(id).liters(40.0).price(70.0).odometer(odometer)
+				.timestamp(START.plusHours(id)).build();
+	}
+}
@@ -0,0 +1,128 @@
+package com.aem.carfuel.wire;
+
+import com.aem.carfuel.dto.AddFuelRequest;
+import com.aem.carfuel.model.Car;
+import com.aem.carfuel.model.FuelEntry;
+import com.aem.carfuel.model.FuelStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryWireFormatTest {
+
+	/**
+	 * Written by the CLI: BinaryCodec.encodeFuelRequest(42.5, 70.25, 12345, "2025-01-02T03:04:05")
+	 */
+	private static final byte[] CLI_FUEL_REQUEST =
+			HexFormat.of().parseHex("0140454000000000004051900000000000000030391816c11eeef33200");
+
+	private static final AddFuelRequest FUEL_REQUEST = AddFuelRequest.builder()
+			.liters(42.5).price(70.25).odometer(12345).timestamp(LocalDateTime.of(2025, 1, 2, 3, 4, 5))
+			.build();
+
+	@Test
+	void fuelRequestMatchesTheCliEncoding() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryWireFormat.writeAddFuelRequest(new DataOutputStream(bytes), FUEL_REQUEST);
+
+		assertThat(bytes.toByteArray()).isEqualTo(CLI_FUEL_REQUEST);
+		assertThat(BinaryWireFormat.readAddFuelRequest(in(CLI_FUEL_REQUEST))).isEqualTo(FUEL_REQUEST);
+	}
+
+	@Test
+	void carRoundTripsAndDecodesLikeTheCli() throws IOException {
+		Car car = Car.builder().id(7L).brand("Škoda").model("Octavia").year(2019)
+				.createdAt(LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_789)).build();
+		car.addFuelEntry(entry(11L, 40.0, 1_000, LocalDateTime.of(2024, 6, 1, 8, 0)));
+		car.addFuelEntry(entry(12L, 35.5, 1_600, LocalDateTime.of(2024, 6, 20, 8, 0)));
+		car.addFuelEntry(entry(13L, 20.25, 1_300, LocalDateTime.of(2024, 6, 10, 8, 0))); // back-dated
+
+		byte[] body = BinaryWireFormat.encode(car);
+		Car decoded = BinaryWireFormat.readCar(in(body));
+
+		assertThat(decoded.getId()).isEqualTo(7L);
+		assertThat(decoded.getBrand()).isEqualTo("Škoda");
+		assertThat(decoded.getCreatedAt()).isEqualTo(car.getCreatedAt());
+		assertThat(decoded.getFuelEntries()).extracting(FuelEntry::getId).containsExactly(11L, 13L, 12L);
+		assertThat(decoded.getFuelEntries()).usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyInAnyOrderElementsOf(car.getFuelEntries());
+
+		// The CLI reads the version, the header and the entry count, then stops
+		DataInputStream cli = in(body);
+		assertThat(cli.readUnsignedByte()).isEqualTo(BinaryWireFormat.VERSION);
+		assertThat(cli.readLong()).isEqualTo(7L);
+		assertThat(cli.readUTF()).isEqualTo("Škoda");
+		assertThat(cli.readUTF()).isEqualTo("Octavia");
+		assertThat(cli.readInt()).isEqualTo(2019);
+		cli.readLong();
+		assertThat(cli.readInt()).isEqualTo(3);
+		assertThat(cli.available()).isEqualTo(3 * 36);
+	}
+
+	@Test
+	void statsAndEntriesRoundTrip() throws IOException {
+		FuelStats stats = FuelStats.builder().totalFuel(127.0).totalCost(166.5).avgConsumption(12.7).entriesCount(3).build();
+		byte[] statsBody = BinaryWireFormat.encode(stats);
+		assertThat(statsBody).hasSize(29);
+		assertThat(BinaryWireFormat.readStats(in(statsBody))).isEqualTo(stats);
+
+		FuelEntry entry = entry(5L, 33.3, 9_000, null);
+		byte[] entryBody = BinaryWireFormat.encode(entry);
+		assertThat(entryBody).hasSize(37);
+		assertThat(BinaryWireFormat.readFuelEntry(in(entryBody))).usingRecursiveComparison().isEqualTo(entry);
+	}
+
+	@Test
+	void unknownVersionIsRejected() {
+		byte[] future = CLI_FUEL_REQUEST.clone();
+		future[0] = 2;
+
+		assertThatThrownBy(() -> BinaryWireFormat.readAddFuelRequest(in(future)))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("version 2");
+		assertThatThrownBy(() -> new BinaryWireMessageConverter().read(AddFuelRequest.class, message(future)))
+				.isInstanceOf(HttpMessageNotReadableException.class);
+	}
+
+	@Test
+	void converterRejectsTruncatedAndTrailingBytes() throws IOException {
+		BinaryWireMessageConverter converter = new BinaryWireMessageConverter();
+		assertThat(converter.read(AddFuelRequest.class, message(CLI_FUEL_REQUEST))).isEqualTo(FUEL_REQUEST);
+
+		byte[] truncated = Arrays.copyOf(CLI_FUEL_REQUEST, CLI_FUEL_REQUEST.length - 1);
+		assertThatThrownBy(() -> converter.read(AddFuelRequest.class, message(truncated)))
+				.isInstanceOf(HttpMessageNotReadableException.class)
+				.hasMessageContaining("Truncated");
+
+		byte[] trailing = Arrays.copyOf(CLI_FUEL_REQUEST, CLI_FUEL_REQUEST.length + 1);
+		assertThatThrownBy(() -> converter.read(AddFuelRequest.class, message(trailing)))
+				.isInstanceOf(HttpMessageNotReadableException.class)
+				.hasMessageContaining("Unexpected data");
+	}
+
+	private static FuelEntry entry(long id, double liters, int odometer, LocalDateTime timestamp) {
+		return FuelEntry.builder().id(id).liters(liters).price(liters * 1.7).odometer(odometer).timestamp(timestamp).build();
+	}
+
+	private static DataInputStream in(byte[] bytes) {
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+
+	private static MockHttpInputMessage message(byte[] bytes) {
+		MockHttpInputMessage message = new MockHttpInputMessage(bytes);
+		message.getHeaders().setContentType(BinaryWireFormat.MEDIA_TYPE);
+		return message;
+	}
+}